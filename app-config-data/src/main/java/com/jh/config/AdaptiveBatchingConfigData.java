@@ -0,0 +1,22 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "adaptive-batching-config")
+@Data
+public class AdaptiveBatchingConfigData {
+
+    private Boolean enable;
+    private Long intervalMs;
+    private Integer minBatchSize;
+    private Integer maxBatchSize;
+    private Integer minLingerMs;
+    private Integer maxLingerMs;
+    private Double batchFillHighRatio;
+    private Double batchFillLowRatio;
+    private Double bufferAvailableLowRatio;
+
+}
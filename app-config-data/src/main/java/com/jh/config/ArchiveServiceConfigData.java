@@ -0,0 +1,19 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "archive-service-config")
+@Data
+public class ArchiveServiceConfigData {
+
+    private String directory;
+    private String codec;
+    private Integer blockSizeBytes;
+    private Long maxFileBytes;
+    private Long maxFileAgeMs;
+    private Long fsyncIntervalMs;
+
+}
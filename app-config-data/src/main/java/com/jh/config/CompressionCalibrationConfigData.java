@@ -0,0 +1,25 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "compression-calibration-config")
+@Data
+public class CompressionCalibrationConfigData {
+
+    private Boolean enable;
+    private List<String> codecs;
+    private Integer sampleSize;
+    private Integer sampleEveryN;
+    private Long initialDelayMs;
+    private Long intervalMs;
+    private Integer iterations;
+    private Double cpuBudgetCores;
+    private Long networkBytesPerSecond;
+    private Double minImprovementRatio;
+
+}
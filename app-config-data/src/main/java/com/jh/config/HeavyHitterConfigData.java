@@ -0,0 +1,25 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "heavy-hitter-config")
+@Data
+public class HeavyHitterConfigData {
+
+    private Boolean enable;
+    private Integer sketchWidth;
+    private Integer sketchDepth;
+    private Integer topKCapacity;
+    private Integer stripes;
+    private Long windowMs;
+    private Integer windowCount;
+    private Double decayFactor;
+    private Integer minTermLength;
+    private String summaryTopicName;
+    private Long summaryIntervalMs;
+    private Integer summaryTopK;
+
+}
@@ -0,0 +1,21 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "hot-key-partitioning-config")
+@Data
+public class HotKeyPartitioningConfigData {
+
+    private Boolean enable;
+    private Integer sketchWidth;
+    private Integer sketchDepth;
+    private Long windowMs;
+    private Double hotKeyMessagesPerSecond;
+    private Double coolDownRatio;
+    private Integer spreadPartitions;
+    private Integer maxHotKeys;
+
+}
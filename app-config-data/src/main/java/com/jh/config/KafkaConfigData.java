@@ -4,13 +4,18 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @ConfigurationProperties(prefix = "kafka-config")
 @Data
 public class KafkaConfigData {
 
+    public static final String WIRE_FORMAT_CONFLUENT = "confluent";
+    public static final String WIRE_FORMAT_SINGLE_OBJECT = "single-object";
+
     private String bootstrapServers;
     private String schemaRegistryUrlKey;
     private String schemaRegistryUrl;
@@ -18,5 +23,20 @@ public class KafkaConfigData {
     private List<String> topicNamesToCreate;
     private Integer numOfPartitions;
     private Short replicationFactor;
+    private String wireFormat;
+    private String topicConfigProfile;
+    private Map<String, String> topicConfigProfileByTopic = new HashMap<>();
+    private Map<String, TopicConfigProfile> topicConfigProfiles = new HashMap<>();
+
+    @Data
+    public static class TopicConfigProfile {
+
+        private Integer segmentBytes;
+        private Short minInsyncReplicas;
+        private String compressionType;
+        private Long retentionMs;
+        private Map<String, String> configs = new HashMap<>();
+
+    }
 
 }
@@ -0,0 +1,31 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "kafka-consumer-config")
+@Data
+public class KafkaConsumerConfigData {
+
+    private String keyDeserializer;
+    private String valueDeserializer;
+    private String consumerGroupId;
+    private String autoOffsetReset;
+    private String specificAvroReaderKey;
+    private String specificAvroReader;
+    private Boolean batchListener;
+    private Boolean autoStartup;
+    private Integer concurrencyLevel;
+    private Integer sessionTimeoutMs;
+    private Integer heartbeatIntervalMs;
+    private Integer maxPollIntervalMs;
+    private Integer maxPollRecords;
+    private Integer fetchMinBytes;
+    private Integer fetchMaxWaitMs;
+    private Integer maxPartitionFetchBytesDefault;
+    private Integer maxPartitionFetchBytesBoostFactor;
+    private Long pollTimeoutMs;
+
+}
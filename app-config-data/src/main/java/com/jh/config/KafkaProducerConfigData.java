@@ -18,5 +18,7 @@ public class KafkaProducerConfigData {
     private Integer lingerMs;
     private Integer requestTimeoutMs;
     private Integer retryCount;
+    private Integer producerPoolSize;
+    private String clientIdPrefix;
 
 }
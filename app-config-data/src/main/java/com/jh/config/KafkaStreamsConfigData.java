@@ -0,0 +1,26 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "kafka-streams-config")
+@Data
+public class KafkaStreamsConfigData {
+
+    private String applicationId;
+    private String inputTopicName;
+    private String stateDir;
+    private String applicationServer;
+    private Integer numStreamThreads;
+    private Long commitIntervalMs;
+    private List<String> keywords;
+    private Long windowSizeMs;
+    private Long windowAdvanceMs;
+    private Long windowGraceMs;
+    private Integer topK;
+
+}
@@ -0,0 +1,21 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "keyword-routing-config")
+@Data
+public class KeywordRoutingConfigData {
+
+    private Boolean enable;
+    private Boolean fanOut;
+    private Map<String, String> topics = new HashMap<>();
+    private String keywordsFile;
+    private Long reloadIntervalMs;
+
+}
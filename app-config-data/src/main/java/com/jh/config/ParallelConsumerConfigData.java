@@ -0,0 +1,20 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "parallel-consumer-config")
+@Data
+public class ParallelConsumerConfigData {
+
+    private Boolean enable;
+    private Integer workerThreads;
+    private Integer maxInFlightRecords;
+    private Long commitWaitMs;
+    private Long drainTimeoutMs;
+    // 0 보다 크면 key-seq 헤더로 hot key 레코드의 순서를 되살리고, 빈 sequence 를 이만큼 기다린다
+    private Long reorderTimeoutMs;
+
+}
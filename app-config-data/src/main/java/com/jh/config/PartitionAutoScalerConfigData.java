@@ -0,0 +1,19 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "partition-auto-scaler-config")
+@Data
+public class PartitionAutoScalerConfigData {
+
+    private Boolean enable;
+    private Long intervalMs;
+    private Integer sustainedIntervals;
+    private Double maxMessagesPerSecondPerPartition;
+    private Double targetUtilization;
+    private Integer maxPartitions;
+
+}
@@ -0,0 +1,17 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "reactive-pipeline-config")
+@Data
+public class ReactivePipelineConfigData {
+
+    private Boolean enable;
+    private Integer maxInFlight;
+    private Integer liveBufferSize;
+    private Long reportIntervalMs;
+
+}
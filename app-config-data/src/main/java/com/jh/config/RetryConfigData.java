@@ -13,7 +13,7 @@ public class RetryConfigData {
     private Long maxIntervalMs;
     private Double multiplier;
     private Integer maxAttempts;
-    private Long sleepTimeMs;
+    private Long startupTimeoutMs;
 
     public Long getInitialIntervalMs() {
         return initialIntervalMs;
@@ -31,8 +31,8 @@ public class RetryConfigData {
         return maxAttempts;
     }
 
-    public Long getSleepTimeMs() {
-        return sleepTimeMs;
+    public Long getStartupTimeoutMs() {
+        return startupTimeoutMs;
     }
 
 }
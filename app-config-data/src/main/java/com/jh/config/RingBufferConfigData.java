@@ -0,0 +1,19 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ring-buffer-config")
+@Data
+public class RingBufferConfigData {
+
+    private Boolean enable;
+    private Integer capacity;
+    private Integer consumerThreads;
+    private String waitStrategy;
+    private String fullBufferPolicy;
+    private Long shutdownTimeoutMs;
+
+}
@@ -0,0 +1,20 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "search-service-config")
+@Data
+public class SearchServiceConfigData {
+
+    private Long segmentDurationMs;
+    private Long retentionMs;
+    private Long expireIntervalMs;
+    private Integer minTermLength;
+    private Integer maxTermLength;
+    private Integer defaultLimit;
+    private Integer maxLimit;
+
+}
@@ -0,0 +1,22 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spill-log-config")
+@Data
+public class SpillLogConfigData {
+
+    private Boolean enable;
+    private String directory;
+    private Integer segmentSizeBytes;
+    private Long maxDiskBytes;
+    private Integer drainBatchSize;
+    private Long drainIntervalMs;
+    private Long drainTimeoutMs;
+    private Double bufferAvailableLowRatio;
+    private Long reportIntervalMs;
+
+}
@@ -0,0 +1,19 @@
+package com.jh.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "tweet-dedup-config")
+@Data
+public class TweetDedupConfigData {
+
+    private Boolean enable;
+    private Integer capacity;
+    private Long ttlMs;
+    private Integer stripes;
+    private String checkpointFile;
+    private Long checkpointIntervalMs;
+
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @ConfigurationProperties(prefix = "twitter-to-kafka-service")
@@ -17,5 +18,38 @@ public class TwitterToKafkaServiceConfigData {
     private Integer mockMinTweetLength;
     private Integer mockMaxTweetLength;
     private Long mockSleepMs;
+    private Boolean enableStreamingJsonTransformer;
+    private Boolean enableMockLoadGenerator;
+    private Integer mockTargetRatePerSecond;
+    private Integer mockGeneratorThreads;
+    private Integer mockPayloadPoolSize;
+    private Long mockRateReportIntervalMs;
+    private String mockWorkloadProfile;
+    private Map<String, MockWorkloadProfile> mockWorkloadProfiles;
+    private Boolean enableFileReplay;
+    private List<String> replayFiles;
+    private String replayMode;
+    private Double replaySpeedup;
+    private Boolean replayLoop;
+    private Long replayRateReportIntervalMs;
+
+    @Data
+    public static class MockWorkloadProfile {
+
+        private Long seed;
+        private Integer userPopulation;
+        private Double zipfExponent;
+        private Long burstOnMs;
+        private Long burstOffMs;
+        private Double burstRateMultiplier;
+        private Map<String, Integer> keywordWeights;
+        private Double keywordProbability;
+        private String textLengthDistribution;
+        private Integer minTweetLength;
+        private Integer maxTweetLength;
+        private Double textLengthMean;
+        private Double textLengthStdDev;
+
+    }
 
 }
@@ -0,0 +1,13 @@
+package com.jh;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ArchiveServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ArchiveServiceApplication.class, args);
+    }
+
+}
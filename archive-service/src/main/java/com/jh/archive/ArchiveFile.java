@@ -0,0 +1,118 @@
+package com.jh.archive;
+
+import com.jh.avro.model.TwitterAvroModel;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.kafka.common.TopicPartition;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * partition 하나의 쓰고 있는 Avro container 파일. 쓰는 동안은 {@code .avro.inprogress} 이름을 쓰고,
+ * 닫을 때 담긴 offset 범위를 붙인 {@code <topic>-<partition>-<first>-<last>.avro} 로 바꾼다.
+ */
+final class ArchiveFile {
+
+    static final String IN_PROGRESS_SUFFIX = ".avro.inprogress";
+
+    private final Path directory;
+
+    private final TopicPartition topicPartition;
+
+    private final long firstOffset;
+
+    private final Path inProgressPath;
+
+    private final FileOutputStream out;
+
+    private final DataFileWriter<TwitterAvroModel> dataFileWriter;
+
+    private final long openedNanos = System.nanoTime();
+
+    private long lastOffset;
+
+    private long recordCount;
+
+    ArchiveFile(Path directory, TopicPartition topicPartition, long firstOffset, CodecFactory codecFactory,
+                int blockSizeBytes) throws IOException {
+        this.directory = directory;
+        this.topicPartition = topicPartition;
+        this.firstOffset = firstOffset;
+        this.lastOffset = firstOffset - 1;
+        this.inProgressPath = directory.resolve(baseName() + IN_PROGRESS_SUFFIX);
+        this.out = new FileOutputStream(inProgressPath.toFile());
+        this.dataFileWriter = new DataFileWriter<>(new SpecificDatumWriter<>(TwitterAvroModel.class));
+        try {
+            dataFileWriter.setCodec(codecFactory);
+            dataFileWriter.setSyncInterval(blockSizeBytes);
+            dataFileWriter.setMeta("kafka.topic", topicPartition.topic());
+            dataFileWriter.setMeta("kafka.partition", topicPartition.partition());
+            dataFileWriter.setMeta("kafka.first.offset", firstOffset);
+            dataFileWriter.create(TwitterAvroModel.getClassSchema(), out);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    void append(TwitterAvroModel twitterAvroModel, long offset) throws IOException {
+        dataFileWriter.append(twitterAvroModel);
+        lastOffset = offset;
+        recordCount++;
+    }
+
+    // 열린 block 을 내보내고 디스크까지 내린다
+    void fsync() throws IOException {
+        dataFileWriter.fSync();
+    }
+
+    long sizeInBytes() throws IOException {
+        return out.getChannel().size();
+    }
+
+    long ageNanos() {
+        return System.nanoTime() - openedNanos;
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    TopicPartition getTopicPartition() {
+        return topicPartition;
+    }
+
+    /**
+     * fsync 후 닫고 최종 이름으로 바꾼다. 레코드가 없으면 파일을 지운다.
+     */
+    Path finish() throws IOException {
+        dataFileWriter.fSync();
+        dataFileWriter.close();
+        if (recordCount == 0) {
+            Files.deleteIfExists(inProgressPath);
+            return null;
+        }
+        Path finalPath = directory.resolve(baseName() + "-" + lastOffset + ".avro");
+        Files.move(inProgressPath, finalPath, StandardCopyOption.ATOMIC_MOVE);
+        return finalPath;
+    }
+
+    // 예외로 끝낼 때. inprogress 파일은 다음 시작 때 복구한다
+    void abort() {
+        try {
+            dataFileWriter.close();
+        } catch (IOException | RuntimeException ignored) {
+            // 이미 쓰기가 실패한 파일이다
+        }
+    }
+
+    private String baseName() {
+        return topicPartition.topic() + "-" + topicPartition.partition() + "-" + firstOffset;
+    }
+
+}
@@ -0,0 +1,298 @@
+package com.jh.archive;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.ArchiveServiceConfigData;
+import com.jh.exception.ArchiveServiceException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.CodecFactory;
+import org.apache.avro.file.DataFileConstants;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TwitterAvroModel 을 partition 별 Avro object container 파일에 쓴다.
+ * <p>
+ * 레코드는 block-size-bytes 단위 block 으로 codec 압축된다. fsync-interval-ms 마다 열린 파일을 모두 fsync 하고,
+ * 그때까지 받은 batch 의 Acknowledgment 를 받은 순서대로 호출해 디스크에 내려간 만큼만 offset 을 commit 한다.
+ * fsync 한 뒤 max-file-bytes 또는 max-file-age-ms 를 넘은 파일은 닫고 최종 이름으로 바꾼다.
+ * <p>
+ * commit 전에 죽으면 마지막 fsync 이후 레코드는 다시 읽으므로 파일 사이에 중복이 생길 수 있다(at-least-once).
+ * 시작할 때 남아 있는 inprogress 파일은 온전한 block 까지만 복구해 {@code -recovered.avro} 로 남긴다.
+ * 디스크 쓰기에 실패하면 그 뒤로는 batch 를 받지 않고 예외를 던진다. 이 예외로 listener container 가 멈추므로
+ * (ArchiveConsumerConfig) 실패한 batch 의 offset 은 commit 되지 않고 재시작 후 마지막 commit 부터 다시 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AvroArchiveWriter {
+
+    private static final String RECOVERED_SUFFIX = "-recovered.avro";
+
+    private final ArchiveServiceConfigData archiveServiceConfigData;
+
+    private final Map<TopicPartition, ArchiveFile> openFiles = new HashMap<>();
+
+    private final List<Acknowledgment> pendingAcks = new ArrayList<>();
+
+    private final LongAdder archivedCount = new LongAdder();
+
+    private final LongAdder fsyncCount = new LongAdder();
+
+    private final LongAdder finishedFileCount = new LongAdder();
+
+    private Path directory;
+
+    private CodecFactory codecFactory;
+
+    private long lastSyncNanos = System.nanoTime();
+
+    private boolean failed;
+
+    private ScheduledExecutorService syncExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Paths.get(archiveServiceConfigData.getDirectory());
+        Files.createDirectories(directory);
+        codecFactory = CodecFactory.fromString(archiveServiceConfigData.getCodec());
+        recoverInProgressFiles();
+
+        long fsyncIntervalMs = archiveServiceConfigData.getFsyncIntervalMs();
+        syncExecutor = Executors.newSingleThreadScheduledExecutor();
+        syncExecutor.scheduleWithFixedDelay(this::scheduledSync, fsyncIntervalMs, fsyncIntervalMs,
+                TimeUnit.MILLISECONDS);
+
+        log.info("Archiving to {} with codec {}", directory.toAbsolutePath(), codecFactory);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+        synchronized (this) {
+            for (ArchiveFile archiveFile : openFiles.values()) {
+                finish(archiveFile);
+            }
+            openFiles.clear();
+            pendingAcks.clear();
+        }
+        log.info("Archive writer closed, archived {} records in {} files", getArchivedCount(),
+                getFinishedFileCount());
+    }
+
+    /**
+     * batch 를 파일에 붙이고, fsync 할 때가 됐으면 fsync 하고 쌓인 batch 들을 ack 한다.
+     */
+    public synchronized void append(List<ConsumerRecord<Long, TwitterAvroModel>> records,
+                                    Acknowledgment acknowledgment) {
+        if (failed) {
+            throw new ArchiveServiceException("Archive writer failed earlier, restart to recover in-progress files");
+        }
+        try {
+            for (ConsumerRecord<Long, TwitterAvroModel> record : records) {
+                if (record.value() == null) {
+                    continue;
+                }
+                TopicPartition topicPartition = new TopicPartition(record.topic(), record.partition());
+                ArchiveFile archiveFile = openFiles.get(topicPartition);
+                if (archiveFile == null) {
+                    archiveFile = new ArchiveFile(directory, topicPartition, record.offset(), codecFactory,
+                            archiveServiceConfigData.getBlockSizeBytes());
+                    openFiles.put(topicPartition, archiveFile);
+                }
+                archiveFile.append(record.value(), record.offset());
+                archivedCount.increment();
+            }
+        } catch (IOException e) {
+            abortAll();
+            throw new ArchiveServiceException("Error writing archive file", e);
+        }
+        pendingAcks.add(acknowledgment);
+
+        if (System.nanoTime() - lastSyncNanos >= TimeUnit.MILLISECONDS.toNanos(
+                archiveServiceConfigData.getFsyncIntervalMs())) {
+            syncAndAcknowledge();
+        }
+    }
+
+    /**
+     * 뺏긴 partition 의 파일을 닫는다. 그 전에 모든 파일을 fsync 하고 쌓인 batch 를 ack 한다.
+     */
+    public synchronized void closePartitions(Collection<TopicPartition> partitions) {
+        if (failed) {
+            return;
+        }
+        syncAndAcknowledge();
+        for (TopicPartition partition : partitions) {
+            ArchiveFile archiveFile = openFiles.remove(partition);
+            if (archiveFile != null) {
+                finish(archiveFile);
+            }
+        }
+    }
+
+    public long getArchivedCount() {
+        return archivedCount.sum();
+    }
+
+    public long getFsyncCount() {
+        return fsyncCount.sum();
+    }
+
+    public long getFinishedFileCount() {
+        return finishedFileCount.sum();
+    }
+
+    // 새 batch 가 없어도 ack 와 시간 기준 rolling 이 밀리지 않게 한다
+    private synchronized void scheduledSync() {
+        if (failed) {
+            return;
+        }
+        try {
+            syncAndAcknowledge();
+        } catch (RuntimeException e) {
+            log.error("Error syncing archive files", e);
+        }
+    }
+
+    private void syncAndAcknowledge() {
+        try {
+            for (ArchiveFile archiveFile : openFiles.values()) {
+                archiveFile.fsync();
+            }
+        } catch (IOException e) {
+            abortAll();
+            throw new ArchiveServiceException("Error syncing archive file", e);
+        }
+        fsyncCount.increment();
+        lastSyncNanos = System.nanoTime();
+
+        for (Acknowledgment acknowledgment : pendingAcks) {
+            acknowledgment.acknowledge();
+        }
+        pendingAcks.clear();
+
+        rollFiles();
+    }
+
+    private void rollFiles() {
+        long maxFileAgeNanos = TimeUnit.MILLISECONDS.toNanos(archiveServiceConfigData.getMaxFileAgeMs());
+        Iterator<ArchiveFile> iterator = openFiles.values().iterator();
+        while (iterator.hasNext()) {
+            ArchiveFile archiveFile = iterator.next();
+            boolean roll;
+            try {
+                roll = archiveFile.sizeInBytes() >= archiveServiceConfigData.getMaxFileBytes()
+                        || archiveFile.ageNanos() >= maxFileAgeNanos;
+            } catch (IOException e) {
+                log.warn("Error reading archive file size for {}", archiveFile.getTopicPartition(), e);
+                roll = true;
+            }
+            if (roll) {
+                iterator.remove();
+                finish(archiveFile);
+            }
+        }
+    }
+
+    private void finish(ArchiveFile archiveFile) {
+        try {
+            Path path = archiveFile.finish();
+            if (path != null) {
+                syncDirectory();
+                finishedFileCount.increment();
+                log.info("Finished archive file {} with {} records", path.getFileName(),
+                        archiveFile.getRecordCount());
+            }
+        } catch (IOException e) {
+            log.error("Error finishing archive file for {}", archiveFile.getTopicPartition(), e);
+        }
+    }
+
+    // 쓰기에 실패하면 더 ack 하지 않고 이후 레코드도 받지 않는다. 마지막 commit 뒤 레코드는 재시작 후 다시 읽는다
+    private void abortAll() {
+        failed = true;
+        for (ArchiveFile archiveFile : openFiles.values()) {
+            archiveFile.abort();
+        }
+        openFiles.clear();
+        pendingAcks.clear();
+    }
+
+    // rename 이 디스크에 남도록 디렉터리도 fsync 한다. 지원하지 않는 파일 시스템에서는 건너뛴다
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync is not supported for {}", directory, e);
+        }
+    }
+
+    private void recoverInProgressFiles() throws IOException {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + ArchiveFile.IN_PROGRESS_SUFFIX)) {
+            for (Path path : paths) {
+                recover(path);
+            }
+        }
+    }
+
+    // 마지막 block 이 잘렸을 수 있으므로 block 을 하나씩 옮기다 읽을 수 없는 곳에서 멈춘다
+    private void recover(Path path) throws IOException {
+        DataFileReader<Object> dataFileReader;
+        try {
+            dataFileReader = new DataFileReader<>(path.toFile(), new GenericDatumReader<>());
+        } catch (IOException e) {
+            log.warn("Archive file {} has no readable header, deleting it", path, e);
+            Files.deleteIfExists(path);
+            return;
+        }
+
+        String fileName = path.getFileName().toString();
+        Path recoveredPath = directory.resolve(
+                fileName.substring(0, fileName.length() - ArchiveFile.IN_PROGRESS_SUFFIX.length()) + RECOVERED_SUFFIX);
+        try (DataFileReader<Object> reader = dataFileReader;
+             DataFileWriter<Object> writer = new DataFileWriter<>(new GenericDatumWriter<>())) {
+            String codec = reader.getMetaString(DataFileConstants.CODEC);
+            writer.setCodec(CodecFactory.fromString(codec != null ? codec : DataFileConstants.NULL_CODEC));
+            writer.create(reader.getSchema(), recoveredPath.toFile());
+            try {
+                writer.appendAllFrom(reader, false);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Archive file {} has a truncated tail, recovered complete blocks only", path, e);
+            }
+            writer.fSync();
+        }
+        Files.delete(path);
+        syncDirectory();
+        log.info("Recovered archive file {} to {}", path.getFileName(), recoveredPath.getFileName());
+    }
+
+}
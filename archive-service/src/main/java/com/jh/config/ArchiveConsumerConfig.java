@@ -0,0 +1,18 @@
+package com.jh.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.listener.CommonContainerStoppingErrorHandler;
+import org.springframework.kafka.listener.CommonErrorHandler;
+
+@Configuration
+public class ArchiveConsumerConfig {
+
+    // 기본 DefaultErrorHandler 는 재시도 후 실패한 batch 를 로그만 남기고 commit 해 버린다.
+    // 보관에 실패하면 offset 을 commit 하지 않고 container 를 멈춰, 재시작 후 마지막 commit 부터 다시 읽게 한다
+    @Bean
+    public CommonErrorHandler archiveErrorHandler() {
+        return new CommonContainerStoppingErrorHandler();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.jh.consumer;
+
+import com.jh.archive.AvroArchiveWriter;
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.service.KafkaConsumer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * twitter-topic 을 읽어 Avro container 파일로 보관한다. ack 는 AvroArchiveWriter 가 fsync 한 뒤에 한다.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TweetArchiveConsumer implements KafkaConsumer<Long, TwitterAvroModel>, ConsumerSeekAware {
+
+    private final AvroArchiveWriter avroArchiveWriter;
+
+    @Override
+    @KafkaListener(id = "tweetArchiveListener", topics = "${kafka-config.topic-name}")
+    public void receive(List<ConsumerRecord<Long, TwitterAvroModel>> records, Acknowledgment acknowledgment) {
+        avroArchiveWriter.append(records, acknowledgment);
+        log.debug("Archived {} tweets", records.size());
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        avroArchiveWriter.closePartitions(partitions);
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.jh.exception;
+
+public class ArchiveServiceException extends RuntimeException {
+
+    public ArchiveServiceException() {
+        super();
+    }
+
+    public ArchiveServiceException(String message) {
+        super(message);
+    }
+
+    public ArchiveServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
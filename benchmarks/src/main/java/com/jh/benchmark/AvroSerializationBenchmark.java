@@ -0,0 +1,100 @@
+package com.jh.benchmark;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.serializer.SingleObjectAvroSerializer;
+import com.jh.serializer.TwitterAvroModelSerializer;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.openjdk.jmh.annotations.*;
+import twitter4j.TwitterException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+@State(Scope.Thread)
+public class AvroSerializationBenchmark {
+
+    private static final int MASK = BenchmarkFixtures.SAMPLE_SIZE - 1;
+
+    private static final String TOPIC_NAME = "twitter-topic";
+
+    private TwitterAvroModel[] twitterAvroModels;
+
+    private KafkaAvroSerializer kafkaAvroSerializer;
+
+    private TwitterAvroModelSerializer twitterAvroModelSerializer;
+
+    private SingleObjectAvroSerializer singleObjectAvroSerializer;
+
+    private SpecificDatumWriter<TwitterAvroModel> datumWriter;
+
+    private int index;
+
+    @Setup
+    public void setup() throws TwitterException {
+        twitterAvroModels = BenchmarkFixtures.twitterAvroModels();
+
+        Map<String, Object> props = new HashMap<>();
+        props.put("schema.registry.url", "mock://benchmark");
+        kafkaAvroSerializer = new KafkaAvroSerializer(new MockSchemaRegistryClient(), props);
+        // 스키마 등록 비용은 측정에서 제외
+        kafkaAvroSerializer.serialize(TOPIC_NAME, twitterAvroModels[0]);
+
+        twitterAvroModelSerializer = new TwitterAvroModelSerializer(new MockSchemaRegistryClient());
+        twitterAvroModelSerializer.configure(props, false);
+        twitterAvroModelSerializer.serialize(TOPIC_NAME, twitterAvroModels[0]);
+
+        singleObjectAvroSerializer = new SingleObjectAvroSerializer();
+        singleObjectAvroSerializer.configure(props, false);
+        singleObjectAvroSerializer.serialize(TOPIC_NAME, twitterAvroModels[0]);
+
+        datumWriter = new SpecificDatumWriter<>(TwitterAvroModel.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        kafkaAvroSerializer.close();
+        twitterAvroModelSerializer.close();
+        singleObjectAvroSerializer.close();
+    }
+
+    // 현재 value-serializer-class 경로 (Confluent wire format)
+    @Benchmark
+    public byte[] kafkaAvroSerializer() {
+        return kafkaAvroSerializer.serialize(TOPIC_NAME, twitterAvroModels[index++ & MASK]);
+    }
+
+    // 같은 wire format, 스레드별 encoder / 버퍼 재사용
+    @Benchmark
+    public byte[] twitterAvroModelSerializer() {
+        return twitterAvroModelSerializer.serialize(TOPIC_NAME, twitterAvroModels[index++ & MASK]);
+    }
+
+    // registry 없는 single-object encoding (fingerprint 헤더)
+    @Benchmark
+    public byte[] singleObjectAvroSerializer() {
+        return singleObjectAvroSerializer.serialize(TOPIC_NAME, twitterAvroModels[index++ & MASK]);
+    }
+
+    // 헤더 없는 순수 Avro binary body, 비교 기준선
+    @Benchmark
+    public byte[] specificDatumWriter() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        datumWriter.write(twitterAvroModels[index++ & MASK], encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.jh.benchmark;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.TwitterToKafkaServiceConfigData;
+import com.jh.config.TwitterToKafkaServiceConfigData.MockWorkloadProfile;
+import com.jh.generator.MockTweetGenerator;
+import com.jh.generator.MockWorkload;
+import com.jh.transformer.TwitterStatusToAvroTransformer;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+final class BenchmarkFixtures {
+
+    static final int MIN_TWEET_LENGTH = 5;
+
+    static final int MAX_TWEET_LENGTH = 15;
+
+    // 2의 거듭제곱이어야 한다 (index & mask)
+    static final int SAMPLE_SIZE = 1024;
+
+    private BenchmarkFixtures() {
+    }
+
+    static TwitterToKafkaServiceConfigData twitterToKafkaServiceConfigData() {
+        TwitterToKafkaServiceConfigData configData = new TwitterToKafkaServiceConfigData();
+        configData.setTwitterKeywords(Arrays.asList("Java", "Microservices", "Spring", "Kafka", "Elasticsearch"));
+        configData.setEnableMockTweets(true);
+        configData.setMockMinTweetLength(MIN_TWEET_LENGTH);
+        configData.setMockMaxTweetLength(MAX_TWEET_LENGTH);
+        configData.setMockSleepMs(0L);
+        return configData;
+    }
+
+    static TwitterToKafkaServiceConfigData hotUsersConfigData() {
+        MockWorkloadProfile profile = new MockWorkloadProfile();
+        profile.setSeed(42L);
+        profile.setUserPopulation(100_000);
+        profile.setZipfExponent(1.1);
+        profile.setTextLengthDistribution("gaussian");
+        profile.setTextLengthMean(10.0);
+        profile.setTextLengthStdDev(3.0);
+
+        TwitterToKafkaServiceConfigData configData = twitterToKafkaServiceConfigData();
+        configData.setMockWorkloadProfile("hot-users");
+        configData.setMockWorkloadProfiles(Collections.singletonMap("hot-users", profile));
+        return configData;
+    }
+
+    static String[] rawTweets() {
+        MockTweetGenerator mockTweetGenerator = MockWorkload.fromConfig(hotUsersConfigData()).newGenerator(0);
+
+        String[] rawTweets = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            rawTweets[i] = mockTweetGenerator.nextTweet();
+        }
+        return rawTweets;
+    }
+
+    static Status[] statuses() throws TwitterException {
+        String[] rawTweets = rawTweets();
+        Status[] statuses = new Status[rawTweets.length];
+        for (int i = 0; i < rawTweets.length; i++) {
+            statuses[i] = TwitterObjectFactory.createStatus(rawTweets[i]);
+        }
+        return statuses;
+    }
+
+    static TwitterAvroModel[] twitterAvroModels() throws TwitterException {
+        Status[] statuses = statuses();
+        TwitterStatusToAvroTransformer transformer = new TwitterStatusToAvroTransformer();
+        TwitterAvroModel[] models = new TwitterAvroModel[statuses.length];
+        for (int i = 0; i < statuses.length; i++) {
+            models[i] = transformer.getTwitterAvroModelFromStatus(statuses[i]);
+        }
+        return models;
+    }
+
+}
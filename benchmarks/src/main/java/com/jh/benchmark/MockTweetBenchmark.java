@@ -0,0 +1,41 @@
+package com.jh.benchmark;
+
+import com.jh.generator.MockTweetGenerator;
+import com.jh.generator.MockWorkload;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+@State(Scope.Thread)
+public class MockTweetBenchmark {
+
+    private MockTweetGenerator uniformTweetGenerator;
+
+    private MockTweetGenerator hotUsersTweetGenerator;
+
+    @Setup
+    public void setup() {
+        uniformTweetGenerator = MockWorkload
+                .fromConfig(BenchmarkFixtures.twitterToKafkaServiceConfigData())
+                .newGenerator(0);
+        hotUsersTweetGenerator = MockWorkload
+                .fromConfig(BenchmarkFixtures.hotUsersConfigData())
+                .newGenerator(0);
+    }
+
+    @Benchmark
+    public String nextTweetUniform() {
+        return uniformTweetGenerator.nextTweet();
+    }
+
+    @Benchmark
+    public String nextTweetHotUsers() {
+        return hotUsersTweetGenerator.nextTweet();
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.jh.benchmark;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.transformer.TwitterJsonToAvroTransformer;
+import com.jh.transformer.TwitterStatusToAvroTransformer;
+import org.openjdk.jmh.annotations.*;
+import twitter4j.Status;
+import twitter4j.TwitterException;
+import twitter4j.TwitterObjectFactory;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+@State(Scope.Thread)
+public class TwitterStatusBenchmark {
+
+    private static final int MASK = BenchmarkFixtures.SAMPLE_SIZE - 1;
+
+    private String[] rawTweets;
+
+    private Status[] statuses;
+
+    private TwitterStatusToAvroTransformer twitterStatusToAvroTransformer;
+
+    private TwitterJsonToAvroTransformer twitterJsonToAvroTransformer;
+
+    private int index;
+
+    @Setup
+    public void setup() throws TwitterException {
+        rawTweets = BenchmarkFixtures.rawTweets();
+        statuses = BenchmarkFixtures.statuses();
+        twitterStatusToAvroTransformer = new TwitterStatusToAvroTransformer();
+        twitterJsonToAvroTransformer = new TwitterJsonToAvroTransformer();
+    }
+
+    @Benchmark
+    public Status createStatus() throws TwitterException {
+        return TwitterObjectFactory.createStatus(rawTweets[index++ & MASK]);
+    }
+
+    @Benchmark
+    public TwitterAvroModel getTwitterAvroModelFromStatus() {
+        return twitterStatusToAvroTransformer.getTwitterAvroModelFromStatus(statuses[index++ & MASK]);
+    }
+
+    // 현재 레코드당 전체 경로: raw json -> Status -> TwitterAvroModel
+    @Benchmark
+    public TwitterAvroModel rawJsonToAvroModel() throws TwitterException {
+        Status status = TwitterObjectFactory.createStatus(rawTweets[index++ & MASK]);
+        return twitterStatusToAvroTransformer.getTwitterAvroModelFromStatus(status);
+    }
+
+    // streaming fast path: raw json -> TwitterAvroModel
+    @Benchmark
+    public TwitterAvroModel rawJsonToAvroModelStreaming() {
+        return twitterJsonToAvroTransformer.getTwitterAvroModelFromJson(rawTweets[index++ & MASK]);
+    }
+
+}
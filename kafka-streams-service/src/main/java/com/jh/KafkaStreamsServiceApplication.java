@@ -0,0 +1,13 @@
+package com.jh;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class KafkaStreamsServiceApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(KafkaStreamsServiceApplication.class, args);
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.jh.config;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.streams.TrendingTopology;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@EnableKafkaStreams
+@Configuration
+@RequiredArgsConstructor
+public class KafkaStreamsConfig {
+
+    private final KafkaConfigData kafkaConfigData;
+
+    private final KafkaStreamsConfigData kafkaStreamsConfigData;
+
+    private final TrendingTopology trendingTopology;
+
+    @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
+    public KafkaStreamsConfiguration kafkaStreamsConfiguration() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, kafkaStreamsConfigData.getApplicationId());
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfigData.getBootstrapServers());
+        props.put(StreamsConfig.STATE_DIR_CONFIG, kafkaStreamsConfigData.getStateDir());
+        // 다른 인스턴스가 interactive query 를 이 주소로 보낸다
+        props.put(StreamsConfig.APPLICATION_SERVER_CONFIG, kafkaStreamsConfigData.getApplicationServer());
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, kafkaStreamsConfigData.getNumStreamThreads());
+        props.put(StreamsConfig.COMMIT_INTERVAL_MS_CONFIG, kafkaStreamsConfigData.getCommitIntervalMs());
+        props.put(kafkaConfigData.getSchemaRegistryUrlKey(), kafkaConfigData.getSchemaRegistryUrl());
+        return new KafkaStreamsConfiguration(props);
+    }
+
+    @Bean
+    public KStream<Long, TwitterAvroModel> twitterStream(StreamsBuilder streamsBuilder) {
+        return trendingTopology.build(streamsBuilder);
+    }
+
+    @Bean
+    WebClient webClient() {
+        return WebClient.builder().build();
+    }
+
+}
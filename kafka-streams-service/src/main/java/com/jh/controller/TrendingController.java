@@ -0,0 +1,50 @@
+package com.jh.controller;
+
+import com.jh.exception.KafkaStreamsServiceException;
+import com.jh.model.TrendingResponse;
+import com.jh.query.TrendingQueryService;
+import com.jh.query.TrendingType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/trends")
+@RequiredArgsConstructor
+public class TrendingController {
+
+    private final TrendingQueryService trendingQueryService;
+
+    // GET /trends/keywords?k=10, GET /trends/users?k=10
+    @GetMapping("/{type}")
+    public Mono<TrendingResponse> top(@PathVariable String type,
+                                      @RequestParam(defaultValue = "10") int k) {
+        return trendingQueryService.top(TrendingType.fromPath(type), k);
+    }
+
+    // 다른 인스턴스가 이 인스턴스의 partition 만 읽을 때 쓴다
+    @GetMapping("/{type}/local")
+    public TrendingResponse localTop(@PathVariable String type,
+                                     @RequestParam long windowStart,
+                                     @RequestParam(defaultValue = "10") int k) {
+        return trendingQueryService.localTop(TrendingType.fromPath(type), windowStart, k);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public void handleUnknownType() {
+    }
+
+    @ExceptionHandler(KafkaStreamsServiceException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void handleNotRunning() {
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.jh.exception;
+
+public class KafkaStreamsServiceException extends RuntimeException {
+
+    public KafkaStreamsServiceException() {
+        super();
+    }
+
+    public KafkaStreamsServiceException(String message) {
+        super(message);
+    }
+
+    public KafkaStreamsServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
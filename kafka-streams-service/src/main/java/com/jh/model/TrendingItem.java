@@ -0,0 +1,15 @@
+package com.jh.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingItem {
+
+    private String key;
+    private long count;
+
+}
@@ -0,0 +1,21 @@
+package com.jh.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingResponse {
+
+    private String type;
+    private long windowStart;
+    private long windowEnd;
+    private List<TrendingItem> items;
+
+}
@@ -0,0 +1,146 @@
+package com.jh.query;
+
+import com.jh.config.KafkaStreamsConfigData;
+import com.jh.exception.KafkaStreamsServiceException;
+import com.jh.model.TrendingItem;
+import com.jh.model.TrendingResponse;
+import com.jh.streams.TopK;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.StreamsMetadata;
+import org.apache.kafka.streams.query.KeyQuery;
+import org.apache.kafka.streams.query.QueryResult;
+import org.apache.kafka.streams.query.StateQueryRequest;
+import org.apache.kafka.streams.query.StateQueryResult;
+import org.apache.kafka.streams.state.HostInfo;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * top-k store 에 대한 interactive query.
+ * <p>
+ * 지금 시각을 포함하는 window 중 가장 오래된 것(최근 window-size 만큼을 덮는 window)을 읽는다.
+ * 이 인스턴스의 partition 들은 IQv2 로 한 번에 읽고, 같은 store 를 가진 다른 인스턴스에는
+ * local 조회를 보내 합친다. 응답이 없는 인스턴스는 빼고 돌려준다.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrendingQueryService {
+
+    private static final Duration REMOTE_QUERY_TIMEOUT = Duration.ofSeconds(2);
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+
+    private final KafkaStreamsConfigData kafkaStreamsConfigData;
+
+    private final WebClient webClient;
+
+    public Mono<TrendingResponse> top(TrendingType type, int k) {
+        int limit = limit(k);
+        long windowStart = currentWindowStart(System.currentTimeMillis());
+        KafkaStreams kafkaStreams = kafkaStreams();
+        TopK topK = localTopK(kafkaStreams, type, windowStart, limit);
+
+        HostInfo self = HostInfo.buildFromEndpoint(kafkaStreamsConfigData.getApplicationServer());
+        List<HostInfo> remoteHosts = kafkaStreams.streamsMetadataForStore(type.getStoreName()).stream()
+                .map(StreamsMetadata::hostInfo)
+                .filter(hostInfo -> !hostInfo.equals(self))
+                .collect(Collectors.toList());
+
+        return Flux.fromIterable(remoteHosts)
+                .flatMap(hostInfo -> remoteTopK(hostInfo, type, windowStart, limit))
+                .reduce(topK, (merged, remote) -> {
+                    merged.merge(remote, limit);
+                    return merged;
+                })
+                .map(merged -> response(type, windowStart, merged, limit));
+    }
+
+    public TrendingResponse localTop(TrendingType type, long windowStart, int k) {
+        int limit = limit(k);
+        return response(type, windowStart, localTopK(kafkaStreams(), type, windowStart, limit), limit);
+    }
+
+    private TopK localTopK(KafkaStreams kafkaStreams, TrendingType type, long windowStart, int k) {
+        StateQueryRequest<TopK> request = StateQueryRequest.inStore(type.getStoreName())
+                .withQuery(KeyQuery.<Long, TopK>withKey(windowStart));
+        StateQueryResult<TopK> result = kafkaStreams.query(request);
+
+        TopK merged = new TopK();
+        for (QueryResult<TopK> partitionResult : result.getPartitionResults().values()) {
+            if (partitionResult.isSuccess()) {
+                if (partitionResult.getResult() != null) {
+                    merged.merge(partitionResult.getResult(), k);
+                }
+            } else {
+                log.debug("Could not query {}: {}", type.getStoreName(), partitionResult.getFailureMessage());
+            }
+        }
+        return merged;
+    }
+
+    private Mono<TopK> remoteTopK(HostInfo hostInfo, TrendingType type, long windowStart, int k) {
+        return webClient.get()
+                .uri("http://{host}:{port}/trends/{type}/local?windowStart={windowStart}&k={k}",
+                        hostInfo.host(), hostInfo.port(), type.getPath(), windowStart, k)
+                .retrieve()
+                .bodyToMono(TrendingResponse.class)
+                .timeout(REMOTE_QUERY_TIMEOUT)
+                .map(response -> {
+                    TopK topK = new TopK();
+                    for (TrendingItem item : response.getItems()) {
+                        topK.update(item.getKey(), item.getCount(), k);
+                    }
+                    return topK;
+                })
+                .onErrorResume(e -> {
+                    log.warn("Could not query {} on {}: {}", type.getStoreName(), hostInfo, e.toString());
+                    return Mono.empty();
+                });
+    }
+
+    private TrendingResponse response(TrendingType type, long windowStart, TopK topK, int k) {
+        List<TrendingItem> items = new ArrayList<>(k);
+        for (TopK.Entry entry : topK.sorted()) {
+            if (items.size() == k) {
+                break;
+            }
+            items.add(new TrendingItem(entry.getKey(), entry.getCount()));
+        }
+        return TrendingResponse.builder()
+                .type(type.getPath())
+                .windowStart(windowStart)
+                .windowEnd(windowStart + kafkaStreamsConfigData.getWindowSizeMs())
+                .items(items)
+                .build();
+    }
+
+    // now 를 포함하는 hopping window 의 start 는 (now - size, now] 안의 advance 배수다
+    private long currentWindowStart(long now) {
+        long advanceMs = kafkaStreamsConfigData.getWindowAdvanceMs();
+        return (Math.floorDiv(now - kafkaStreamsConfigData.getWindowSizeMs(), advanceMs) + 1) * advanceMs;
+    }
+
+    private int limit(int k) {
+        return Math.max(1, Math.min(k, kafkaStreamsConfigData.getTopK()));
+    }
+
+    private KafkaStreams kafkaStreams() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null || !kafkaStreams.state().isRunningOrRebalancing()) {
+            throw new KafkaStreamsServiceException("Kafka streams is not running");
+        }
+        return kafkaStreams;
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.jh.query;
+
+import com.jh.streams.TrendingTopology;
+
+public enum TrendingType {
+
+    KEYWORDS("keywords", TrendingTopology.KEYWORD_TOP_K_STORE),
+    USERS("users", TrendingTopology.USER_TOP_K_STORE);
+
+    private final String path;
+
+    private final String storeName;
+
+    TrendingType(String path, String storeName) {
+        this.path = path;
+        this.storeName = storeName;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public static TrendingType fromPath(String path) {
+        for (TrendingType type : values()) {
+            if (type.path.equals(path)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown trending type " + path);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.jh.streams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * tweet 본문을 단어 단위로 잘라 설정된 keyword 와 대소문자 구분 없이 맞춘다.
+ * 한 tweet 안에서 같은 keyword 는 한 번만 센다. keyword 가 비어 있으면 min-length 이상인 모든 단어를 센다.
+ */
+public class KeywordExtractor {
+
+    private static final int MIN_TERM_LENGTH = 3;
+
+    // 소문자 -> 설정에 적힌 원래 표기
+    private final Map<String, String> keywords = new HashMap<>();
+
+    public KeywordExtractor(List<String> keywords) {
+        if (keywords != null) {
+            for (String keyword : keywords) {
+                this.keywords.put(keyword.trim().toLowerCase(Locale.ROOT), keyword.trim());
+            }
+        }
+    }
+
+    public List<String> extract(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return Collections.emptyList();
+        }
+        List<String> found = new ArrayList<>(2);
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addTerm(text.subSequence(start, i).toString().toLowerCase(Locale.ROOT), found);
+                start = -1;
+            }
+        }
+        return found;
+    }
+
+    private void addTerm(String term, List<String> found) {
+        String keyword;
+        if (keywords.isEmpty()) {
+            keyword = term.length() >= MIN_TERM_LENGTH ? term : null;
+        } else {
+            keyword = keywords.get(term);
+        }
+        if (keyword != null && !found.contains(keyword)) {
+            found.add(keyword);
+        }
+    }
+
+}
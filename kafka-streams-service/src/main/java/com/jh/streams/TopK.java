@@ -0,0 +1,102 @@
+package com.jh.streams;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * window 하나의 count 상위 K 개. count 는 윈도우 집계 결과라 같은 key 에 대해 늘어나기만 하므로
+ * 새 count 로 덮어쓰고, 자리가 없으면 가장 작은 항목보다 클 때만 바꾼다. K 가 작아 선형 탐색으로 충분하다.
+ */
+public class TopK {
+
+    private static final Comparator<Entry> BY_COUNT_DESC = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int result = Long.compare(e2.count, e1.count);
+            return result != 0 ? result : e1.key.compareTo(e2.key);
+        }
+    };
+
+    private final List<Entry> entries;
+
+    public TopK() {
+        this(new ArrayList<>());
+    }
+
+    TopK(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * 바뀐 것이 있으면 true.
+     */
+    public boolean update(String key, long count, int k) {
+        int minIndex = -1;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.key.equals(key)) {
+                if (entry.count == count) {
+                    return false;
+                }
+                entry.count = count;
+                return true;
+            }
+            if (minIndex < 0 || entry.count < entries.get(minIndex).count) {
+                minIndex = i;
+            }
+        }
+        if (entries.size() < k) {
+            entries.add(new Entry(key, count));
+            return true;
+        }
+        if (minIndex >= 0 && count > entries.get(minIndex).count) {
+            entries.set(minIndex, new Entry(key, count));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 다른 partition 의 TopK 를 합친다. topology 가 keyword / userId 로 repartition 해서 세므로
+     * key 는 한 partition 에만 있어 더하지 않고 그대로 넣는다.
+     */
+    public void merge(TopK other, int k) {
+        for (Entry entry : other.entries) {
+            update(entry.key, entry.count, k);
+        }
+    }
+
+    public List<Entry> sorted() {
+        List<Entry> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, BY_COUNT_DESC);
+        return sorted;
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    public static final class Entry {
+
+        private final String key;
+
+        private long count;
+
+        public Entry(String key, long count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+    }
+
+}
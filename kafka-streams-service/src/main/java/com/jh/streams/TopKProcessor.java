@@ -0,0 +1,80 @@
+package com.jh.streams;
+
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 윈도우 count 갱신을 받아 window start 별 TopK 를 RocksDB store 에 유지한다.
+ * <p>
+ * key 는 partition 단위로 나뉘므로 store 의 TopK 는 그 partition 의 상위 K 다. 조회할 때 partition 들의
+ * TopK 를 합치면 전체 상위 K 가 된다. retention 이 지난 window 는 stream time 기준 punctuation 으로 지운다.
+ */
+public class TopKProcessor<K> implements Processor<Windowed<K>, Long, Void, Void> {
+
+    private final String storeName;
+
+    private final int k;
+
+    private final long retentionMs;
+
+    private final long purgeIntervalMs;
+
+    private KeyValueStore<Long, TopK> store;
+
+    public TopKProcessor(String storeName, int k, long retentionMs, long purgeIntervalMs) {
+        this.storeName = storeName;
+        this.k = k;
+        this.retentionMs = retentionMs;
+        this.purgeIntervalMs = purgeIntervalMs;
+    }
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        store = context.getStateStore(storeName);
+        context.schedule(Duration.ofMillis(purgeIntervalMs), PunctuationType.STREAM_TIME, this::purge);
+    }
+
+    @Override
+    public void process(Record<Windowed<K>, Long> record) {
+        if (record.key() == null || record.value() == null) {
+            return;
+        }
+        long windowStart = record.key().window().start();
+        TopK topK = store.get(windowStart);
+        if (topK == null) {
+            topK = new TopK();
+        }
+        if (topK.update(String.valueOf(record.key().key()), record.value(), k)) {
+            store.put(windowStart, topK);
+        }
+    }
+
+    // window start 는 음수가 아니므로 Long serde 의 바이트 순서가 숫자 순서와 같다
+    private void purge(long streamTime) {
+        long expiredBefore = streamTime - retentionMs;
+        if (expiredBefore <= 0) {
+            return;
+        }
+        List<Long> expired = new ArrayList<>();
+        try (KeyValueIterator<Long, TopK> iterator = store.range(0L, expiredBefore - 1)) {
+            while (iterator.hasNext()) {
+                KeyValue<Long, TopK> entry = iterator.next();
+                expired.add(entry.key);
+            }
+        }
+        for (Long windowStart : expired) {
+            store.delete(windowStart);
+        }
+    }
+
+}
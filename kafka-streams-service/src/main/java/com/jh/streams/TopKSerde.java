@@ -0,0 +1,58 @@
+package com.jh.streams;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TopK 를 [개수][key 길이][key utf-8][count] ... 로 쓴다. state store 와 changelog 에만 쓰인다.
+ */
+public class TopKSerde implements Serde<TopK> {
+
+    @Override
+    public Serializer<TopK> serializer() {
+        return (topic, topK) -> {
+            if (topK == null) {
+                return null;
+            }
+            List<TopK.Entry> entries = topK.entries();
+            List<byte[]> keys = new ArrayList<>(entries.size());
+            int size = Integer.BYTES;
+            for (TopK.Entry entry : entries) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                keys.add(key);
+                size += Integer.BYTES + key.length + Long.BYTES;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size).putInt(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                byte[] key = keys.get(i);
+                buffer.putInt(key.length).put(key).putLong(entries.get(i).getCount());
+            }
+            return buffer.array();
+        };
+    }
+
+    @Override
+    public Deserializer<TopK> deserializer() {
+        return (topic, data) -> {
+            if (data == null) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            int count = buffer.getInt();
+            List<TopK.Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                entries.add(new TopK.Entry(new String(key, StandardCharsets.UTF_8), buffer.getLong()));
+            }
+            return new TopK(entries);
+        };
+    }
+
+}
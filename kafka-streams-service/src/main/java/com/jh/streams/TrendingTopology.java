@@ -0,0 +1,90 @@
+package com.jh.streams;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.KafkaConfigData;
+import com.jh.config.KafkaStreamsConfigData;
+import io.confluent.kafka.streams.serdes.avro.SpecificAvroSerde;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * twitter-topic 을 읽어 keyword 별, 사용자별 hopping window count 를 RocksDB window store 에 쌓고,
+ * 그 갱신으로 window start 별 상위 K 를 RocksDB key-value store 에 유지한다.
+ * <p>
+ * 조회는 window store 를 훑지 않고 top-k store 에서 window start 하나를 읽으므로 partition 수 x K 만 본다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrendingTopology {
+
+    public static final String KEYWORD_COUNT_STORE = "keyword-counts";
+    public static final String USER_COUNT_STORE = "user-counts";
+    public static final String KEYWORD_TOP_K_STORE = "keyword-top-k";
+    public static final String USER_TOP_K_STORE = "user-top-k";
+
+    private final KafkaConfigData kafkaConfigData;
+
+    private final KafkaStreamsConfigData kafkaStreamsConfigData;
+
+    public KStream<Long, TwitterAvroModel> build(StreamsBuilder streamsBuilder) {
+        SpecificAvroSerde<TwitterAvroModel> twitterAvroModelSerde = new SpecificAvroSerde<>();
+        twitterAvroModelSerde.configure(Collections.singletonMap(
+                kafkaConfigData.getSchemaRegistryUrlKey(), kafkaConfigData.getSchemaRegistryUrl()), false);
+
+        TimeWindows windows = TimeWindows
+                .ofSizeAndGrace(Duration.ofMillis(kafkaStreamsConfigData.getWindowSizeMs()),
+                        Duration.ofMillis(kafkaStreamsConfigData.getWindowGraceMs()))
+                .advanceBy(Duration.ofMillis(kafkaStreamsConfigData.getWindowAdvanceMs()));
+        long retentionMs = kafkaStreamsConfigData.getWindowSizeMs() + kafkaStreamsConfigData.getWindowGraceMs();
+        int k = kafkaStreamsConfigData.getTopK();
+        KeywordExtractor keywordExtractor = new KeywordExtractor(kafkaStreamsConfigData.getKeywords());
+
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(KEYWORD_TOP_K_STORE), Serdes.Long(), new TopKSerde()));
+        streamsBuilder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(USER_TOP_K_STORE), Serdes.Long(), new TopKSerde()));
+
+        KStream<Long, TwitterAvroModel> tweets = streamsBuilder.stream(kafkaStreamsConfigData.getInputTopicName(),
+                Consumed.with(Serdes.Long(), twitterAvroModelSerde));
+
+        // keyword 로 다시 나눠 같은 keyword 는 한 task 에서 센다
+        tweets.flatMapValues(tweet -> keywordExtractor.extract(tweet.getText()))
+                .groupBy((userId, keyword) -> keyword, Grouped.with("keywords", Serdes.String(), Serdes.String()))
+                .windowedBy(windows)
+                .count(Materialized.<String, Long, WindowStore<Bytes, byte[]>>as(KEYWORD_COUNT_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(Serdes.Long()))
+                .toStream()
+                .process(() -> new TopKProcessor<String>(KEYWORD_TOP_K_STORE, k, retentionMs,
+                        kafkaStreamsConfigData.getWindowAdvanceMs()), KEYWORD_TOP_K_STORE);
+
+        // hot key partitioner 가 켜져 있으면 한 사용자의 tweet 이 여러 partition 에 있으므로
+        // userId 로 다시 나눠 같은 사용자는 한 task 에서 센다. tweet 대신 userId 만 repartition topic 에 쓴다
+        tweets.map((userId, tweet) -> KeyValue.pair(tweet.getUserId(), tweet.getUserId()))
+                .groupByKey(Grouped.with("users", Serdes.Long(), Serdes.Long()))
+                .windowedBy(windows)
+                .count(Materialized.<Long, Long, WindowStore<Bytes, byte[]>>as(USER_COUNT_STORE)
+                        .withKeySerde(Serdes.Long())
+                        .withValueSerde(Serdes.Long()))
+                .toStream()
+                .process(() -> new TopKProcessor<Long>(USER_TOP_K_STORE, k, retentionMs,
+                        kafkaStreamsConfigData.getWindowAdvanceMs()), USER_TOP_K_STORE);
+
+        return tweets;
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.jh.audit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * 토픽 생성, partition 증가처럼 클러스터를 바꾸는 관리 작업을 한 줄짜리 이벤트로 남긴다.
+ * 별도 logger(kafka-admin-audit)로 쓰므로 logback 설정에서 파일 / 수집기로 따로 보낼 수 있다.
+ * <p>
+ * 형식: ts=... action=... topic=... key=value ...
+ */
+@Component
+public class AdminAuditLog {
+
+    private static final Logger AUDIT_LOG = LoggerFactory.getLogger("kafka-admin-audit");
+
+    public void record(String action, String topic, Map<String, ?> details) {
+        StringBuilder sb = new StringBuilder()
+                .append("ts=").append(Instant.now())
+                .append(" action=").append(action)
+                .append(" topic=").append(topic);
+        for (Map.Entry<String, ?> entry : details.entrySet()) {
+            sb.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        AUDIT_LOG.info(sb.toString());
+    }
+
+}
@@ -1,21 +1,27 @@
 package com.jh.client;
 
+import com.jh.audit.AdminAuditLog;
 import com.jh.config.KafkaConfigData;
 import com.jh.config.RetryConfigData;
 import com.jh.exception.KafkaClientException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.*;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
-import org.springframework.retry.RetryContext;
-import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
-import java.util.Collection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -29,139 +35,172 @@ public class KafkaAdminClient {
 
     private final AdminClient adminClient;
 
-    private final RetryTemplate retryTemplate;
-
     private final WebClient webClient;
 
-    // retry
+    private final AdminAuditLog adminAuditLog;
+
     public void createTopics() {
-        CreateTopicsResult createTopicsResult;
         try {
-            createTopicsResult = retryTemplate.execute(this::doCreateTopics); // RetryTemplate 사용
-            log.info("create topics result: {}", createTopicsResult.values());
-        } catch (Throwable t) {
-            throw new KafkaClientException("Reached max number of retry for creating kafka topic!", t);
+            createTopicsAsync().then(awaitTopicsReady()).block();
+        } catch (RuntimeException e) {
+            throw new KafkaClientException("Reached max number of retry for creating kafka topic!", e);
+        }
+    }
+
+    public void checkSchemaRegistry() {
+        try {
+            awaitSchemaRegistry().block();
+        } catch (RuntimeException e) {
+            throw new KafkaClientException("Reached max number of retry for checking schema registry!", e);
         }
+    }
 
-        checkTopicsCreated();
+    /**
+     * 설정된 토픽을 생성한다. 이미 있는 토픽은 성공으로 본다.
+     * 토픽마다 결과를 따로 보므로 일부가 이미 있어도 나머지는 생성된다.
+     */
+    public Mono<Void> createTopicsAsync() {
+        return Mono.defer(() -> {
+                    List<String> topicNames = kafkaConfigData.getTopicNamesToCreate();
+                    log.info("Create {} topics {}", topicNames.size(), topicNames);
+                    List<NewTopic> newTopics = newTopics(topicNames);
+                    Map<String, NewTopic> newTopicsByName = new HashMap<>();
+                    newTopics.forEach(newTopic -> newTopicsByName.put(newTopic.name(), newTopic));
+
+                    CreateTopicsResult createTopicsResult = adminClient.createTopics(newTopics);
+                    List<Mono<Void>> results = new ArrayList<>();
+                    createTopicsResult.values().forEach((topicName, future) -> results.add(
+                            Mono.fromCompletionStage(future.toCompletionStage())
+                                    .doOnSuccess(ignored -> auditTopicCreated(newTopicsByName.get(topicName)))
+                                    .onErrorResume(e -> isTopicExists(e), e -> {
+                                        log.debug("Topic {} already exists", topicName);
+                                        return Mono.empty();
+                                    })));
+                    return Mono.when(results);
+                })
+                .retryWhen(retrySpec("creating kafka topics"));
     }
 
     /**
      * Kafka는 토픽 생성 요청을 비동기적으로 처리하기 때문에,
-     * createTopics() 호출 직후에는 토픽이 아직 존재하지 않을 수 있다.
+     * createTopics 직후에는 토픽이 아직 보이지 않거나 partition leader 가 없을 수 있다.
      * <p>
-     * 이 메서드는 설정된 토픽들이 실제로 Kafka 클러스터에 생성될 때까지
-     * 폴링 방식으로 확인하고, 생성이 완료되지 않으면 재시도한다.
-     * <p>
-     * 재시도는 설정된 최대 횟수까지 수행되며,
-     * 각 재시도 사이에는 점점 증가하는 대기 시간(지수 백오프)을 둔다.
+     * 클러스터 전체 토픽 목록을 읽는 대신 우리 토픽만 describe 해서
+     * 모든 partition 에 leader 가 뽑혔을 때 완료한다. 아니면 지수 백오프로 다시 확인한다.
      */
-    public void checkTopicsCreated() {
-        Collection<TopicListing> topics = getTopics();
-        int retryCount = 1;
-        Integer maxRetry = retryConfigData.getMaxAttempts();
-        int multiplier = retryConfigData.getMultiplier().intValue();
-        Long sleepTimeMs = retryConfigData.getSleepTimeMs();
-
-        for (String topic : kafkaConfigData.getTopicNamesToCreate()) {
-            while (!isTopicCreate(topics, topic)) {
-                checkMaxRetry(retryCount++, maxRetry);
-                sleep(sleepTimeMs);
-                sleepTimeMs *= multiplier;
-                topics = getTopics();
-            }
-        }
+    public Mono<Void> awaitTopicsReady() {
+        return Mono.defer(() -> {
+                    List<String> topicNames = trimmed(kafkaConfigData.getTopicNamesToCreate());
+                    return Mono.fromCompletionStage(
+                            adminClient.describeTopics(topicNames).allTopicNames().toCompletionStage());
+                })
+                .flatMap(descriptions -> {
+                    for (TopicDescription description : descriptions.values()) {
+                        for (TopicPartitionInfo partition : description.partitions()) {
+                            if (partition.leader() == null || partition.leader().isEmpty()) {
+                                return Mono.<Void>error(new KafkaClientException(
+                                        "Partition " + partition.partition() + " of topic " + description.name()
+                                                + " has no leader yet"));
+                            }
+                        }
+                    }
+                    log.info("Kafka topics {} are ready", descriptions.keySet());
+                    return Mono.<Void>empty();
+                })
+                .retryWhen(retrySpec("reading kafka topics"));
     }
 
-    // 수동 retry
-    public void checkSchemaRegistry() {
-        int retryCount = 1;
-        Integer maxRetry = retryConfigData.getMaxAttempts();
-        int multiplier = retryConfigData.getMultiplier().intValue();
-        Long sleepTimeMs = retryConfigData.getSleepTimeMs();
-
-        while (!getSchemaRegistryStatus().is2xxSuccessful()) {
-            checkMaxRetry(retryCount++, maxRetry);
-            sleep(sleepTimeMs);
-            sleepTimeMs *= multiplier;
-        }
+    public Mono<Void> awaitSchemaRegistry() {
+        return webClient
+                .method(HttpMethod.GET)
+                .uri(kafkaConfigData.getSchemaRegistryUrl())
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(retryConfigData.getMaxIntervalMs()))
+                .doOnNext(entity -> log.info("Schema registry is up with status {}", entity.getStatusCode()))
+                .then()
+                .retryWhen(retrySpec("checking schema registry"));
     }
 
-    // reactive
-    private HttpStatus getSchemaRegistryStatus() {
-        try {
-            return webClient
-                    .method(HttpMethod.GET)
-                    .uri(kafkaConfigData.getSchemaRegistryUrl())
-                    .retrieve()
-                    .toBodilessEntity()
-                    .map(entity -> HttpStatus.valueOf(entity.getStatusCode().value()))
-                    .block();
-        } catch (Exception e) {
-            return HttpStatus.SERVICE_UNAVAILABLE;
-        }
+    // RetryTemplate 의 ExponentialBackOffPolicy 와 같게 initial-interval-ms 에서 multiplier 배씩 늘리고
+    // max-interval-ms 에서 멈춘다. max-attempts 번 시도해도 실패하면 마지막 예외를 그대로 낸다
+    private Retry retrySpec(String operation) {
+        long maxRetries = retryConfigData.getMaxAttempts() - 1L;
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            long retry = signal.totalRetries();
+            if (retry >= maxRetries) {
+                return Mono.error(signal.failure());
+            }
+            log.info("Retrying {}, attempt {}: {}", operation, retry + 2, signal.failure().toString());
+            return Mono.delay(backOff(retry));
+        }));
     }
 
-    private boolean isTopicCreate(Collection<TopicListing> topics, String topicName) {
-        if (topics == null) {
-            return false;
-        }
-        return topics.stream().anyMatch(topic -> topic.name().equals(topicName));
+    private Duration backOff(long retry) {
+        double intervalMs = retryConfigData.getInitialIntervalMs() * Math.pow(retryConfigData.getMultiplier(), retry);
+        return Duration.ofMillis((long) Math.min(intervalMs, retryConfigData.getMaxIntervalMs()));
     }
 
-    private void checkMaxRetry(Integer retry, Integer maxRetry) {
-        if (retry > maxRetry) {
-            throw new KafkaClientException("Reached max number of retry for reading kafka topics!");
-        }
+    private List<NewTopic> newTopics(List<String> topicNames) {
+        return trimmed(topicNames).stream().map(topic -> new NewTopic(
+                topic,
+                kafkaConfigData.getNumOfPartitions(),
+                kafkaConfigData.getReplicationFactor()
+        ).configs(topicConfigs(topic))).collect(Collectors.toList());
     }
 
-    private void sleep(Long sleepTimeMs) {
-        try {
-            Thread.sleep(sleepTimeMs);
-        } catch (InterruptedException e) {
-            throw new KafkaClientException("Error while sleeping for waiting new created topics!");
+    // 토픽별 프로파일, 없으면 기본 프로파일의 설정. 프로파일이 없으면 broker 기본값을 쓴다
+    private Map<String, String> topicConfigs(String topicName) {
+        String profileName = kafkaConfigData.getTopicConfigProfileByTopic().get(topicName);
+        if (profileName == null) {
+            profileName = kafkaConfigData.getTopicConfigProfile();
+        }
+        Map<String, String> configs = new LinkedHashMap<>();
+        if (profileName == null) {
+            return configs;
         }
+        KafkaConfigData.TopicConfigProfile profile = kafkaConfigData.getTopicConfigProfiles().get(profileName);
+        if (profile == null) {
+            throw new KafkaClientException("Unknown topic config profile " + profileName + " for topic " + topicName);
+        }
+        putIfNotNull(configs, TopicConfig.SEGMENT_BYTES_CONFIG, profile.getSegmentBytes());
+        putIfNotNull(configs, TopicConfig.MIN_IN_SYNC_REPLICAS_CONFIG, profile.getMinInsyncReplicas());
+        putIfNotNull(configs, TopicConfig.COMPRESSION_TYPE_CONFIG, profile.getCompressionType());
+        putIfNotNull(configs, TopicConfig.RETENTION_MS_CONFIG, profile.getRetentionMs());
+        configs.putAll(profile.getConfigs());
+        return configs;
     }
 
-    private CreateTopicsResult doCreateTopics(RetryContext retryContext) {
-        List<String> topicNames = kafkaConfigData.getTopicNamesToCreate();
-        log.info("Create {} topic, attempt {}", topicNames.size(), retryContext.getRetryCount());
-
-        List<NewTopic> kafkaTopics = topicNames.stream().map(topic -> new NewTopic(
-                topic.trim(),
-                kafkaConfigData.getNumOfPartitions(),
-                kafkaConfigData.getReplicationFactor()
-        )).collect(Collectors.toList());
-
-        return adminClient.createTopics(kafkaTopics);
+    private void auditTopicCreated(NewTopic newTopic) {
+        if (newTopic == null) {
+            return;
+        }
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("partitions", newTopic.numPartitions());
+        details.put("replicationFactor", newTopic.replicationFactor());
+        details.put("configs", newTopic.configs());
+        adminAuditLog.record("CREATE_TOPIC", newTopic.name(), details);
     }
 
-    // retry
-    private Collection<TopicListing> getTopics() {
-        Collection<TopicListing> topics;
-
-        try {
-            topics = retryTemplate.execute(this::doGetTopics);
-        } catch (Throwable t) {
-            throw new KafkaClientException("Reached max number of retry fro creating kafka topic!", t);
+    private static void putIfNotNull(Map<String, String> configs, String key, Object value) {
+        if (value != null) {
+            configs.put(key, value.toString());
         }
-
-        return topics;
     }
 
-    private Collection<TopicListing> doGetTopics(RetryContext retryContext) throws ExecutionException, InterruptedException {
-        log.info("Reading kafka topic {}, attempt {}",
-                kafkaConfigData.getTopicNamesToCreate().toArray(), retryContext.getRetryCount());
-
-        Collection<TopicListing> topics = adminClient.listTopics().listings().get();
+    private static List<String> trimmed(List<String> topicNames) {
+        return topicNames.stream().map(String::trim).collect(Collectors.toList());
+    }
 
-        if (topics != null) {
-            topics.forEach(topic -> {
-                log.debug("Topic with name {}", topic.name());
-            });
+    private static boolean isTopicExists(Throwable e) {
+        Throwable cause = e;
+        while (cause != null) {
+            if (cause instanceof TopicExistsException) {
+                return true;
+            }
+            cause = cause.getCause();
         }
-
-        return topics;
+        return false;
     }
 
 }
@@ -0,0 +1,192 @@
+package com.jh.scaler;
+
+import com.jh.audit.AdminAuditLog;
+import com.jh.config.KafkaConfigData;
+import com.jh.config.PartitionAutoScalerConfigData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * 토픽의 partition 별 produce rate 를 주기적으로 재서, partition 당 평균 rate 가
+ * max-messages-per-second-per-partition 을 sustained-intervals 번 연속 넘으면 partition 수를 늘린다.
+ * <p>
+ * rate 는 주기마다 읽은 latest offset 의 차이로 구한다. 늘릴 개수는 늘린 뒤 partition 당 rate 가
+ * 기준의 target-utilization 이 되도록 정하고 max-partitions 에서 멈춘다.
+ * partition 을 늘리면 key 의 partition 이 바뀌어 같은 key 의 순서가 경계에서 섞일 수 있으므로
+ * 모든 변경을 AdminAuditLog 에 남긴다. partition 수는 줄일 수 없어 늘리기만 한다.
+ */
+@Component
+@ConditionalOnProperty(name = "partition-auto-scaler-config.enable", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionAutoScaler {
+
+    private final PartitionAutoScalerConfigData partitionAutoScalerConfigData;
+
+    private final KafkaConfigData kafkaConfigData;
+
+    private final AdminClient adminClient;
+
+    private final AdminAuditLog adminAuditLog;
+
+    // scaler 스레드에서만 읽고 쓴다
+    private final Map<String, TopicRate> topicRates = new HashMap<>();
+
+    private ScheduledExecutorService scalerExecutor;
+
+    @PostConstruct
+    public void init() {
+        long intervalMs = partitionAutoScalerConfigData.getIntervalMs();
+        scalerExecutor = Executors.newSingleThreadScheduledExecutor();
+        scalerExecutor.scheduleWithFixedDelay(this::reconcile, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Partition auto scaler started, threshold {} msgs/sec per partition for {} intervals of {} ms",
+                partitionAutoScalerConfigData.getMaxMessagesPerSecondPerPartition(),
+                partitionAutoScalerConfigData.getSustainedIntervals(), intervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scalerExecutor != null) {
+            scalerExecutor.shutdownNow();
+        }
+    }
+
+    private void reconcile() {
+        try {
+            long timeoutMs = partitionAutoScalerConfigData.getIntervalMs();
+            List<String> topicNames = kafkaConfigData.getTopicNamesToCreate().stream()
+                    .map(String::trim).collect(Collectors.toList());
+            Map<String, TopicDescription> descriptions = adminClient.describeTopics(topicNames)
+                    .allTopicNames().get(timeoutMs, TimeUnit.MILLISECONDS);
+
+            Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+            for (TopicDescription description : descriptions.values()) {
+                for (TopicPartitionInfo partition : description.partitions()) {
+                    latest.put(new TopicPartition(description.name(), partition.partition()), OffsetSpec.latest());
+                }
+            }
+            Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> offsets =
+                    adminClient.listOffsets(latest).all().get(timeoutMs, TimeUnit.MILLISECONDS);
+            long nowNanos = System.nanoTime();
+
+            for (TopicDescription description : descriptions.values()) {
+                long[] endOffsets = new long[description.partitions().size()];
+                for (TopicPartitionInfo partition : description.partitions()) {
+                    endOffsets[partition.partition()] =
+                            offsets.get(new TopicPartition(description.name(), partition.partition())).offset();
+                }
+                reconcile(description.name(), endOffsets, nowNanos);
+            }
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("Could not read partition offsets for auto scaling: {}", e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("Error reconciling partition counts", e);
+        }
+    }
+
+    private void reconcile(String topicName, long[] endOffsets, long nowNanos) throws InterruptedException {
+        TopicRate topicRate = topicRates.get(topicName);
+        // 처음 보거나 밖에서 partition 수가 바뀐 토픽은 기준점만 잡는다
+        if (topicRate == null || topicRate.endOffsets.length != endOffsets.length) {
+            topicRates.put(topicName, new TopicRate(endOffsets, nowNanos));
+            return;
+        }
+
+        double elapsedSeconds = (nowNanos - topicRate.nanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        double totalRate = 0;
+        double maxPartitionRate = 0;
+        for (int i = 0; i < endOffsets.length; i++) {
+            double rate = Math.max(0, endOffsets[i] - topicRate.endOffsets[i]) / elapsedSeconds;
+            totalRate += rate;
+            maxPartitionRate = Math.max(maxPartitionRate, rate);
+        }
+        double averageRate = totalRate / endOffsets.length;
+        double threshold = partitionAutoScalerConfigData.getMaxMessagesPerSecondPerPartition();
+
+        topicRate.endOffsets = endOffsets;
+        topicRate.nanos = nowNanos;
+        topicRate.sustainedIntervals = averageRate > threshold ? topicRate.sustainedIntervals + 1 : 0;
+        log.debug("Topic {} produce rate {} msgs/sec over {} partitions, average {}, max {}, sustained {}",
+                topicName, String.format("%.1f", totalRate), endOffsets.length, String.format("%.1f", averageRate),
+                String.format("%.1f", maxPartitionRate), topicRate.sustainedIntervals);
+
+        if (topicRate.sustainedIntervals < partitionAutoScalerConfigData.getSustainedIntervals()) {
+            return;
+        }
+        topicRate.sustainedIntervals = 0;
+
+        int currentPartitions = endOffsets.length;
+        int targetPartitions = Math.min(partitionAutoScalerConfigData.getMaxPartitions(),
+                (int) Math.ceil(totalRate / (threshold * partitionAutoScalerConfigData.getTargetUtilization())));
+        if (targetPartitions <= currentPartitions) {
+            log.warn("Topic {} is above {} msgs/sec per partition but already has {} partitions (max {})",
+                    topicName, threshold, currentPartitions, partitionAutoScalerConfigData.getMaxPartitions());
+            return;
+        }
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("fromPartitions", currentPartitions);
+        details.put("toPartitions", targetPartitions);
+        details.put("totalMsgsPerSec", String.format("%.1f", totalRate));
+        details.put("averageMsgsPerSecPerPartition", String.format("%.1f", averageRate));
+        details.put("maxMsgsPerSecPerPartition", String.format("%.1f", maxPartitionRate));
+        details.put("thresholdMsgsPerSecPerPartition", threshold);
+        details.put("sustainedIntervals", partitionAutoScalerConfigData.getSustainedIntervals());
+        details.put("keyMappingChanged", true);
+        try {
+            adminClient.createPartitions(Collections.singletonMap(topicName, NewPartitions.increaseTo(targetPartitions)))
+                    .all().get(partitionAutoScalerConfigData.getIntervalMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            details.put("error", e.toString());
+            adminAuditLog.record("INCREASE_PARTITIONS_FAILED", topicName, details);
+            log.error("Could not increase partitions of topic {} to {}", topicName, targetPartitions, e);
+            return;
+        }
+        adminAuditLog.record("INCREASE_PARTITIONS", topicName, details);
+        log.warn("Increased partitions of topic {} from {} to {}. Keys are remapped to new partitions from now on",
+                topicName, currentPartitions, targetPartitions);
+        // 새 partition 수로 기준점을 다시 잡는다
+        topicRates.remove(topicName);
+    }
+
+    private static final class TopicRate {
+
+        private long[] endOffsets;
+
+        private long nanos;
+
+        private int sustainedIntervals;
+
+        private TopicRate(long[] endOffsets, long nanos) {
+            this.endOffsets = endOffsets;
+            this.nanos = nanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.jh.config;
+
+import com.jh.deserializer.SingleObjectAvroDeserializer;
+import com.jh.parallel.KeyOrderedParallelProcessor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 기본은 poll 한 번의 레코드를 통째로 받는 batch listener 이다.
+ * offset 은 listener 가 Acknowledgment 를 호출하면 그 poll 전체를 한 번에 비동기로 commit 한다.
+ * parallel-consumer-config 가 켜져 있으면 KeyOrderedParallelProcessor 가 대신 commit 한다.
+ * 서비스가 CommonErrorHandler bean 을 두면 기본 DefaultErrorHandler 대신 그것을 쓴다.
+ */
+@EnableKafka
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaConsumerConfig <K extends Serializable, V extends SpecificRecordBase> {
+
+    private final KafkaConfigData kafkaConfigData;
+
+    private final KafkaConsumerConfigData kafkaConsumerConfigData;
+
+    private final ParallelConsumerConfigData parallelConsumerConfigData;
+
+    private final ObjectProvider<CommonErrorHandler> commonErrorHandlerProvider;
+
+    @Bean
+    public Map<String, Object> consumerConfigs() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfigData.getBootstrapServers());
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, kafkaConsumerConfigData.getKeyDeserializer());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, kafkaConsumerConfigData.getValueDeserializer());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, kafkaConsumerConfigData.getConsumerGroupId());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, kafkaConsumerConfigData.getAutoOffsetReset());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(kafkaConfigData.getSchemaRegistryUrlKey(), kafkaConfigData.getSchemaRegistryUrl());
+        props.put(kafkaConsumerConfigData.getSpecificAvroReaderKey(), kafkaConsumerConfigData.getSpecificAvroReader());
+        props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, kafkaConsumerConfigData.getSessionTimeoutMs());
+        props.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, kafkaConsumerConfigData.getHeartbeatIntervalMs());
+        props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, kafkaConsumerConfigData.getMaxPollIntervalMs());
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, kafkaConsumerConfigData.getMaxPollRecords());
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, kafkaConsumerConfigData.getFetchMinBytes());
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, kafkaConsumerConfigData.getFetchMaxWaitMs());
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG,
+                kafkaConsumerConfigData.getMaxPartitionFetchBytesDefault() *
+                        kafkaConsumerConfigData.getMaxPartitionFetchBytesBoostFactor());
+
+        // producer 의 single-object 모드와 짝을 맞춘다
+        if (KafkaConfigData.WIRE_FORMAT_SINGLE_OBJECT.equals(kafkaConfigData.getWireFormat())) {
+            props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, SingleObjectAvroDeserializer.class.getName());
+            props.remove(kafkaConfigData.getSchemaRegistryUrlKey());
+        }
+
+        return props;
+    }
+
+    @Bean
+    public ConsumerFactory<K, V> consumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(consumerConfigs());
+    }
+
+    @Bean
+    public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<K, V>> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<K, V> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(kafkaConsumerConfigData.getBatchListener());
+        factory.setConcurrency(concurrency());
+        factory.setAutoStartup(kafkaConsumerConfigData.getAutoStartup());
+        CommonErrorHandler commonErrorHandler = commonErrorHandlerProvider.getIfAvailable();
+        if (commonErrorHandler != null) {
+            factory.setCommonErrorHandler(commonErrorHandler);
+        }
+
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setPollTimeout(kafkaConsumerConfigData.getPollTimeoutMs());
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setSyncCommits(false);
+        containerProperties.setCommitCallback((offsets, exception) -> {
+            if (exception != null) {
+                // 다음 poll 의 commit 이 더 큰 offset 으로 덮으므로 다시 시도하지 않는다
+                log.warn("Async offset commit failed for {}", offsets.keySet(), exception);
+            }
+        });
+        // parallel processor 가 commit 하므로 partition 을 뺏길 때 처리 중인 레코드를 정리하게 한다
+        if (Boolean.TRUE.equals(parallelConsumerConfigData.getEnable())) {
+            containerProperties.setConsumerRebalanceListener(keyOrderedParallelProcessor());
+        }
+        return factory;
+    }
+
+    // 한 partition 의 레코드를 key 별 순서를 지키며 worker-threads 개 스레드로 나눠 처리한다
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "parallel-consumer-config.enable", havingValue = "true")
+    public KeyOrderedParallelProcessor<K, V> keyOrderedParallelProcessor() {
+        return new KeyOrderedParallelProcessor<>(parallelConsumerConfigData.getWorkerThreads(),
+                parallelConsumerConfigData.getMaxInFlightRecords(),
+                parallelConsumerConfigData.getCommitWaitMs(),
+                parallelConsumerConfigData.getDrainTimeoutMs(),
+                parallelConsumerConfigData.getReorderTimeoutMs() != null
+                        ? parallelConsumerConfigData.getReorderTimeoutMs() : 0L);
+    }
+
+    // partition 보다 많은 consumer 스레드는 할당받을 partition 이 없어 놀기만 한다
+    private int concurrency() {
+        int concurrency = kafkaConsumerConfigData.getConcurrencyLevel();
+        Integer numOfPartitions = kafkaConfigData.getNumOfPartitions();
+        if (numOfPartitions != null && concurrency > numOfPartitions) {
+            log.warn("Consumer concurrency {} is more than the {} partitions, using {}",
+                    concurrency, numOfPartitions, numOfPartitions);
+            return numOfPartitions;
+        }
+        return concurrency;
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.jh.deserializer;
+
+import com.jh.avro.store.LocalAvroSchemaStore;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SingleObjectAvroSerializer 가 쓴 Avro single-object encoding 을 읽는 Deserializer.
+ * <p>
+ * 헤더의 fingerprint 로 로컬 스키마 저장소에서 writer 스키마를 찾고, 같은 이름의 생성 클래스로 읽는다.
+ * reader 는 fingerprint 별로, BinaryDecoder 는 스레드별로 재사용한다.
+ */
+public class SingleObjectAvroDeserializer implements Deserializer<SpecificRecord> {
+
+    private static final int HEADER_LENGTH = 10;
+
+    private static final ThreadLocal<BinaryDecoder> DECODER = new ThreadLocal<>();
+
+    private final Map<Long, SpecificDatumReader<SpecificRecord>> readersByFingerprint = new ConcurrentHashMap<>();
+
+    private LocalAvroSchemaStore schemaStore;
+
+    public SingleObjectAvroDeserializer() {
+    }
+
+    public SingleObjectAvroDeserializer(LocalAvroSchemaStore schemaStore) {
+        this.schemaStore = schemaStore;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (schemaStore == null) {
+            schemaStore = LocalAvroSchemaStore.fromClasspath();
+        }
+    }
+
+    @Override
+    public SpecificRecord deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length < HEADER_LENGTH || data[0] != (byte) 0xC3 || data[1] != (byte) 0x01) {
+            throw new SerializationException("Not an avro single-object encoded record in topic " + topic);
+        }
+
+        long fingerprint = readLongLittleEndian(data, 2);
+        SpecificDatumReader<SpecificRecord> datumReader = readersByFingerprint.get(fingerprint);
+        if (datumReader == null) {
+            datumReader = readersByFingerprint.computeIfAbsent(fingerprint, this::createDatumReader);
+        }
+
+        try {
+            BinaryDecoder decoder = DecoderFactory.get()
+                    .binaryDecoder(data, HEADER_LENGTH, data.length - HEADER_LENGTH, DECODER.get());
+            DECODER.set(decoder);
+            return datumReader.read(null, decoder);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Error deserializing avro record for topic " + topic, e);
+        }
+    }
+
+    private SpecificDatumReader<SpecificRecord> createDatumReader(long fingerprint) {
+        if (schemaStore == null) {
+            throw new SerializationException("SingleObjectAvroDeserializer is not configured");
+        }
+        Schema writerSchema = schemaStore.findByFingerprint(fingerprint);
+        if (writerSchema == null) {
+            throw new SerializationException("Schema with fingerprint " + fingerprint
+                    + " is not in the local schema store");
+        }
+        Class<?> recordClass = SpecificData.get().getClass(writerSchema);
+        Schema readerSchema = recordClass == null ? writerSchema : SpecificData.get().getSchema(recordClass);
+        return new SpecificDatumReader<>(writerSchema, readerSchema);
+    }
+
+    private static long readLongLittleEndian(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xFFL);
+        }
+        return value;
+    }
+
+}
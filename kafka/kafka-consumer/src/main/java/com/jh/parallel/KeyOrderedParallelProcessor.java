@@ -0,0 +1,276 @@
+package com.jh.parallel;
+
+import com.jh.header.KeySequenceHeader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * partition 수보다 많은 worker 로 레코드를 처리하면서 key 별 순서는 지킨다.
+ * <p>
+ * worker 는 단일 스레드 lane 이고 key hash 로 lane 을 고르므로 같은 key 는 받은 순서대로 처리된다.
+ * offset 은 partition 마다 끝나지 않은 가장 작은 offset 까지만, listener(poll) 스레드에서 비동기로 commit 한다.
+ * 처리 중인 레코드가 max-in-flight-records 개면 listener 가 자리가 날 때까지 기다리며 그동안에도 commit 한다.
+ * <p>
+ * reorder-timeout-ms 가 0 보다 크면 producer 의 HotKeyPartitioner 가 여러 partition 에 나눈 hot key 레코드를
+ * {@link KeySequenceHeader} 의 sequence 순으로 다시 맞춰 처리한다. 같은 key 는 어느 partition 에서 왔든 같은 lane 으로
+ * 가므로 lane 마다 KeySequenceReorderer 를 둔다. 빈 sequence 는 timeout 만큼만 기다리므로, 한 key 의 partition 들을
+ * 다른 consumer 인스턴스와 나눠 가지면 그만큼 늦게 처리된다. 기다리는 레코드는 offset 을 잡고 있어 commit 되지 않는다.
+ * <p>
+ * handler 가 던진 예외는 로그만 남기고 그 레코드를 끝난 것으로 본다.
+ * partition 을 뺏기면 그 partition 의 레코드가 끝나기를 drain-timeout-ms 만큼 기다려 동기 commit 하고,
+ * 그때까지 못 끝낸 레코드는 건너뛰어 새 owner 가 다시 처리하게 한다.
+ * <p>
+ * listener 는 batch 를 {@link #submit} 으로 넘기고 Acknowledgment 는 쓰지 않는다.
+ * container 의 rebalance listener 로 이 객체를 등록해야 한다.
+ */
+@Slf4j
+public class KeyOrderedParallelProcessor<K, V> implements ConsumerAwareRebalanceListener {
+
+    private final ScheduledExecutorService[] lanes;
+
+    // reorder-timeout-ms 가 0 이하면 null
+    private final KeySequenceReorderer[] reorderers;
+
+    private final Semaphore inFlight;
+
+    private final long commitWaitMs;
+
+    private final long drainTimeoutMs;
+
+    private final Map<TopicPartition, PartitionOffsetTracker> trackers = new ConcurrentHashMap<>();
+
+    private final LongAdder processedCount = new LongAdder();
+
+    private final LongAdder failedCount = new LongAdder();
+
+    private final LongAdder skippedCount = new LongAdder();
+
+    public KeyOrderedParallelProcessor(int workerThreads, int maxInFlightRecords, long commitWaitMs,
+                                       long drainTimeoutMs, long reorderTimeoutMs) {
+        if (workerThreads <= 0 || maxInFlightRecords <= 0) {
+            throw new IllegalArgumentException("Worker threads and max in-flight records must be positive");
+        }
+        this.lanes = new ScheduledExecutorService[workerThreads];
+        this.reorderers = reorderTimeoutMs > 0 ? new KeySequenceReorderer[workerThreads] : null;
+        for (int i = 0; i < workerThreads; i++) {
+            lanes[i] = Executors.newSingleThreadScheduledExecutor();
+            if (reorderers != null) {
+                KeySequenceReorderer reorderer = new KeySequenceReorderer(TimeUnit.MILLISECONDS.toNanos(reorderTimeoutMs));
+                reorderers[i] = reorderer;
+                long checkIntervalMs = Math.max(1, reorderTimeoutMs / 2);
+                lanes[i].scheduleWithFixedDelay(() -> runAll(reorderer.expire(System.nanoTime())),
+                        checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        this.inFlight = new Semaphore(maxInFlightRecords);
+        this.commitWaitMs = commitWaitMs;
+        this.drainTimeoutMs = drainTimeoutMs;
+
+        log.info("Created key ordered parallel processor with {} workers, max {} in-flight records, " +
+                "reorder timeout {} ms", workerThreads, maxInFlightRecords, reorderTimeoutMs);
+    }
+
+    /**
+     * poll 한 batch 를 lane 에 나눠 넣고, 지금까지 끝난 만큼 commit 한다. listener 스레드에서 불러야 한다.
+     */
+    public void submit(List<ConsumerRecord<K, V>> records, Consumer<?, ?> consumer, RecordHandler<K, V> handler)
+            throws InterruptedException {
+        for (ConsumerRecord<K, V> record : records) {
+            while (!inFlight.tryAcquire(commitWaitMs, TimeUnit.MILLISECONDS)) {
+                commitCompleted(consumer);
+            }
+            TopicPartition topicPartition = new TopicPartition(record.topic(), record.partition());
+            PartitionOffsetTracker tracker = trackers.computeIfAbsent(topicPartition,
+                    partition -> new PartitionOffsetTracker());
+            tracker.track(record.offset());
+            int lane = laneFor(record);
+            Runnable task = () -> process(record, tracker, handler);
+            if (reorderers == null) {
+                lanes[lane].execute(task);
+            } else {
+                KeySequenceReorderer reorderer = reorderers[lane];
+                lanes[lane].execute(() -> runAll(reorderer.offer(record.key(), keySequence(record), task,
+                        System.nanoTime())));
+            }
+        }
+        commitCompleted(consumer);
+    }
+
+    public void commitCompleted(Consumer<?, ?> consumer) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets(consumer.assignment());
+        if (offsets.isEmpty()) {
+            return;
+        }
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            if (exception != null) {
+                // 다음 commit 이 더 큰 offset 으로 덮으므로 다시 시도하지 않는다
+                log.warn("Async offset commit failed for {}", committed.keySet(), exception);
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(drainTimeoutMs);
+        for (TopicPartition partition : partitions) {
+            PartitionOffsetTracker tracker = trackers.get(partition);
+            while (tracker != null && tracker.hasPending() && System.nanoTime() < deadlineNanos) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> offsets = committableOffsets(partitions);
+        for (TopicPartition partition : partitions) {
+            PartitionOffsetTracker tracker = trackers.remove(partition);
+            if (tracker != null) {
+                tracker.revoke();
+                if (tracker.hasPending()) {
+                    log.warn("Partition {} revoked with {} unfinished records, they will be redelivered",
+                            partition, tracker.pendingCount());
+                }
+            }
+        }
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            PartitionOffsetTracker tracker = trackers.remove(partition);
+            if (tracker != null) {
+                tracker.revoke();
+            }
+        }
+    }
+
+    public void close() {
+        for (ScheduledExecutorService lane : lanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    public int getInFlightCount() {
+        int count = 0;
+        for (PartitionOffsetTracker tracker : trackers.values()) {
+            count += tracker.pendingCount();
+        }
+        return count;
+    }
+
+    public long getProcessedCount() {
+        return processedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    // 이미 지나간 sequence 로 늦게 와서 순서를 맞추지 못한 레코드 수
+    public long getLateSequenceCount() {
+        long count = 0;
+        if (reorderers != null) {
+            for (KeySequenceReorderer reorderer : reorderers) {
+                count += reorderer.getLateCount();
+            }
+        }
+        return count;
+    }
+
+    // 빈 sequence 를 timeout 까지 기다리다 건너뛴 횟수
+    public long getSequenceGapCount() {
+        long count = 0;
+        if (reorderers != null) {
+            for (KeySequenceReorderer reorderer : reorderers) {
+                count += reorderer.getGapCount();
+            }
+        }
+        return count;
+    }
+
+    private void process(ConsumerRecord<K, V> record, PartitionOffsetTracker tracker, RecordHandler<K, V> handler) {
+        try {
+            if (tracker.isRevoked()) {
+                skippedCount.increment();
+                return;
+            }
+            handler.handle(record);
+            processedCount.increment();
+        } catch (Exception e) {
+            failedCount.increment();
+            log.error("Error processing record. Topic: {}, Partition: {}, Offset: {}, Key: {}",
+                    record.topic(), record.partition(), record.offset(), record.key(), e);
+        } finally {
+            tracker.complete(record.offset());
+            inFlight.release();
+        }
+    }
+
+    // 이미 commit 한 offset 보다 나아간 partition 만 모은다
+    private Map<TopicPartition, OffsetAndMetadata> committableOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            PartitionOffsetTracker tracker = trackers.get(partition);
+            if (tracker == null) {
+                continue;
+            }
+            long offset = tracker.committableOffset();
+            if (offset > tracker.getCommittedOffset()) {
+                offsets.put(partition, new OffsetAndMetadata(offset));
+                tracker.setCommittedOffset(offset);
+            }
+        }
+        return offsets;
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static KeySequenceHeader keySequence(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(KeySequenceHeader.NAME);
+        return header == null ? null : KeySequenceHeader.decode(header.value());
+    }
+
+    // key 가 없는 레코드는 순서가 필요 없으므로 offset 으로 흩는다
+    private int laneFor(ConsumerRecord<K, V> record) {
+        int hash = record.key() != null ? record.key().hashCode() : Long.hashCode(record.offset());
+        return (mix(hash) & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.jh.parallel;
+
+import com.jh.header.KeySequenceHeader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * lane 하나에서 {@link KeySequenceHeader} 가 붙은 레코드를 key 별 sequence 순으로 다시 맞춘다.
+ * <p>
+ * 같은 key, 같은 producer id / run 의 레코드는 다음 sequence 가 올 때까지 붙잡아 두고,
+ * 빈 sequence 가 timeout 안에 오지 않으면(다른 consumer 가 가진 partition, 전송 실패 등) 붙잡은 것을 순서대로 내보낸다.
+ * 처음 보는 run 은 처음 받은 sequence 부터 시작하고, 이미 지나간 sequence 는 늦게 온 것으로 보고 바로 내보낸다.
+ * 헤더가 없는 레코드는 그 key 의 run 이 끝난 것으로 보고 붙잡은 것을 먼저 내보낸다.
+ * <p>
+ * lane 스레드에서만 부른다 (스레드 안전하지 않다).
+ */
+final class KeySequenceReorderer {
+
+    // 기다리는 레코드 없이 이만큼 조용한 run 은 잊는다 (timeout 의 배수)
+    private static final int IDLE_RUN_FACTOR = 10;
+
+    private final long timeoutNanos;
+
+    private final Map<Object, KeyRun> runs = new HashMap<>();
+
+    private final List<Runnable> ready = new ArrayList<>();
+
+    // lane 스레드만 쓰고 다른 스레드는 읽기만 한다
+    private volatile long lateCount;
+
+    private volatile long gapCount;
+
+    KeySequenceReorderer(long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * 레코드를 넣고 지금 처리할 수 있는 레코드를 순서대로 돌려준다. 돌려준 목록은 다음 호출까지만 유효하다.
+     */
+    List<Runnable> offer(Object key, KeySequenceHeader header, Runnable task, long nowNanos) {
+        ready.clear();
+        if (key == null) {
+            ready.add(task);
+            return ready;
+        }
+        if (header == null) {
+            KeyRun finished = runs.remove(key);
+            if (finished != null) {
+                releaseAll(finished);
+            }
+            ready.add(task);
+            return ready;
+        }
+
+        KeyRun run = runs.get(key);
+        if (run == null || !header.isSameRun(run.producerId, run.run)) {
+            // 이전 run 은 끝났다. 남은 레코드가 새 run 보다 먼저다
+            if (run != null) {
+                releaseAll(run);
+            }
+            run = new KeyRun(header.getProducerId(), header.getRun(), header.getSequence());
+            runs.put(key, run);
+        }
+        run.lastSeenNanos = nowNanos;
+
+        long sequence = header.getSequence();
+        if (sequence < run.nextSequence) {
+            lateCount++;
+            ready.add(task);
+        } else if (sequence > run.nextSequence) {
+            if (run.waiting.isEmpty()) {
+                run.waitingSinceNanos = nowNanos;
+            }
+            run.waiting.put(sequence, task);
+        } else {
+            ready.add(task);
+            run.nextSequence++;
+            releaseConsecutive(run, nowNanos);
+        }
+        return ready;
+    }
+
+    /**
+     * timeout 동안 빈 sequence 를 기다린 run 의 레코드를 순서대로 돌려주고, 오래 조용한 run 은 잊는다.
+     */
+    List<Runnable> expire(long nowNanos) {
+        ready.clear();
+        Iterator<KeyRun> iterator = runs.values().iterator();
+        while (iterator.hasNext()) {
+            KeyRun run = iterator.next();
+            if (!run.waiting.isEmpty()) {
+                if (nowNanos - run.waitingSinceNanos >= timeoutNanos) {
+                    gapCount++;
+                    releaseAll(run);
+                }
+            } else if (nowNanos - run.lastSeenNanos >= timeoutNanos * IDLE_RUN_FACTOR) {
+                iterator.remove();
+            }
+        }
+        return ready;
+    }
+
+    long getLateCount() {
+        return lateCount;
+    }
+
+    long getGapCount() {
+        return gapCount;
+    }
+
+    private void releaseConsecutive(KeyRun run, long nowNanos) {
+        while (!run.waiting.isEmpty() && run.waiting.firstKey() == run.nextSequence) {
+            ready.add(run.waiting.pollFirstEntry().getValue());
+            run.nextSequence++;
+        }
+        if (!run.waiting.isEmpty()) {
+            run.waitingSinceNanos = nowNanos;
+        }
+    }
+
+    // 빈 sequence 를 건너뛰고 붙잡은 레코드를 모두 내보낸다
+    private void releaseAll(KeyRun run) {
+        if (run.waiting.isEmpty()) {
+            return;
+        }
+        run.nextSequence = run.waiting.lastKey() + 1;
+        ready.addAll(run.waiting.values());
+        run.waiting.clear();
+    }
+
+    private static final class KeyRun {
+
+        private final long producerId;
+
+        private final long run;
+
+        private final TreeMap<Long, Runnable> waiting = new TreeMap<>();
+
+        private long nextSequence;
+
+        private long waitingSinceNanos;
+
+        private long lastSeenNanos;
+
+        private KeyRun(long producerId, long run, long firstSequence) {
+            this.producerId = producerId;
+            this.run = run;
+            this.nextSequence = firstSequence;
+        }
+
+    }
+
+}
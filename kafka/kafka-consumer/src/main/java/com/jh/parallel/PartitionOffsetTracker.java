@@ -0,0 +1,59 @@
+package com.jh.parallel;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * partition 하나의 처리 중인 offset 들. worker 가 순서와 상관없이 끝내도
+ * commit 할 수 있는 offset 은 아직 안 끝난 가장 작은 offset(없으면 마지막 offset + 1)이다.
+ * <p>
+ * track 과 committableOffset 은 poll 스레드에서만 부르고, track 은 offset 오름차순이다.
+ */
+class PartitionOffsetTracker {
+
+    private final ConcurrentSkipListSet<Long> pendingOffsets = new ConcurrentSkipListSet<>();
+
+    private volatile long nextOffset = -1;
+
+    private volatile long committedOffset = -1;
+
+    private volatile boolean revoked;
+
+    void track(long offset) {
+        pendingOffsets.add(offset);
+        nextOffset = offset + 1;
+    }
+
+    void complete(long offset) {
+        pendingOffsets.remove(offset);
+    }
+
+    long committableOffset() {
+        Long firstPending = pendingOffsets.ceiling(Long.MIN_VALUE);
+        return firstPending == null ? nextOffset : firstPending;
+    }
+
+    boolean hasPending() {
+        return !pendingOffsets.isEmpty();
+    }
+
+    int pendingCount() {
+        return pendingOffsets.size();
+    }
+
+    long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    void setCommittedOffset(long committedOffset) {
+        this.committedOffset = committedOffset;
+    }
+
+    boolean isRevoked() {
+        return revoked;
+    }
+
+    void revoke() {
+        revoked = true;
+    }
+
+}
@@ -0,0 +1,9 @@
+package com.jh.parallel;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+public interface RecordHandler<K, V> {
+
+    void handle(ConsumerRecord<K, V> record) throws Exception;
+
+}
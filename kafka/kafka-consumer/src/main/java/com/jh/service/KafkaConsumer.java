@@ -0,0 +1,15 @@
+package com.jh.service;
+
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.io.Serializable;
+import java.util.List;
+
+public interface KafkaConsumer<K extends Serializable, V extends SpecificRecordBase> {
+
+    // poll 한 번의 레코드. 다 처리한 뒤 acknowledgment 를 호출하면 batch 전체 offset 을 commit 한다
+    void receive(List<ConsumerRecord<K, V>> records, Acknowledgment acknowledgment);
+
+}
@@ -0,0 +1,79 @@
+package com.jh.parallel;
+
+import com.jh.header.KeySequenceHeader;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeySequenceReordererTest {
+
+    private static final long TIMEOUT = 1000;
+
+    private final List<Long> processed = new ArrayList<>();
+
+    @Test
+    void releasesRecordsInSequenceOrder() {
+        KeySequenceReorderer reorderer = new KeySequenceReorderer(TIMEOUT);
+        offer(reorderer, "k", 1L, 0L, 0);
+        offer(reorderer, "k", 1L, 2L, 0);
+        offer(reorderer, "k", 1L, 3L, 0);
+        assertEquals(Arrays.asList(0L), processed);
+
+        offer(reorderer, "k", 1L, 1L, 0);
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), processed);
+    }
+
+    @Test
+    void skipsMissingSequenceAfterTimeout() {
+        KeySequenceReorderer reorderer = new KeySequenceReorderer(TIMEOUT);
+        offer(reorderer, "k", 1L, 0L, 0);
+        offer(reorderer, "k", 1L, 3L, 10);
+        offer(reorderer, "k", 1L, 2L, 20);
+        run(reorderer.expire(500));
+        assertEquals(Arrays.asList(0L), processed);
+
+        run(reorderer.expire(1010));
+        assertEquals(Arrays.asList(0L, 2L, 3L), processed);
+        assertEquals(1, reorderer.getGapCount());
+
+        // 건너뛴 sequence 가 늦게 오면 바로 처리한다
+        offer(reorderer, "k", 1L, 1L, 1100);
+        assertEquals(Arrays.asList(0L, 2L, 3L, 1L), processed);
+        assertEquals(1, reorderer.getLateCount());
+    }
+
+    @Test
+    void newRunFlushesPreviousRun() {
+        KeySequenceReorderer reorderer = new KeySequenceReorderer(TIMEOUT);
+        offer(reorderer, "k", 1L, 0L, 0);
+        offer(reorderer, "k", 1L, 2L, 0);
+        offer(reorderer, "k", 2L, 5L, 0);
+        assertEquals(Arrays.asList(0L, 2L, 5L), processed);
+
+        offer(reorderer, "other", 1L, 7L, 0);
+        run(reorderer.offer("k", null, record(9L), 0));
+        assertEquals(Arrays.asList(0L, 2L, 5L, 7L, 9L), processed);
+        assertTrue(reorderer.expire(TIMEOUT * 100).isEmpty());
+    }
+
+    private void offer(KeySequenceReorderer reorderer, Object key, long run, long sequence, long nowNanos) {
+        KeySequenceHeader header = KeySequenceHeader.decode(KeySequenceHeader.encode(42L, run, sequence));
+        run(reorderer.offer(key, header, record(sequence), nowNanos));
+    }
+
+    private Runnable record(long value) {
+        return () -> processed.add(value);
+    }
+
+    private static void run(List<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.jh.parallel;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionOffsetTrackerTest {
+
+    @Test
+    void committableOffsetStopsAtLowestPendingOffset() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        for (long offset = 100; offset < 105; offset++) {
+            tracker.track(offset);
+        }
+        assertEquals(100, tracker.committableOffset());
+
+        tracker.complete(101);
+        tracker.complete(103);
+        assertEquals(100, tracker.committableOffset());
+
+        tracker.complete(100);
+        assertEquals(102, tracker.committableOffset());
+        assertEquals(2, tracker.pendingCount());
+    }
+
+    @Test
+    void committableOffsetIsNextOffsetWhenAllComplete() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        tracker.track(7);
+        tracker.track(9);
+        tracker.complete(9);
+        tracker.complete(7);
+
+        assertFalse(tracker.hasPending());
+        assertEquals(10, tracker.committableOffset());
+    }
+
+    @Test
+    void keepsCommittedOffsetAndRevokedFlag() {
+        PartitionOffsetTracker tracker = new PartitionOffsetTracker();
+        assertEquals(-1, tracker.getCommittedOffset());
+        assertFalse(tracker.isRevoked());
+
+        tracker.track(0);
+        tracker.setCommittedOffset(tracker.committableOffset());
+        tracker.revoke();
+        assertEquals(0, tracker.getCommittedOffset());
+        assertTrue(tracker.isRevoked());
+        assertTrue(tracker.hasPending());
+    }
+
+}
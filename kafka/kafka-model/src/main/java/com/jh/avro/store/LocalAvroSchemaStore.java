@@ -0,0 +1,123 @@
+package com.jh.avro.store;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.message.SchemaStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * classpath 의 avro/*.avsc 로 만든 로컬 스키마 저장소.
+ * single-object encoding 헤더의 CRC-64-AVRO fingerprint 로 스키마를 찾으며, schema registry 가 필요 없다.
+ */
+public class LocalAvroSchemaStore implements SchemaStore {
+
+    public static final String DEFAULT_SCHEMA_DIRECTORY = "avro";
+
+    private static final String SCHEMA_FILE_SUFFIX = ".avsc";
+
+    private final Map<Long, Schema> schemasByFingerprint;
+
+    public LocalAvroSchemaStore(Map<Long, Schema> schemasByFingerprint) {
+        this.schemasByFingerprint = Collections.unmodifiableMap(new HashMap<>(schemasByFingerprint));
+    }
+
+    public static LocalAvroSchemaStore fromClasspath() {
+        return fromClasspath(DEFAULT_SCHEMA_DIRECTORY, Thread.currentThread().getContextClassLoader());
+    }
+
+    public static LocalAvroSchemaStore fromClasspath(String directory, ClassLoader classLoader) {
+        Map<Long, Schema> schemas = new HashMap<>();
+        try {
+            Enumeration<URL> urls = classLoader.getResources(directory);
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                if ("file".equals(url.getProtocol())) {
+                    loadFromDirectory(Paths.get(url.toURI()), schemas);
+                } else {
+                    loadFromJar(url, directory, classLoader, schemas);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading avro schemas from classpath directory " + directory, e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Invalid avro schema directory url", e);
+        }
+
+        if (schemas.isEmpty()) {
+            throw new IllegalStateException("No avro schemas found in classpath directory " + directory);
+        }
+        return new LocalAvroSchemaStore(schemas);
+    }
+
+    @Override
+    public Schema findByFingerprint(long fingerprint) {
+        return schemasByFingerprint.get(fingerprint);
+    }
+
+    public boolean contains(Schema schema) {
+        return schemasByFingerprint.containsKey(fingerprint(schema));
+    }
+
+    public int size() {
+        return schemasByFingerprint.size();
+    }
+
+    public static long fingerprint(Schema schema) {
+        return SchemaNormalization.parsingFingerprint64(schema);
+    }
+
+    private static void loadFromDirectory(Path directory, Map<Long, Schema> schemas) throws IOException {
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SCHEMA_FILE_SUFFIX)) {
+            for (Path path : paths) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    addSchema(in, schemas);
+                }
+            }
+        }
+    }
+
+    private static void loadFromJar(URL url, String directory, ClassLoader classLoader,
+                                    Map<Long, Schema> schemas) throws IOException {
+        URLConnection connection = url.openConnection();
+        if (!(connection instanceof JarURLConnection)) {
+            return;
+        }
+        String prefix = directory + "/";
+        JarFile jarFile = ((JarURLConnection) connection).getJarFile();
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            if (name.startsWith(prefix) && name.endsWith(SCHEMA_FILE_SUFFIX)) {
+                try (InputStream in = classLoader.getResourceAsStream(name)) {
+                    if (in != null) {
+                        addSchema(in, schemas);
+                    }
+                }
+            }
+        }
+    }
+
+    // 파일마다 Parser 를 새로 만들어 이름 충돌 없이 독립적으로 읽는다
+    private static void addSchema(InputStream in, Map<Long, Schema> schemas) throws IOException {
+        Schema schema = new Schema.Parser().parse(in);
+        schemas.put(fingerprint(schema), schema);
+    }
+
+}
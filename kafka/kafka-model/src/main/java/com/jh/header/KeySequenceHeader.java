@@ -0,0 +1,60 @@
+package com.jh.header;
+
+import java.nio.ByteBuffer;
+
+/**
+ * hot key 를 여러 partition 에 나눠 보낼 때 레코드에 붙이는 key 별 sequence 헤더.
+ * <p>
+ * 값은 [producer id long][run long][sequence long] 24 byte big-endian 이다.
+ * producer id 는 producer 인스턴스(시작)마다 새로 정하고, run 은 그 안에서 key 가 hot 이 될 때마다 늘어난다.
+ * sequence 는 한 run 안에서 0 부터 빈틈없이 1 씩 늘어나므로, consumer 는 같은 key 의 같은 producer id / run
+ * 레코드를 sequence 순으로 처리해 나뉘기 전의 순서를 되살릴 수 있다.
+ */
+public final class KeySequenceHeader {
+
+    public static final String NAME = "key-seq";
+
+    public static final int SIZE = Long.BYTES * 3;
+
+    private final long producerId;
+
+    private final long run;
+
+    private final long sequence;
+
+    public KeySequenceHeader(long producerId, long run, long sequence) {
+        this.producerId = producerId;
+        this.run = run;
+        this.sequence = sequence;
+    }
+
+    public static byte[] encode(long producerId, long run, long sequence) {
+        return ByteBuffer.allocate(SIZE).putLong(producerId).putLong(run).putLong(sequence).array();
+    }
+
+    // 형식이 맞지 않으면 null
+    public static KeySequenceHeader decode(byte[] value) {
+        if (value == null || value.length != SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        return new KeySequenceHeader(buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    public long getProducerId() {
+        return producerId;
+    }
+
+    public long getRun() {
+        return run;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isSameRun(long producerId, long run) {
+        return this.producerId == producerId && this.run == run;
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.jh.batching;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.AdaptiveBatchingConfigData;
+import com.jh.pool.KafkaProducerPool;
+import com.jh.pool.ProducerShard;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * producer 자체 metric 을 보고 batch.size 와 linger.ms 를 설정 범위 안에서 조정한다.
+ * <p>
+ * - buffer-available-bytes 가 부족하면 batch 를 줄여 메모리를 돌려준다.
+ * - batch 가 거의 가득 차서 나가면(fill 높음) batch 를 키운다.
+ * - batch 가 거의 비어서 나가면(fill 낮음) batch 를 줄이고, record 가 linger 만큼 기다리기만 하므로 linger 도 줄인다.
+ * - 그 사이 구간에서 queue time 이 linger 보다 충분히 짧으면 linger 를 늘려 batch 를 더 채운다.
+ * 바뀐 값은 KafkaProducerPool.reconfigure 로 ProducerFactory 를 교체해 적용한다.
+ */
+@Component
+@ConditionalOnProperty(name = "adaptive-batching-config.enable", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveBatchingController {
+
+    private final AdaptiveBatchingConfigData adaptiveBatchingConfigData;
+
+    private final KafkaProducerPool<Long, TwitterAvroModel> kafkaProducerPool;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        long intervalMs = adaptiveBatchingConfigData.getIntervalMs();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(this::adjust, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Started adaptive batching controller, batch size {} - {}, linger {} - {} ms",
+                adaptiveBatchingConfigData.getMinBatchSize(), adaptiveBatchingConfigData.getMaxBatchSize(),
+                adaptiveBatchingConfigData.getMinLingerMs(), adaptiveBatchingConfigData.getMaxLingerMs());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void adjust() {
+        try {
+            ProducerSample sample = sample();
+            if (sample == null) {
+                return;
+            }
+
+            Map<String, Object> producerConfig = kafkaProducerPool.getProducerConfig();
+            int batchSize = toInt(producerConfig.get(ProducerConfig.BATCH_SIZE_CONFIG));
+            int lingerMs = toInt(producerConfig.get(ProducerConfig.LINGER_MS_CONFIG));
+
+            int newBatchSize = nextBatchSize(sample, batchSize);
+            int newLingerMs = nextLingerMs(sample, batchSize, lingerMs);
+
+            if (newBatchSize == batchSize && newLingerMs == lingerMs) {
+                return;
+            }
+
+            log.info("Adjusting producer batching. batch-size-avg: {}, record-queue-time-avg: {} ms, " +
+                            "buffer-available-ratio: {}, batch.size: {} -> {}, linger.ms: {} -> {}",
+                    Math.round(sample.batchSizeAvg), Math.round(sample.recordQueueTimeAvg),
+                    String.format("%.2f", sample.bufferAvailableRatio()),
+                    batchSize, newBatchSize, lingerMs, newLingerMs);
+
+            Map<String, Object> overrides = new HashMap<>();
+            overrides.put(ProducerConfig.BATCH_SIZE_CONFIG, newBatchSize);
+            overrides.put(ProducerConfig.LINGER_MS_CONFIG, newLingerMs);
+            kafkaProducerPool.reconfigure(overrides);
+        } catch (RuntimeException e) {
+            log.error("Error adjusting producer batching", e);
+        }
+    }
+
+    private int nextBatchSize(ProducerSample sample, int batchSize) {
+        double fill = sample.batchSizeAvg / batchSize;
+        int target = batchSize;
+
+        if (sample.bufferAvailableRatio() < adaptiveBatchingConfigData.getBufferAvailableLowRatio()) {
+            target = batchSize / 2;
+        } else if (fill > adaptiveBatchingConfigData.getBatchFillHighRatio()) {
+            target = batchSize * 2;
+        } else if (fill < adaptiveBatchingConfigData.getBatchFillLowRatio()) {
+            // 실제 batch 크기의 두 배 정도면 충분하다. 두 배 값을 2 의 거듭제곱으로 올림한다
+            int doubled = (int) Math.max(1, sample.batchSizeAvg * 2);
+            target = Integer.highestOneBit(doubled);
+            if (target < doubled) {
+                target <<= 1;
+            }
+        }
+
+        return clamp(target, adaptiveBatchingConfigData.getMinBatchSize(), adaptiveBatchingConfigData.getMaxBatchSize());
+    }
+
+    private int nextLingerMs(ProducerSample sample, int batchSize, int lingerMs) {
+        double fill = sample.batchSizeAvg / batchSize;
+        int target = lingerMs;
+
+        if (fill < adaptiveBatchingConfigData.getBatchFillLowRatio()) {
+            target = lingerMs / 2;
+        } else if (fill < adaptiveBatchingConfigData.getBatchFillHighRatio()
+                && sample.recordQueueTimeAvg < lingerMs / 2.0) {
+            target = Math.max(lingerMs + 1, lingerMs * 2);
+        }
+
+        return clamp(target, adaptiveBatchingConfigData.getMinLingerMs(), adaptiveBatchingConfigData.getMaxLingerMs());
+    }
+
+    // shard 평균. 아직 batch 를 보낸 적이 없으면 null
+    private ProducerSample sample() {
+        double batchSizeAvg = 0;
+        double recordQueueTimeAvg = 0;
+        double bufferAvailableBytes = 0;
+        double bufferTotalBytes = 0;
+        int count = 0;
+
+        for (ProducerShard<Long, TwitterAvroModel> shard : kafkaProducerPool.getShards()) {
+            double shardBatchSizeAvg = shard.producerMetric("batch-size-avg");
+            if (Double.isNaN(shardBatchSizeAvg) || shardBatchSizeAvg <= 0) {
+                continue;
+            }
+            batchSizeAvg += shardBatchSizeAvg;
+            recordQueueTimeAvg += orZero(shard.producerMetric("record-queue-time-avg"));
+            bufferAvailableBytes += orZero(shard.producerMetric("buffer-available-bytes"));
+            bufferTotalBytes += orZero(shard.producerMetric("buffer-total-bytes"));
+            count++;
+        }
+
+        if (count == 0) {
+            return null;
+        }
+        return new ProducerSample(batchSizeAvg / count, recordQueueTimeAvg / count,
+                bufferAvailableBytes, bufferTotalBytes);
+    }
+
+    private static double orZero(double value) {
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(String.valueOf(value));
+    }
+
+    private static final class ProducerSample {
+
+        private final double batchSizeAvg;
+        private final double recordQueueTimeAvg;
+        private final double bufferAvailableBytes;
+        private final double bufferTotalBytes;
+
+        private ProducerSample(double batchSizeAvg, double recordQueueTimeAvg,
+                               double bufferAvailableBytes, double bufferTotalBytes) {
+            this.batchSizeAvg = batchSizeAvg;
+            this.recordQueueTimeAvg = recordQueueTimeAvg;
+            this.bufferAvailableBytes = bufferAvailableBytes;
+            this.bufferTotalBytes = bufferTotalBytes;
+        }
+
+        private double bufferAvailableRatio() {
+            return bufferTotalBytes <= 0 ? 1.0 : bufferAvailableBytes / bufferTotalBytes;
+        }
+
+    }
+
+}
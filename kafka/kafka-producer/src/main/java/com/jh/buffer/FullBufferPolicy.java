@@ -0,0 +1,14 @@
+package com.jh.buffer;
+
+public enum FullBufferPolicy {
+
+    // 자리가 날 때까지 호출 스레드가 기다린다
+    BLOCK,
+
+    // 가장 오래된 이벤트를 버리고 새 이벤트를 넣는다
+    DROP_OLDEST,
+
+    // 버퍼에 남은 이벤트와 함께 SpillHandler 로 넘긴다
+    SPILL
+
+}
@@ -0,0 +1,104 @@
+package com.jh.buffer;
+
+import com.jh.service.SendCallback;
+import org.apache.kafka.common.header.Header;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 고정 크기, 사전 할당된 lock-free ring buffer (Vyukov bounded queue 방식).
+ * <p>
+ * 슬롯마다 sequence 를 두고 producer / consumer cursor 를 CAS 로 예약한다.
+ * - sequence == pos       : 비어 있어 producer 가 쓸 수 있음
+ * - sequence == pos + 1   : 채워져 있어 consumer 가 읽을 수 있음
+ * 슬롯 내용은 sequence 의 release write(lazySet) 로 상대 스레드에 공개된다.
+ * <p>
+ * 리스너 콜백 스레드 하나가 쓰는 경우가 기본이지만, mock 부하 생성기처럼
+ * 여러 스레드가 동시에 publish 해도 안전하다.
+ */
+public class ProducerRingBuffer<K, V> {
+
+    private final int mask;
+
+    private final AtomicLongArray sequences;
+
+    private final RingBufferEvent<K, V>[] events;
+
+    private final AtomicLong producerCursor = new AtomicLong();
+
+    private final AtomicLong consumerCursor = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public ProducerRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        events = new RingBufferEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+            events[i] = new RingBufferEvent<>();
+        }
+    }
+
+    // 가득 차 있으면 false
+    public boolean tryPublish(String topicName, K key, V value, Iterable<Header> headers, SendCallback callback) {
+        long pos = producerCursor.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (producerCursor.compareAndSet(pos, pos + 1)) {
+                    events[index].set(topicName, key, value, headers, callback);
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = producerCursor.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = producerCursor.get();
+            }
+        }
+    }
+
+    // 가장 오래된 이벤트를 target 으로 복사하고 슬롯을 비운다. target 이 null 이면 버린다.
+    public boolean tryConsume(RingBufferEvent<K, V> target) {
+        long pos = consumerCursor.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (consumerCursor.compareAndSet(pos, pos + 1)) {
+                    RingBufferEvent<K, V> event = events[index];
+                    if (target != null) {
+                        target.copyFrom(event);
+                    }
+                    event.clear();
+                    sequences.lazySet(index, pos + mask + 1);
+                    return true;
+                }
+                pos = consumerCursor.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = consumerCursor.get();
+            }
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long size() {
+        return Math.max(0, producerCursor.get() - consumerCursor.get());
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+}
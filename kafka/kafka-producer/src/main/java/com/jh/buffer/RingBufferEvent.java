@@ -0,0 +1,39 @@
+package com.jh.buffer;
+
+import com.jh.service.SendCallback;
+import lombok.Getter;
+import org.apache.kafka.common.header.Header;
+
+/**
+ * ring buffer 에 미리 할당되어 재사용되는 슬롯.
+ */
+@Getter
+public class RingBufferEvent<K, V> {
+
+    private String topicName;
+
+    private K key;
+
+    private V value;
+
+    private Iterable<Header> headers;
+
+    private SendCallback callback;
+
+    void set(String topicName, K key, V value, Iterable<Header> headers, SendCallback callback) {
+        this.topicName = topicName;
+        this.key = key;
+        this.value = value;
+        this.headers = headers;
+        this.callback = callback;
+    }
+
+    void copyFrom(RingBufferEvent<K, V> other) {
+        set(other.topicName, other.key, other.value, other.headers, other.callback);
+    }
+
+    public void clear() {
+        set(null, null, null, null, null);
+    }
+
+}
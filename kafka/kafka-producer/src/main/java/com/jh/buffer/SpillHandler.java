@@ -0,0 +1,14 @@
+package com.jh.buffer;
+
+import org.apache.kafka.common.header.Header;
+
+/**
+ * FullBufferPolicy.SPILL 일 때 버퍼에 들어가지 못한 레코드를 받는 곳.
+ * 빈이 없으면 SPILL 정책은 BLOCK 으로 동작한다.
+ */
+public interface SpillHandler<K, V> {
+
+    // log 에 남겼으면 true, 디스크 예산을 넘었거나 인코딩할 수 없어 버렸으면 false
+    boolean spill(String topicName, K key, V value, Iterable<Header> headers);
+
+}
@@ -0,0 +1,51 @@
+package com.jh.buffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * consumer 가 빈 버퍼를, BLOCK 정책의 producer 가 가득 찬 버퍼를 만났을 때 기다리는 방식.
+ * idle(counter) 는 연속으로 기다린 횟수를 받아 다음 counter 를 돌려준다.
+ */
+public enum WaitStrategy {
+
+    // 지연이 가장 낮지만 코어 하나를 계속 점유한다
+    BUSY_SPIN {
+        @Override
+        public int idle(int counter) {
+            return counter + 1;
+        }
+    },
+
+    YIELDING {
+        @Override
+        public int idle(int counter) {
+            if (counter >= SPIN_TRIES) {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    },
+
+    // spin -> yield -> park 순으로 물러난다. 트래픽이 없을 때 CPU 를 거의 쓰지 않는다
+    SLEEPING {
+        @Override
+        public int idle(int counter) {
+            if (counter >= SPIN_TRIES + YIELD_TRIES) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (counter >= SPIN_TRIES) {
+                Thread.yield();
+            }
+            return counter + 1;
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final int YIELD_TRIES = 100;
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    public abstract int idle(int counter);
+
+}
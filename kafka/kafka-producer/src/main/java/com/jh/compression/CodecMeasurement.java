@@ -0,0 +1,16 @@
+package com.jh.compression;
+
+import lombok.Value;
+
+@Value
+public class CodecMeasurement {
+
+    String codec;
+    // 압축 후 / 압축 전
+    double ratio;
+    // 압축 전 byte 하나당 CPU 시간
+    double cpuNanosPerByte;
+    // cpu budget 과 network 대역폭 중 먼저 막히는 쪽으로 정해지는 압축 전 기준 처리량
+    double effectiveBytesPerSecond;
+
+}
@@ -0,0 +1,219 @@
+package com.jh.compression;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.CompressionCalibrationConfigData;
+import com.jh.pool.KafkaProducerPool;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.compress.Compression;
+import org.apache.kafka.common.record.CompressionType;
+import org.apache.kafka.common.record.RecordBatch;
+import org.apache.kafka.common.utils.ByteBufferOutputStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 실제로 보내는 TwitterAvroModel 을 표본으로 모아 codec 마다 압축률과 CPU 비용을 재고,
+ * 처리량이 가장 큰 codec 으로 producer 를 다시 만든다.
+ * <p>
+ * 표본은 send 의 sample-every-n 번째마다 참조만 ring 에 넣고, 직렬화와 압축은 calibration 스레드에서 한다.
+ * 표본을 현재 batch.size 만큼 이어 붙여 Kafka 의 압축 구현으로 압축하므로 producer batch 와 같은 조건이다.
+ * codec 의 처리량은 min(cpu-budget-cores / 압축 CPU 시간, network-bytes-per-second / 압축률) 로 본다.
+ * 현재 codec 보다 min-improvement-ratio 이상 나을 때만 KafkaProducerPool.reconfigure 로 바꾼다.
+ */
+@Component
+@ConditionalOnProperty(name = "compression-calibration-config.enable", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class CompressionCalibrator {
+
+    private static final String DEFAULT_COMPRESSION_TYPE = "none";
+
+    private final CompressionCalibrationConfigData compressionCalibrationConfigData;
+
+    private final KafkaProducerPool<Long, TwitterAvroModel> kafkaProducerPool;
+
+    private final AtomicLong sendSequence = new AtomicLong();
+
+    private AtomicReferenceArray<TwitterAvroModel> samples;
+
+    private volatile CompressionDecision lastDecision;
+
+    private ScheduledExecutorService calibrationExecutor;
+
+    @PostConstruct
+    public void init() {
+        samples = new AtomicReferenceArray<>(compressionCalibrationConfigData.getSampleSize());
+        calibrationExecutor = Executors.newSingleThreadScheduledExecutor();
+        calibrationExecutor.scheduleWithFixedDelay(this::calibrate, compressionCalibrationConfigData.getInitialDelayMs(),
+                compressionCalibrationConfigData.getIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("Compression calibration enabled for codecs {}, cpu budget {} cores, network {} bytes/sec",
+                compressionCalibrationConfigData.getCodecs(), compressionCalibrationConfigData.getCpuBudgetCores(),
+                compressionCalibrationConfigData.getNetworkBytesPerSecond());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (calibrationExecutor != null) {
+            calibrationExecutor.shutdownNow();
+        }
+    }
+
+    public void sample(TwitterAvroModel value) {
+        long sequence = sendSequence.getAndIncrement();
+        int sampleEveryN = compressionCalibrationConfigData.getSampleEveryN();
+        if (sequence % sampleEveryN == 0) {
+            samples.lazySet((int) ((sequence / sampleEveryN) % samples.length()), value);
+        }
+    }
+
+    public CompressionDecision getLastDecision() {
+        return lastDecision;
+    }
+
+    void calibrate() {
+        try {
+            int batchSize = Integer.parseInt(
+                    kafkaProducerPool.getProducerConfig().get(ProducerConfig.BATCH_SIZE_CONFIG).toString());
+            List<byte[]> serialized = serializeSamples();
+            if (serialized.isEmpty()) {
+                log.debug("No samples for compression calibration yet");
+                return;
+            }
+            byte[] batch = buildBatch(serialized, batchSize);
+
+            List<CodecMeasurement> measurements = new ArrayList<>();
+            for (String codec : compressionCalibrationConfigData.getCodecs()) {
+                measurements.add(measure(codec, batch));
+            }
+
+            Object currentConfig = kafkaProducerPool.getProducerConfig().get(ProducerConfig.COMPRESSION_TYPE_CONFIG);
+            String currentCodec = currentConfig == null ? DEFAULT_COMPRESSION_TYPE : currentConfig.toString();
+            CodecMeasurement best = Collections.max(measurements,
+                    (m1, m2) -> Double.compare(m1.getEffectiveBytesPerSecond(), m2.getEffectiveBytesPerSecond()));
+            CodecMeasurement current = find(measurements, currentCodec);
+
+            boolean apply = !best.getCodec().equals(currentCodec) && (current == null
+                    || best.getEffectiveBytesPerSecond() > current.getEffectiveBytesPerSecond()
+                    * (1 + compressionCalibrationConfigData.getMinImprovementRatio()));
+
+            lastDecision = new CompressionDecision(System.currentTimeMillis(), serialized.size(), batch.length,
+                    currentCodec, apply ? best.getCodec() : currentCodec, apply,
+                    Collections.unmodifiableList(measurements));
+            log.info("Compression calibration over {} records in a {} byte batch: {}. Selected {} (was {})",
+                    serialized.size(), batch.length, summary(measurements), lastDecision.getSelectedCodec(),
+                    currentCodec);
+
+            if (apply) {
+                kafkaProducerPool.reconfigure(Collections.singletonMap(
+                        ProducerConfig.COMPRESSION_TYPE_CONFIG, best.getCodec()));
+            }
+        } catch (RuntimeException | IOException e) {
+            log.error("Error calibrating producer compression", e);
+        }
+    }
+
+    private List<byte[]> serializeSamples() throws IOException {
+        List<byte[]> serialized = new ArrayList<>(samples.length());
+        for (int i = 0; i < samples.length(); i++) {
+            TwitterAvroModel value = samples.get(i);
+            if (value != null) {
+                ByteBuffer buffer = value.toByteBuffer();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                serialized.add(bytes);
+            }
+        }
+        return serialized;
+    }
+
+    // producer batch 하나처럼 표본을 batch.size 까지 이어 붙인다. 표본이 모자라면 처음부터 다시 쓴다
+    private static byte[] buildBatch(List<byte[]> serialized, int batchSize) {
+        ByteBuffer batch = ByteBuffer.allocate(batchSize);
+        for (int i = 0; batch.hasRemaining(); i++) {
+            byte[] record = serialized.get(i % serialized.size());
+            if (record.length > batch.remaining()) {
+                if (batch.position() > 0) {
+                    break;
+                }
+                batch.put(record, 0, batch.remaining());
+                break;
+            }
+            batch.put(record);
+        }
+        byte[] bytes = new byte[batch.position()];
+        batch.flip();
+        batch.get(bytes);
+        return bytes;
+    }
+
+    private CodecMeasurement measure(String codec, byte[] batch) throws IOException {
+        Compression compression = Compression.of(CompressionType.forName(codec)).build();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threadMXBean.isCurrentThreadCpuTimeSupported();
+
+        // 첫 회는 JIT / native 라이브러리 로딩 영향을 빼기 위해 버린다
+        int compressedSize = compress(compression, batch);
+        int iterations = compressionCalibrationConfigData.getIterations();
+        long start = cpuTime ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            compressedSize = compress(compression, batch);
+        }
+        long elapsedNanos = (cpuTime ? threadMXBean.getCurrentThreadCpuTime() : System.nanoTime()) - start;
+
+        double ratio = compressedSize / (double) batch.length;
+        double cpuNanosPerByte = Math.max(elapsedNanos, 1L) / ((double) batch.length * iterations);
+        double cpuLimited = compressionCalibrationConfigData.getCpuBudgetCores() * TimeUnit.SECONDS.toNanos(1)
+                / cpuNanosPerByte;
+        double networkLimited = compressionCalibrationConfigData.getNetworkBytesPerSecond() / ratio;
+        return new CodecMeasurement(codec, ratio, cpuNanosPerByte, Math.min(cpuLimited, networkLimited));
+    }
+
+    private static int compress(Compression compression, byte[] batch) throws IOException {
+        ByteBufferOutputStream bufferStream = new ByteBufferOutputStream(batch.length + 1024);
+        try (OutputStream out = compression.wrapForOutput(bufferStream, RecordBatch.CURRENT_MAGIC_VALUE)) {
+            out.write(batch);
+        }
+        return bufferStream.position();
+    }
+
+    private static CodecMeasurement find(List<CodecMeasurement> measurements, String codec) {
+        for (CodecMeasurement measurement : measurements) {
+            if (measurement.getCodec().equals(codec)) {
+                return measurement;
+            }
+        }
+        return null;
+    }
+
+    private static String summary(List<CodecMeasurement> measurements) {
+        StringBuilder sb = new StringBuilder();
+        for (CodecMeasurement measurement : measurements) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(measurement.getCodec())
+                    .append(String.format(" ratio %.3f, %.2f ns/byte, %.1f MB/sec", measurement.getRatio(),
+                            measurement.getCpuNanosPerByte(), measurement.getEffectiveBytesPerSecond() / (1024 * 1024)));
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.jh.compression;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class CompressionDecision {
+
+    long timestamp;
+    int sampleRecords;
+    int batchBytes;
+    String previousCodec;
+    String selectedCodec;
+    boolean applied;
+    List<CodecMeasurement> measurements;
+
+}
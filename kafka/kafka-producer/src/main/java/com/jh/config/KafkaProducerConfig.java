@@ -1,13 +1,19 @@
 package com.jh.config;
 
+import com.jh.partitioner.HotKeyPartitioner;
+import com.jh.partitioner.HotKeySequenceInterceptor;
+import com.jh.partitioner.HotKeyTracker;
+import com.jh.pool.KafkaProducerPool;
+import com.jh.serializer.SingleObjectAvroSerializer;
+import com.jh.serializer.TwitterAvroModelSerializer;
 import lombok.RequiredArgsConstructor;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.kafka.core.DefaultKafkaProducerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.core.ProducerFactory;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
 
 import java.io.Serializable;
 import java.util.HashMap;
@@ -22,6 +28,10 @@ public class KafkaProducerConfig <K extends Serializable, V extends SpecificReco
 
     private final KafkaProducerConfigData kafkaProducerConfigData;
 
+    private final ReactivePipelineConfigData reactivePipelineConfigData;
+
+    private final HotKeyPartitioningConfigData hotKeyPartitioningConfigData;
+
     @Bean
     public Map<String, Object> producerConfig() {
         Map<String, Object> props = new HashMap<>();
@@ -37,16 +47,45 @@ public class KafkaProducerConfig <K extends Serializable, V extends SpecificReco
         props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, kafkaProducerConfigData.getRequestTimeoutMs());
         props.put(ProducerConfig.RETRIES_CONFIG, kafkaProducerConfigData.getRetryCount());
 
+        // single-object 모드는 registry 없이 로컬 스키마 fingerprint 헤더로 쓴다
+        if (KafkaConfigData.WIRE_FORMAT_SINGLE_OBJECT.equals(kafkaConfigData.getWireFormat())) {
+            props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, SingleObjectAvroSerializer.class.getName());
+            props.remove(kafkaConfigData.getSchemaRegistryUrlKey());
+        } else if (TwitterAvroModelSerializer.class.getName().equals(kafkaProducerConfigData.getValueSerializerClass())) {
+            props.put(TwitterAvroModelSerializer.PRELOAD_TOPICS_CONFIG, kafkaConfigData.getTopicNamesToCreate());
+        }
+
+        // interceptor 가 hot key 에 sequence 헤더를 붙이고 partitioner 가 여러 partition 에 나눈다
+        if (Boolean.TRUE.equals(hotKeyPartitioningConfigData.getEnable())) {
+            props.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, HotKeyPartitioner.class.getName());
+            props.put(ProducerConfig.INTERCEPTOR_CLASSES_CONFIG, HotKeySequenceInterceptor.class.getName());
+            props.put(HotKeyTracker.TRACKER_CONFIG, new HotKeyTracker(
+                    hotKeyPartitioningConfigData.getSketchWidth(),
+                    hotKeyPartitioningConfigData.getSketchDepth(),
+                    hotKeyPartitioningConfigData.getWindowMs(),
+                    hotKeyPartitioningConfigData.getHotKeyMessagesPerSecond(),
+                    hotKeyPartitioningConfigData.getCoolDownRatio(),
+                    hotKeyPartitioningConfigData.getSpreadPartitions(),
+                    hotKeyPartitioningConfigData.getMaxHotKeys()));
+        }
+
         return props;
     }
 
-    public ProducerFactory<K, V> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfig());
+    @Bean
+    public KafkaProducerPool<K, V> kafkaProducerPool() {
+        return new KafkaProducerPool<>(producerConfig(),
+                kafkaProducerConfigData.getProducerPoolSize(),
+                kafkaProducerConfigData.getClientIdPrefix());
     }
 
+    // ack 를 기다리는 레코드가 max-in-flight 개면 upstream 에 더 요청하지 않는다
     @Bean
-    public KafkaTemplate<K, V> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    @ConditionalOnProperty(name = "reactive-pipeline-config.enable", havingValue = "true")
+    public KafkaSender<K, V> kafkaSender() {
+        return KafkaSender.create(SenderOptions.<K, V>create(producerConfig())
+                .maxInFlight(reactivePipelineConfigData.getMaxInFlight())
+                .stopOnError(false));
     }
 
 }
@@ -0,0 +1,65 @@
+package com.jh.partitioner;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * cold key 는 기본 partitioner 와 같은 murmur2 hash 로 한 partition 에 두고,
+ * hot key 는 그 partition 부터 연속한 spread-partitions 개 partition 에 sequence 순으로 돌려 나눈다.
+ * <p>
+ * 나뉜 레코드는 consumer 에서 서로 다른 순서로 읽힐 수 있다. HotKeySequenceInterceptor 가 붙인
+ * {@link com.jh.header.KeySequenceHeader} 로 consumer 가 순서를 되살린다
+ * (kafka-consumer 의 KeyOrderedParallelProcessor 는 parallel-consumer-config.reorder-timeout-ms 로 켠다).
+ * 헤더를 보지 않는 consumer 에게는 hot key 의 순서가 보장되지 않는다.
+ * cold 로 돌아가면 다시 한 partition 에서 순서를 지킨다.
+ */
+public class HotKeyPartitioner implements Partitioner {
+
+    private HotKeyTracker hotKeyTracker;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        hotKeyTracker = trackerFrom(configs);
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        List<PartitionInfo> partitions = cluster.partitionsForTopic(topic);
+        int numPartitions = partitions.size();
+        if (keyBytes == null) {
+            List<PartitionInfo> available = cluster.availablePartitionsForTopic(topic);
+            List<PartitionInfo> candidates = available.isEmpty() ? partitions : available;
+            return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size())).partition();
+        }
+
+        int hashPartition = Utils.toPositive(Utils.murmur2(keyBytes)) % numPartitions;
+        // interceptor 가 방금 센 key 의 sequence 를 쓴다
+        HotKeyTracker.Placement placement = hotKeyTracker.takePlacement(key);
+        if (placement == null) {
+            return hashPartition;
+        }
+        int spread = Math.min(hotKeyTracker.getSpreadPartitions(), numPartitions);
+        return (int) ((hashPartition + placement.getSequence() % spread) % numPartitions);
+    }
+
+    @Override
+    public void close() {
+    }
+
+    static HotKeyTracker trackerFrom(Map<String, ?> configs) {
+        Object tracker = configs.get(HotKeyTracker.TRACKER_CONFIG);
+        if (!(tracker instanceof HotKeyTracker)) {
+            throw new ConfigException(HotKeyTracker.TRACKER_CONFIG, tracker,
+                    "Expected a " + HotKeyTracker.class.getName() + " instance");
+        }
+        return (HotKeyTracker) tracker;
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.jh.partitioner;
+
+import com.jh.header.KeySequenceHeader;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.Map;
+
+/**
+ * 레코드마다 key 를 HotKeyTracker 에 세고, hot key 이면 {@link KeySequenceHeader} 를 붙인다.
+ * partition 이 이미 정해진 레코드는 partitioner 를 거치지 않으므로 건드리지 않는다.
+ */
+public class HotKeySequenceInterceptor<K, V> implements ProducerInterceptor<K, V> {
+
+    private HotKeyTracker hotKeyTracker;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        hotKeyTracker = HotKeyPartitioner.trackerFrom(configs);
+    }
+
+    @Override
+    public ProducerRecord<K, V> onSend(ProducerRecord<K, V> record) {
+        if (record.partition() != null) {
+            return record;
+        }
+        HotKeyTracker.Placement placement = hotKeyTracker.record(record.key());
+        // spill log 에서 다시 보내는 레코드는 이전 sequence 를 지우고 지금 값으로 바꾼다
+        if (record.headers().lastHeader(KeySequenceHeader.NAME) != null) {
+            record.headers().remove(KeySequenceHeader.NAME);
+        }
+        if (placement != null) {
+            record.headers().add(KeySequenceHeader.NAME, KeySequenceHeader.encode(hotKeyTracker.getProducerId(),
+                    placement.getRun(), placement.getSequence()));
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+}
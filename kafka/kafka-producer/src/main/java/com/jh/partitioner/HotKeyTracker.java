@@ -0,0 +1,280 @@
+package com.jh.partitioner;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * key 별 전송 rate 를 Count-Min sketch 두 개(현재 window, 직전 window)로 추정해 hot key 를 고른다.
+ * <p>
+ * rate 는 직전 window 의 값을 남은 비율만큼만 더하는 sliding window 근사로 구하고,
+ * hot-key-messages-per-second 를 넘으면 hot, 그 cool-down-ratio 배 아래로 내려가면 다시 cold 로 본다.
+ * 더 이상 보내지 않는 key 도 max-hot-keys 자리를 비우도록, window 가 바뀔 때 끝난 window 의 rate 가
+ * cool-down 아래인 hot key 를 내린다.
+ * <p>
+ * key 가 hot 이 될 때마다 새 run 을 열고, 그 key 의 레코드마다 run 안에서 빈틈없이 늘어나는 sequence 를 준다.
+ * interceptor 는 이 값을 {@link com.jh.header.KeySequenceHeader} 로 붙이고, partitioner 는 sequence 로
+ * spread-partitions 개 partition 을 돌아가며 고른다. interceptor 의 onSend 와 partitioner 는 같은 send 호출 안에서
+ * 같은 스레드로 불리므로 그 값을 스레드별로 넘긴다. producer id 는 인스턴스마다 새로 정하므로
+ * 재시작해도 이전 실행의 sequence 와 섞이지 않는다.
+ * <p>
+ * producer config map 에 {@link #TRACKER_CONFIG} 로 넣어 interceptor 와 partitioner 가 같은 인스턴스를 쓴다.
+ */
+@Slf4j
+public class HotKeyTracker {
+
+    public static final String TRACKER_CONFIG = "hot.key.tracker";
+
+    private static final long[] ROW_SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x85EBCA77C2B2AE63L, 0x27D4EB2F165667C5L
+    };
+
+    private final int width;
+
+    private final int depth;
+
+    private final long windowNanos;
+
+    private final double hotRate;
+
+    private final double coolRate;
+
+    private final int spreadPartitions;
+
+    private final int maxHotKeys;
+
+    private final ConcurrentMap<Object, HotKey> hotKeys = new ConcurrentHashMap<>();
+
+    private final long producerId = new SecureRandom().nextLong();
+
+    private final AtomicLong runs = new AtomicLong();
+
+    private final LongAdder spreadCount = new LongAdder();
+
+    private final ThreadLocal<Placement> pendingPlacement = new ThreadLocal<>();
+
+    private volatile AtomicLongArray current;
+
+    private volatile AtomicLongArray previous;
+
+    private volatile long windowStartNanos = System.nanoTime();
+
+    public HotKeyTracker(int width, int depth, long windowMs, double hotKeyMessagesPerSecond,
+                         double coolDownRatio, int spreadPartitions, int maxHotKeys) {
+        if (width <= 0 || depth <= 0 || depth > ROW_SEEDS.length) {
+            throw new IllegalArgumentException("Invalid sketch size " + width + "x" + depth);
+        }
+        if (windowMs <= 0 || hotKeyMessagesPerSecond <= 0 || spreadPartitions <= 0) {
+            throw new IllegalArgumentException("Window, hot key rate and spread partitions must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.hotRate = hotKeyMessagesPerSecond;
+        this.coolRate = hotKeyMessagesPerSecond * coolDownRatio;
+        this.spreadPartitions = spreadPartitions;
+        this.maxHotKeys = maxHotKeys;
+        this.current = new AtomicLongArray(width * depth);
+        this.previous = new AtomicLongArray(width * depth);
+    }
+
+    /**
+     * key 를 한 번 세고, hot 이면 그 key 의 run 과 다음 sequence 를, cold 이면 null 을 반환한다.
+     * 결과는 같은 스레드의 다음 {@link #takePlacement(Object)} 가 가져간다.
+     */
+    public Placement record(Object key) {
+        if (key == null) {
+            pendingPlacement.remove();
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - windowStartNanos >= windowNanos) {
+            rotate(now);
+        }
+
+        long hash = hash(key);
+        AtomicLongArray currentCounts = current;
+        AtomicLongArray previousCounts = previous;
+        long currentEstimate = Long.MAX_VALUE;
+        long previousEstimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + bucket(hash, row);
+            currentEstimate = Math.min(currentEstimate, currentCounts.incrementAndGet(index));
+            previousEstimate = Math.min(previousEstimate, previousCounts.get(index));
+        }
+        double elapsed = Math.min(1.0, (now - windowStartNanos) / (double) windowNanos);
+        double rate = (previousEstimate * (1.0 - elapsed) + currentEstimate)
+                * TimeUnit.SECONDS.toNanos(1) / windowNanos;
+
+        HotKey hotKey = updateHot(key, rate);
+        if (hotKey == null) {
+            pendingPlacement.remove();
+            return null;
+        }
+        Placement placement = new Placement(key, hotKey.run, hotKey.nextSequence.getAndIncrement());
+        pendingPlacement.set(placement);
+        spreadCount.increment();
+        return placement;
+    }
+
+    /**
+     * 같은 스레드에서 방금 record 한 key 이면 그 placement 를 꺼내고, 아니면 null.
+     */
+    public Placement takePlacement(Object key) {
+        Placement placement = pendingPlacement.get();
+        if (placement == null) {
+            return null;
+        }
+        pendingPlacement.remove();
+        return placement.key.equals(key) ? placement : null;
+    }
+
+    public long getProducerId() {
+        return producerId;
+    }
+
+    public int getSpreadPartitions() {
+        return spreadPartitions;
+    }
+
+    public int getHotKeyCount() {
+        return hotKeys.size();
+    }
+
+    public long getSpreadCount() {
+        return spreadCount.sum();
+    }
+
+    private HotKey updateHot(Object key, double rate) {
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey != null) {
+            if (rate >= coolRate) {
+                return hotKey;
+            }
+            if (hotKeys.remove(key, hotKey)) {
+                log.debug("Key {} is no longer hot, {} msgs/sec", key, String.format("%.1f", rate));
+            }
+            return null;
+        }
+        if (rate < hotRate) {
+            return null;
+        }
+        if (hotKeys.size() >= maxHotKeys) {
+            return null;
+        }
+        HotKey created = new HotKey(runs.incrementAndGet());
+        hotKey = hotKeys.putIfAbsent(key, created);
+        if (hotKey != null) {
+            return hotKey;
+        }
+        log.debug("Key {} is hot, {} msgs/sec", key, String.format("%.1f", rate));
+        return created;
+    }
+
+    // 현재 window 를 직전 window 로 밀고 비운 배열을 새 현재 window 로 쓴다. 두 window 이상 지났으면 둘 다 비운다
+    private synchronized void rotate(long now) {
+        long elapsed = now - windowStartNanos;
+        if (elapsed < windowNanos) {
+            return;
+        }
+        AtomicLongArray recycled = previous;
+        clear(recycled);
+        if (elapsed >= 2 * windowNanos) {
+            clear(current);
+        }
+        previous = current;
+        current = recycled;
+        windowStartNanos = elapsed >= 2 * windowNanos ? now : windowStartNanos + windowNanos;
+        expireHotKeys();
+    }
+
+    // 방금 끝난 window 에서 cool-down 아래로 보낸 hot key 를 내린다
+    private void expireHotKeys() {
+        if (hotKeys.isEmpty()) {
+            return;
+        }
+        AtomicLongArray finished = previous;
+        double coolCount = coolRate * windowNanos / TimeUnit.SECONDS.toNanos(1);
+        for (Object key : hotKeys.keySet()) {
+            long hash = hash(key);
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                estimate = Math.min(estimate, finished.get(row * width + bucket(hash, row)));
+            }
+            if (estimate < coolCount && hotKeys.remove(key) != null) {
+                log.debug("Key {} is no longer hot, {} msgs in last window", key, estimate);
+            }
+        }
+    }
+
+    private int bucket(long hash, int row) {
+        return (int) ((mix(hash ^ ROW_SEEDS[row]) & Long.MAX_VALUE) % width);
+    }
+
+    private static void clear(AtomicLongArray counts) {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    private static long hash(Object key) {
+        return key instanceof Long ? (Long) key : key.hashCode();
+    }
+
+    // MurmurHash3 fmix64
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * hot key 레코드 하나의 run 과 sequence.
+     */
+    public static final class Placement {
+
+        private final Object key;
+
+        private final long run;
+
+        private final long sequence;
+
+        private Placement(Object key, long run, long sequence) {
+            this.key = key;
+            this.run = run;
+            this.sequence = sequence;
+        }
+
+        public long getRun() {
+            return run;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+    }
+
+    private static final class HotKey {
+
+        private final long run;
+
+        private final AtomicLong nextSequence = new AtomicLong();
+
+        private HotKey(long run) {
+            this.run = run;
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.jh.pool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * KafkaProducer N 개를 두고 key 로 하나를 골라 보낸다.
+ * <p>
+ * producer 하나는 sender I/O 스레드도 하나라서 코어가 많아도 처리량이 거기서 막힌다.
+ * 같은 key 는 항상 같은 shard 로 가고, shard 안에서는 기존 partitioner 가 partition 을 고르므로
+ * 사용자(key) 단위 순서는 그대로 유지된다.
+ */
+@Slf4j
+public class KafkaProducerPool<K, V> {
+
+    private final List<ProducerShard<K, V>> shards;
+
+    private final String clientIdPrefix;
+
+    private volatile Map<String, Object> producerConfig;
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public KafkaProducerPool(Map<String, Object> producerConfig, int poolSize, String clientIdPrefix) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Producer pool size must be positive: " + poolSize);
+        }
+
+        this.clientIdPrefix = clientIdPrefix;
+        this.producerConfig = Collections.unmodifiableMap(new HashMap<>(producerConfig));
+
+        List<ProducerShard<K, V>> shardList = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            shardList.add(new ProducerShard<>(i, createProducerFactory(this.producerConfig, i)));
+        }
+        shards = Collections.unmodifiableList(shardList);
+
+        log.info("Created kafka producer pool with {} producers", poolSize);
+    }
+
+    public CompletableFuture<SendResult<K, V>> send(String topicName, K key, V value) {
+        return send(topicName, key, value, null);
+    }
+
+    public CompletableFuture<SendResult<K, V>> send(String topicName, K key, V value, Iterable<Header> headers) {
+        return shardFor(key).send(topicName, key, value, headers);
+    }
+
+    public ProducerShard<K, V> shardFor(K key) {
+        int size = shards.size();
+        if (size == 1) {
+            return shards.get(0);
+        }
+        if (key == null) {
+            return shards.get((roundRobin.getAndIncrement() & Integer.MAX_VALUE) % size);
+        }
+        return shards.get((mix(key.hashCode()) & Integer.MAX_VALUE) % size);
+    }
+
+    public List<ProducerShard<K, V>> getShards() {
+        return shards;
+    }
+
+    public Map<String, Object> getProducerConfig() {
+        return producerConfig;
+    }
+
+    /**
+     * 현재 설정에 overrides 를 덮어쓴 새 ProducerFactory 로 모든 shard 를 교체한다.
+     * shard 를 하나씩 교체하므로 교체 중에도 나머지 shard 는 계속 보낸다.
+     */
+    public synchronized void reconfigure(Map<String, Object> overrides) {
+        if (closed.get()) {
+            return;
+        }
+        Map<String, Object> newProducerConfig = new HashMap<>(producerConfig);
+        newProducerConfig.putAll(overrides);
+        producerConfig = Collections.unmodifiableMap(newProducerConfig);
+
+        log.info("Reconfiguring kafka producer pool with {}", overrides);
+        for (ProducerShard<K, V> shard : shards) {
+            shard.swap(createProducerFactory(producerConfig, shard.getIndex()));
+        }
+    }
+
+    // 모든 shard 를 동시에 flush 하고, 가장 느린 shard 가 끝날 때까지 기다린다
+    public void flush() {
+        CompletableFuture<?>[] flushes = new CompletableFuture<?>[shards.size()];
+        for (int i = 0; i < shards.size(); i++) {
+            flushes[i] = CompletableFuture.runAsync(shards.get(i)::flush);
+        }
+        CompletableFuture.allOf(flushes).join();
+    }
+
+    public synchronized void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        log.info("Closing kafka producer pool");
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Error flushing kafka producer pool on close", e);
+        }
+        for (ProducerShard<K, V> shard : shards) {
+            shard.destroy();
+        }
+    }
+
+    public List<ProducerShardMetrics> getShardMetrics() {
+        List<ProducerShardMetrics> metrics = new ArrayList<>(shards.size());
+        for (ProducerShard<K, V> shard : shards) {
+            metrics.add(shard.metrics());
+        }
+        return metrics;
+    }
+
+    private DefaultKafkaProducerFactory<K, V> createProducerFactory(Map<String, Object> config, int shardIndex) {
+        Map<String, Object> shardConfig = new HashMap<>(config);
+        shardConfig.put(ProducerConfig.CLIENT_ID_CONFIG, clientIdPrefix + "-" + shardIndex);
+        return new DefaultKafkaProducerFactory<>(shardConfig);
+    }
+
+    // key.hashCode() 하위 비트가 치우쳐 있어도 shard 에 고르게 퍼지도록 섞는다 (murmur3 fmix32)
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+}
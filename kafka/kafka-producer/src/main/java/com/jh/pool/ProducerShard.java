@@ -0,0 +1,171 @@
+package com.jh.pool;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 풀 안의 producer 하나. KafkaTemplate 하나(= KafkaProducer, accumulator, sender 스레드 하나)를 감싼다.
+ * <p>
+ * 설정을 바꿀 때는 새 template 으로 교체(swap)한다. send 중인 스레드 수를 세어 두었다가
+ * 이전 template 을 쓰는 스레드가 모두 빠져나간 뒤에 flush 하고 ProducerFactory 까지 닫으므로
+ * 보내던 레코드는 유실되지 않고 이전 KafkaProducer 의 스레드, 소켓, buffer 도 남지 않는다.
+ * <p>
+ * 이전 producer 가 flush 를 마칠 때까지 새 template 으로의 send 는 기다린다.
+ * 그래서 교체 중에도 같은 key 의 레코드가 이전 / 새 producer 사이에서 순서가 바뀌지 않는다.
+ */
+@Slf4j
+public class ProducerShard<K, V> {
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    private static final long SWAP_WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Getter
+    private final int index;
+
+    private final AtomicReference<TemplateHandle<K, V>> current;
+
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder ackedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    ProducerShard(int index, DefaultKafkaProducerFactory<K, V> producerFactory) {
+        this.index = index;
+        TemplateHandle<K, V> handle = new TemplateHandle<>(producerFactory);
+        handle.ready = true;
+        this.current = new AtomicReference<>(handle);
+    }
+
+    public CompletableFuture<SendResult<K, V>> send(String topicName, K key, V value, Iterable<Header> headers) {
+        TemplateHandle<K, V> handle = acquire();
+        CompletableFuture<SendResult<K, V>> future;
+        try {
+            sentCount.increment();
+            future = headers == null
+                    ? handle.kafkaTemplate.send(topicName, key, value)
+                    : handle.kafkaTemplate.send(new ProducerRecord<>(topicName, null, null, key, value, headers));
+        } finally {
+            handle.inUse.decrementAndGet();
+        }
+
+        future.whenComplete((result, throwable) -> {
+            if (throwable != null) {
+                failedCount.increment();
+            } else {
+                ackedCount.increment();
+            }
+        });
+        return future;
+    }
+
+    public KafkaTemplate<K, V> getKafkaTemplate() {
+        return current.get().kafkaTemplate;
+    }
+
+    /**
+     * 새 factory 로 교체하고, 이전 template 은 사용 중인 send 가 끝난 뒤 flush 하고 factory 째 닫는다.
+     * 그동안 새 template 으로 보내려는 스레드는 기다린다.
+     */
+    public void swap(DefaultKafkaProducerFactory<K, V> newProducerFactory) {
+        TemplateHandle<K, V> old = current.getAndSet(new TemplateHandle<>(newProducerFactory));
+        try {
+            while (old.inUse.get() > 0) {
+                LockSupport.parkNanos(SWAP_WAIT_PARK_NANOS);
+            }
+            old.close();
+        } finally {
+            current.get().ready = true;
+        }
+        log.info("Swapped kafka producer of shard {}", index);
+    }
+
+    public void flush() {
+        current.get().kafkaTemplate.flush();
+    }
+
+    public void destroy() {
+        current.get().close();
+    }
+
+    public ProducerShardMetrics metrics() {
+        return new ProducerShardMetrics(
+                index,
+                sentCount.sum(),
+                ackedCount.sum(),
+                failedCount.sum(),
+                producerMetric("record-send-rate"),
+                producerMetric("request-latency-avg"),
+                producerMetric("buffer-available-bytes"));
+    }
+
+    // producer 가 아직 만들어지지 않았거나 값이 없으면 NaN
+    public double producerMetric(String name) {
+        Map<MetricName, ? extends Metric> metrics = current.get().kafkaTemplate.metrics();
+        for (Map.Entry<MetricName, ? extends Metric> entry : metrics.entrySet()) {
+            MetricName metricName = entry.getKey();
+            if (PRODUCER_METRICS_GROUP.equals(metricName.group()) && name.equals(metricName.name())) {
+                Object value = entry.getValue().metricValue();
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+
+    // 교체와 경합해도 항상 현재 handle 의 inUse 를 올린 상태로 반환한다. 교체 중이면 이전 producer 의 flush 를 기다린다
+    private TemplateHandle<K, V> acquire() {
+        while (true) {
+            TemplateHandle<K, V> handle = current.get();
+            if (!handle.ready) {
+                LockSupport.parkNanos(SWAP_WAIT_PARK_NANOS);
+                continue;
+            }
+            handle.inUse.incrementAndGet();
+            if (current.get() == handle) {
+                return handle;
+            }
+            handle.inUse.decrementAndGet();
+        }
+    }
+
+    private static final class TemplateHandle<K, V> {
+
+        private final DefaultKafkaProducerFactory<K, V> producerFactory;
+
+        private final KafkaTemplate<K, V> kafkaTemplate;
+
+        private final AtomicInteger inUse = new AtomicInteger();
+
+        private volatile boolean ready;
+
+        private TemplateHandle(DefaultKafkaProducerFactory<K, V> producerFactory) {
+            this.producerFactory = producerFactory;
+            this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        }
+
+        // KafkaTemplate.destroy 는 밖에서 받은 factory 를 닫지 않으므로 factory 를 직접 닫는다
+        private void close() {
+            try {
+                kafkaTemplate.flush();
+            } finally {
+                producerFactory.destroy();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.jh.pool;
+
+import lombok.Value;
+
+@Value
+public class ProducerShardMetrics {
+
+    int shardIndex;
+    long sentCount;
+    long ackedCount;
+    long failedCount;
+    double recordSendRate;
+    double requestLatencyAvg;
+    double bufferAvailableBytes;
+
+}
@@ -0,0 +1,70 @@
+package com.jh.serializer;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * reset() 후 내부 배열을 그대로 재사용하는 OutputStream. 스레드 하나에서만 쓴다.
+ * ByteArrayOutputStream 과 달리 synchronized 가 없고, 너무 커진 배열은 reset 시 돌려준다.
+ */
+class ReusableByteArrayOutputStream extends OutputStream {
+
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final int initialCapacity;
+
+    private byte[] buffer;
+
+    private int count;
+
+    ReusableByteArrayOutputStream(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(count + length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+    }
+
+    void writeInt(int value) {
+        ensureCapacity(count + 4);
+        buffer[count++] = (byte) (value >>> 24);
+        buffer[count++] = (byte) (value >>> 16);
+        buffer[count++] = (byte) (value >>> 8);
+        buffer[count++] = (byte) value;
+    }
+
+    void writeLongLittleEndian(long value) {
+        ensureCapacity(count + 8);
+        for (int i = 0; i < 8; i++) {
+            buffer[count++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    void reset() {
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[initialCapacity];
+        }
+        count = 0;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(minCapacity, buffer.length << 1));
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.jh.serializer;
+
+import com.jh.avro.store.LocalAvroSchemaStore;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Avro single-object encoding (0xC3 0x01, 8 byte little-endian CRC-64-AVRO fingerprint, binary body)
+ * 으로 쓰는 Serializer. schema registry 없이 로컬 스키마 저장소만으로 동작한다.
+ * <p>
+ * 생성된 클래스의 fromByteBuffer / BinaryMessageDecoder 와 바이트 단위로 호환된다.
+ * 로컬 저장소에 없는 스키마는 consumer 가 풀 수 없으므로 처음 만났을 때 바로 실패시킨다.
+ */
+public class SingleObjectAvroSerializer implements Serializer<SpecificRecord> {
+
+    private static final byte[] V1_HEADER = new byte[]{(byte) 0xC3, (byte) 0x01};
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final ThreadLocal<EncoderState> ENCODER_STATE = ThreadLocal.withInitial(EncoderState::new);
+
+    private final Map<Schema, SchemaWriter> writersBySchema = new ConcurrentHashMap<>();
+
+    private LocalAvroSchemaStore schemaStore;
+
+    public SingleObjectAvroSerializer() {
+    }
+
+    public SingleObjectAvroSerializer(LocalAvroSchemaStore schemaStore) {
+        this.schemaStore = schemaStore;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (schemaStore == null) {
+            schemaStore = LocalAvroSchemaStore.fromClasspath();
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, SpecificRecord data) {
+        if (data == null) {
+            return null;
+        }
+
+        SchemaWriter schemaWriter = writersBySchema.get(data.getSchema());
+        if (schemaWriter == null) {
+            schemaWriter = writersBySchema.computeIfAbsent(data.getSchema(), this::createSchemaWriter);
+        }
+
+        EncoderState state = ENCODER_STATE.get();
+        ReusableByteArrayOutputStream out = state.out;
+        out.reset();
+        out.write(V1_HEADER, 0, V1_HEADER.length);
+        out.writeLongLittleEndian(schemaWriter.fingerprint);
+
+        try {
+            state.encoder = EncoderFactory.get().directBinaryEncoder(out, state.encoder);
+            schemaWriter.datumWriter.write(data, state.encoder);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Error serializing avro record for topic " + topic, e);
+        }
+
+        return out.toByteArray();
+    }
+
+    private SchemaWriter createSchemaWriter(Schema schema) {
+        if (schemaStore == null) {
+            throw new SerializationException("SingleObjectAvroSerializer is not configured");
+        }
+        if (!schemaStore.contains(schema)) {
+            throw new SerializationException("Schema " + schema.getFullName() + " is not in the local schema store");
+        }
+        return new SchemaWriter(LocalAvroSchemaStore.fingerprint(schema), new SpecificDatumWriter<>(schema));
+    }
+
+    private static final class SchemaWriter {
+
+        private final long fingerprint;
+
+        private final SpecificDatumWriter<SpecificRecord> datumWriter;
+
+        private SchemaWriter(long fingerprint, SpecificDatumWriter<SpecificRecord> datumWriter) {
+            this.fingerprint = fingerprint;
+            this.datumWriter = datumWriter;
+        }
+
+    }
+
+    private static final class EncoderState {
+
+        private final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+
+        private BinaryEncoder encoder;
+
+    }
+
+}
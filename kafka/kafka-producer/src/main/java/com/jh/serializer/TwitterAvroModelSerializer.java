@@ -0,0 +1,165 @@
+package com.jh.serializer;
+
+import com.jh.avro.model.TwitterAvroModel;
+import io.confluent.kafka.schemaregistry.avro.AvroSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TwitterAvroModel 전용 Serializer. KafkaAvroSerializer 와 같은 Confluent wire format
+ * (magic byte 0, 4 byte schema id, Avro binary body)으로 쓰므로 consumer 쪽은 바꿀 필요가 없다.
+ * <p>
+ * 스키마가 고정이므로 subject 별 schema id 는 한 번만 조회해 캐시하고,
+ * BinaryEncoder 와 출력 버퍼는 스레드별로 재사용한다. 레코드당 할당은 반환하는 byte[] 하나다.
+ */
+public class TwitterAvroModelSerializer implements Serializer<TwitterAvroModel> {
+
+    public static final String SCHEMA_REGISTRY_URL_CONFIG = "schema.registry.url";
+
+    public static final String AUTO_REGISTER_SCHEMAS_CONFIG = "auto.register.schemas";
+
+    // 시작 시 schema id 를 미리 받아 둘 topic 목록 (comma separated 또는 List)
+    public static final String PRELOAD_TOPICS_CONFIG = "twitter.avro.serializer.preload.topics";
+
+    private static final byte MAGIC_BYTE = 0x0;
+
+    private static final int SCHEMA_REGISTRY_CACHE_CAPACITY = 100;
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final SpecificDatumWriter<TwitterAvroModel> DATUM_WRITER =
+            new SpecificDatumWriter<>(TwitterAvroModel.getClassSchema());
+
+    private static final ThreadLocal<EncoderState> ENCODER_STATE = ThreadLocal.withInitial(EncoderState::new);
+
+    private final AvroSchema avroSchema = new AvroSchema(TwitterAvroModel.getClassSchema());
+
+    private final Map<String, Integer> schemaIdsBySubject = new ConcurrentHashMap<>();
+
+    private SchemaRegistryClient schemaRegistryClient;
+
+    private boolean autoRegisterSchemas = true;
+
+    private boolean isKey;
+
+    public TwitterAvroModelSerializer() {
+    }
+
+    public TwitterAvroModelSerializer(SchemaRegistryClient schemaRegistryClient) {
+        this.schemaRegistryClient = schemaRegistryClient;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        this.isKey = isKey;
+
+        Object autoRegister = configs.get(AUTO_REGISTER_SCHEMAS_CONFIG);
+        if (autoRegister != null) {
+            autoRegisterSchemas = Boolean.parseBoolean(String.valueOf(autoRegister));
+        }
+
+        if (schemaRegistryClient == null) {
+            Object schemaRegistryUrl = configs.get(SCHEMA_REGISTRY_URL_CONFIG);
+            if (schemaRegistryUrl == null) {
+                throw new SerializationException("Missing " + SCHEMA_REGISTRY_URL_CONFIG + " config");
+            }
+            schemaRegistryClient = new CachedSchemaRegistryClient(
+                    String.valueOf(schemaRegistryUrl), SCHEMA_REGISTRY_CACHE_CAPACITY, configs);
+        }
+
+        for (String topic : preloadTopics(configs.get(PRELOAD_TOPICS_CONFIG))) {
+            schemaId(topic);
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, TwitterAvroModel data) {
+        if (data == null) {
+            return null;
+        }
+
+        int schemaId = schemaId(topic);
+        EncoderState state = ENCODER_STATE.get();
+        ReusableByteArrayOutputStream out = state.out;
+        out.reset();
+        out.write(MAGIC_BYTE);
+        out.writeInt(schemaId);
+
+        try {
+            state.encoder = EncoderFactory.get().directBinaryEncoder(out, state.encoder);
+            DATUM_WRITER.write(data, state.encoder);
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Error serializing TwitterAvroModel for topic " + topic, e);
+        }
+
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (schemaRegistryClient != null) {
+                schemaRegistryClient.close();
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Error closing schema registry client", e);
+        }
+    }
+
+    private int schemaId(String topic) {
+        String subject = topic + (isKey ? "-key" : "-value");
+        Integer schemaId = schemaIdsBySubject.get(subject);
+        if (schemaId != null) {
+            return schemaId;
+        }
+        return schemaIdsBySubject.computeIfAbsent(subject, this::lookupSchemaId);
+    }
+
+    private int lookupSchemaId(String subject) {
+        try {
+            return autoRegisterSchemas
+                    ? schemaRegistryClient.register(subject, avroSchema)
+                    : schemaRegistryClient.getId(subject, avroSchema);
+        } catch (IOException | RestClientException e) {
+            throw new SerializationException("Error retrieving schema id for subject " + subject, e);
+        }
+    }
+
+    private static List<String> preloadTopics(Object value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        if (value instanceof List) {
+            List<?> topics = (List<?>) value;
+            String[] names = new String[topics.size()];
+            for (int i = 0; i < topics.size(); i++) {
+                names[i] = String.valueOf(topics.get(i)).trim();
+            }
+            return Arrays.asList(names);
+        }
+        String topics = String.valueOf(value).trim();
+        return topics.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(topics.split("\\s*,\\s*"));
+    }
+
+    private static final class EncoderState {
+
+        private final ReusableByteArrayOutputStream out = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+
+        private BinaryEncoder encoder;
+
+    }
+
+}
@@ -0,0 +1,330 @@
+package com.jh.service.Impl;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.buffer.FullBufferPolicy;
+import com.jh.buffer.ProducerRingBuffer;
+import com.jh.buffer.RingBufferEvent;
+import com.jh.buffer.SpillHandler;
+import com.jh.buffer.WaitStrategy;
+import com.jh.config.RingBufferConfigData;
+import com.jh.service.KafkaProducer;
+import com.jh.service.SendCallback;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 리스너 콜백 스레드와 KafkaTemplate.send 사이에 ring buffer 를 두어,
+ * send 가 metadata 대기나 buffer.memory 부족으로 막혀도 소스 스레드가 멈추지 않게 한다.
+ * <p>
+ * consumer-threads 개의 lane 마다 ring buffer 와 보내는 스레드를 하나씩 두고, key 의 hash 로 lane 을 고른다.
+ * 같은 key 는 항상 한 스레드가 넣은 순서대로 보내므로 사용자(key) 단위 순서가 유지된다.
+ * capacity 는 lane 들이 나눠 가진다.
+ * <p>
+ * SPILL 정책은 lane 에 남은 이벤트를 먼저 spill log 로 옮기고 새 레코드를 붙인다. lane 마다 상태를 두고 CAS 로
+ * 바꿔, spill 하는 동안에는 보내는 스레드가 이벤트를 꺼내지 않게 해서 같은 key 의 순서가 ring 과 spill log 사이에서
+ * 바뀌지 않게 한다. 보내는 스레드는 이벤트를 꺼내 spill log 로 보낼지 정하는 동안만 lane 을 잡고
+ * Kafka send 는 놓은 뒤에 하므로, send 가 막혀도 spill 하는 소스 스레드는 기다리지 않는다.
+ * spill log 가 없으면 버퍼를 건너뛰고 보내면 순서가 깨지므로 BLOCK 처럼 기다린다.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "ring-buffer-config.enable", havingValue = "true")
+@Slf4j
+public class RingBufferKafkaProducer implements KafkaProducer<Long, TwitterAvroModel> {
+
+    private final RingBufferConfigData ringBufferConfigData;
+
+    private final TwitterKafkaProducer twitterKafkaProducer;
+
+    // spill-log-config.enable 이 꺼져 있으면 null
+    private final SpillHandler<Long, TwitterAvroModel> spillHandler;
+
+    private final Lane[] lanes;
+
+    private final WaitStrategy waitStrategy;
+
+    private final FullBufferPolicy fullBufferPolicy;
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder blockedCount = new LongAdder();
+    private final LongAdder droppedOldestCount = new LongAdder();
+    private final LongAdder spilledCount = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder sendErrorCount = new LongAdder();
+
+    private volatile boolean running = true;
+
+    private ExecutorService consumerExecutor;
+
+    public RingBufferKafkaProducer(RingBufferConfigData ringBufferConfigData,
+                                   TwitterKafkaProducer twitterKafkaProducer,
+                                   ObjectProvider<SpillHandler<Long, TwitterAvroModel>> spillHandlerProvider) {
+        this.ringBufferConfigData = ringBufferConfigData;
+        this.twitterKafkaProducer = twitterKafkaProducer;
+        this.spillHandler = spillHandlerProvider.getIfAvailable();
+        this.waitStrategy = WaitStrategy.valueOf(ringBufferConfigData.getWaitStrategy());
+        FullBufferPolicy policy = FullBufferPolicy.valueOf(ringBufferConfigData.getFullBufferPolicy());
+        if (policy == FullBufferPolicy.SPILL && spillHandler == null) {
+            log.warn("Full buffer policy SPILL needs spill-log-config.enable, falling back to BLOCK");
+            policy = FullBufferPolicy.BLOCK;
+        }
+        this.fullBufferPolicy = policy;
+
+        int consumerThreads = Math.max(1, ringBufferConfigData.getConsumerThreads());
+        int laneCapacity = Math.max(2, Integer.highestOneBit(ringBufferConfigData.getCapacity() / consumerThreads));
+        this.lanes = new Lane[consumerThreads];
+        for (int i = 0; i < consumerThreads; i++) {
+            lanes[i] = new Lane(laneCapacity);
+        }
+    }
+
+    @PostConstruct
+    public void startConsumers() {
+        consumerExecutor = Executors.newFixedThreadPool(lanes.length);
+        for (Lane lane : lanes) {
+            consumerExecutor.submit(() -> consume(lane));
+        }
+        log.info("Started {} ring buffer lanes with capacity {}, wait strategy {}, full buffer policy {}",
+                lanes.length, lanes[0].ringBuffer.capacity(), waitStrategy, fullBufferPolicy);
+    }
+
+    @Override
+    public void send(String topicName, Long key, TwitterAvroModel message) {
+        send(topicName, key, message, null);
+    }
+
+    @Override
+    public void send(String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers) {
+        send(topicName, key, message, headers, null);
+    }
+
+    @Override
+    public void send(String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers,
+                     SendCallback callback) {
+        Lane lane = laneFor(key);
+        ProducerRingBuffer<Long, TwitterAvroModel> ringBuffer = lane.ringBuffer;
+        if (ringBuffer.tryPublish(topicName, key, message, headers, callback)) {
+            publishedCount.increment();
+            return;
+        }
+
+        switch (fullBufferPolicy) {
+            case BLOCK:
+                blockedCount.increment();
+                int idle = 0;
+                while (!ringBuffer.tryPublish(topicName, key, message, headers, callback)) {
+                    idle = waitStrategy.idle(idle);
+                }
+                publishedCount.increment();
+                break;
+            case DROP_OLDEST:
+                RingBufferEvent<Long, TwitterAvroModel> dropped = new RingBufferEvent<>();
+                do {
+                    if (ringBuffer.tryConsume(dropped)) {
+                        droppedOldestCount.increment();
+                        complete(dropped.getCallback(), new KafkaException("Dropped from full ring buffer"));
+                        dropped.clear();
+                    }
+                } while (!ringBuffer.tryPublish(topicName, key, message, headers, callback));
+                publishedCount.increment();
+                break;
+            case SPILL:
+                spill(lane, topicName, key, message, headers, callback);
+                break;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        if (consumerExecutor == null) {
+            return;
+        }
+        consumerExecutor.shutdown();
+        try {
+            if (!consumerExecutor.awaitTermination(ringBufferConfigData.getShutdownTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                log.warn("Ring buffer consumers did not drain in time, {} events left", getBufferedCount());
+                consumerExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            consumerExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Closed ring buffer. published: {}, blocked: {}, dropped oldest: {}, spilled: {}, sent: {}, " +
+                        "send errors: {}", getPublishedCount(), getBlockedCount(), getDroppedOldestCount(),
+                getSpilledCount(), getSentCount(), getSendErrorCount());
+    }
+
+    // lane 의 남은 이벤트를 먼저 spill log 로 옮긴 뒤 새 레코드를 붙인다.
+    // 보내는 스레드가 이벤트 하나를 꺼내 넘기는 동안이나 다른 소스 스레드가 spill 하는 동안만 기다린다
+    private void spill(Lane lane, String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers,
+                       SendCallback callback) {
+        int idle = 0;
+        while (!lane.state.compareAndSet(Lane.IDLE, Lane.SPILLING)) {
+            idle = waitStrategy.idle(idle);
+        }
+        try {
+            RingBufferEvent<Long, TwitterAvroModel> event = new RingBufferEvent<>();
+            while (lane.ringBuffer.tryConsume(event)) {
+                spill(event.getTopicName(), event.getKey(), event.getValue(), event.getHeaders(), event.getCallback());
+                event.clear();
+            }
+            spill(topicName, key, message, headers, callback);
+        } finally {
+            lane.state.set(Lane.IDLE);
+        }
+    }
+
+    private void spill(String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers,
+                       SendCallback callback) {
+        spilledCount.increment();
+        boolean spilled = spillHandler.spill(topicName, key, message, headers);
+        complete(callback, spilled ? null : new KafkaException("Record was not stored in the spill log"));
+    }
+
+    private void consume(Lane lane) {
+        RingBufferEvent<Long, TwitterAvroModel> event = new RingBufferEvent<>();
+        int idle = 0;
+        // 종료 시에는 남은 이벤트를 모두 보내고 끝낸다
+        while (running || !lane.ringBuffer.isEmpty()) {
+            // SPILL 정책이 lane 을 비우는 동안에는 꺼내지 않는다
+            if (lane.state.compareAndSet(Lane.IDLE, Lane.CONSUMING)) {
+                boolean taken;
+                boolean direct;
+                try {
+                    taken = lane.ringBuffer.tryConsume(event);
+                    // spill 중이면 꺼낸 이벤트도 spill log 뒤에 붙인다 (디스크 쓰기라 막히지 않는다)
+                    direct = taken && !spillEvent(event);
+                } finally {
+                    lane.state.set(Lane.IDLE);
+                }
+                if (taken) {
+                    idle = 0;
+                    if (direct) {
+                        sendEvent(event);
+                    }
+                    continue;
+                }
+            }
+            idle = waitStrategy.idle(idle);
+        }
+    }
+
+    private boolean spillEvent(RingBufferEvent<Long, TwitterAvroModel> event) {
+        try {
+            if (!twitterKafkaProducer.trySpill(event.getTopicName(), event.getKey(), event.getValue(),
+                    event.getHeaders(), event.getCallback())) {
+                return false;
+            }
+            sentCount.increment();
+        } catch (RuntimeException e) {
+            sendErrorCount.increment();
+            log.error("Error spilling event from ring buffer. Topic: {}, Key: {}",
+                    event.getTopicName(), event.getKey(), e);
+            complete(event.getCallback(), e);
+        }
+        event.clear();
+        return true;
+    }
+
+    // lane 을 놓은 뒤에 부른다. 여기서 막혀도 spill 하는 소스 스레드는 기다리지 않는다
+    private void sendEvent(RingBufferEvent<Long, TwitterAvroModel> event) {
+        try {
+            twitterKafkaProducer.sendToKafka(event.getTopicName(), event.getKey(), event.getValue(),
+                    event.getHeaders(), event.getCallback());
+            sentCount.increment();
+        } catch (RuntimeException e) {
+            sendErrorCount.increment();
+            log.error("Error sending event from ring buffer. Topic: {}, Key: {}",
+                    event.getTopicName(), event.getKey(), e);
+            complete(event.getCallback(), e);
+        } finally {
+            event.clear();
+        }
+    }
+
+    private static void complete(SendCallback callback, Throwable exception) {
+        if (callback == null) {
+            return;
+        }
+        try {
+            callback.onCompletion(exception);
+        } catch (RuntimeException e) {
+            log.error("Error in send callback", e);
+        }
+    }
+
+    // key 가 없는 레코드는 순서를 지킬 필요가 없어 첫 lane 으로 보낸다
+    private Lane laneFor(Long key) {
+        if (key == null || lanes.length == 1) {
+            return lanes[0];
+        }
+        return lanes[Math.floorMod(Long.hashCode(key) * 0x9E3779B9, lanes.length)];
+    }
+
+    public long getBufferedCount() {
+        long buffered = 0;
+        for (Lane lane : lanes) {
+            buffered += lane.ringBuffer.size();
+        }
+        return buffered;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.sum();
+    }
+
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    public long getDroppedOldestCount() {
+        return droppedOldestCount.sum();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.sum();
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    public long getSendErrorCount() {
+        return sendErrorCount.sum();
+    }
+
+    private static final class Lane {
+
+        private static final int IDLE = 0;
+
+        // 보내는 스레드가 이벤트를 꺼내 spill log 로 보낼지 정하는 중
+        private static final int CONSUMING = 1;
+
+        // 소스 스레드가 lane 을 spill log 로 옮기는 중
+        private static final int SPILLING = 2;
+
+        private final ProducerRingBuffer<Long, TwitterAvroModel> ringBuffer;
+
+        private final AtomicInteger state = new AtomicInteger(IDLE);
+
+        private Lane(int capacity) {
+            this.ringBuffer = new ProducerRingBuffer<>(capacity);
+        }
+
+    }
+
+}
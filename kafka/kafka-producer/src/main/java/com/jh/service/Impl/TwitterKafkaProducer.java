@@ -1,12 +1,17 @@
 package com.jh.service.Impl;
 
+import com.jh.pool.KafkaProducerPool;
 import com.jh.service.KafkaProducer;
+import com.jh.service.SendCallback;
 import com.jh.avro.model.TwitterAvroModel;
+import com.jh.compression.CompressionCalibrator;
+import com.jh.spill.KafkaSpillManager;
 import jakarta.annotation.PreDestroy;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.RecordMetadata;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
@@ -14,37 +19,116 @@ import java.time.Instant;
 import java.util.concurrent.CompletableFuture;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class TwitterKafkaProducer implements KafkaProducer<Long, TwitterAvroModel> {
 
-    private KafkaTemplate<Long, TwitterAvroModel> kafkaTemplate;
+    private final KafkaProducerPool<Long, TwitterAvroModel> kafkaProducerPool;
+
+    // spill-log-config.enable 이 꺼져 있으면 null
+    private final KafkaSpillManager kafkaSpillManager;
+
+    // compression-calibration-config.enable 이 꺼져 있으면 null
+    private final CompressionCalibrator compressionCalibrator;
+
+    public TwitterKafkaProducer(KafkaProducerPool<Long, TwitterAvroModel> kafkaProducerPool,
+                                ObjectProvider<KafkaSpillManager> kafkaSpillManagerProvider,
+                                ObjectProvider<CompressionCalibrator> compressionCalibratorProvider) {
+        this.kafkaProducerPool = kafkaProducerPool;
+        this.kafkaSpillManager = kafkaSpillManagerProvider.getIfAvailable();
+        this.compressionCalibrator = compressionCalibratorProvider.getIfAvailable();
+    }
 
     @Override
     public void send(String topicName, Long key, TwitterAvroModel message) {
-        log.info("Sending message to Kafka. Topic: {}, Key: {}, Message: {}", topicName, key, message);
+        send(topicName, key, message, null);
+    }
+
+    @Override
+    public void send(String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers) {
+        send(topicName, key, message, headers, null);
+    }
+
+    @Override
+    public void send(String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers,
+                     SendCallback callback) {
+        if (!trySpill(topicName, key, message, headers, callback)) {
+            sendToKafka(topicName, key, message, headers, callback);
+        }
+    }
+
+    /**
+     * broker 장애나 buffer 포화 중이면 spill log 에 넣고 true. 회복되면 spill log 가 순서대로 다시 보낸다.
+     * spill 중이 아니면 아무것도 하지 않고 false.
+     */
+    boolean trySpill(String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers,
+                     SendCallback callback) {
+        if (kafkaSpillManager == null || !kafkaSpillManager.isActive()) {
+            return false;
+        }
+        completeSpill(callback, kafkaSpillManager.spill(topicName, key, message, headers));
+        return true;
+    }
+
+    // spill 여부를 보지 않고 producer pool 로 보낸다. metadata 대기나 buffer.memory 부족이면 max.block.ms 까지 막힌다
+    void sendToKafka(String topicName, Long key, TwitterAvroModel message, Iterable<Header> headers,
+                     SendCallback callback) {
+        log.debug("Sending message to Kafka. Topic: {}, Key: {}, Message: {}", topicName, key, message);
+
+        if (compressionCalibrator != null) {
+            compressionCalibrator.sample(message);
+        }
 
         CompletableFuture<SendResult<Long, TwitterAvroModel>> kafkaResultFuture =
-                kafkaTemplate.send(topicName, key, message);
+                kafkaProducerPool.send(topicName, key, message, headers);
 
         kafkaResultFuture.whenComplete((result, throwable) -> {
             if (throwable != null) {
                 log.error("Failed to send message to Kafka. Topic: {}, Key: {}, Message: {}, Error: {}",
                         topicName, key, message, throwable.getMessage(), throwable);
+                // 다시 보내도 실패할 레코드(RecordTooLargeException 등)는 spill 하지 않는다
+                if (kafkaSpillManager != null && KafkaSpillManager.isRetriable(throwable)) {
+                    kafkaSpillManager.onSendFailure();
+                    completeSpill(callback, kafkaSpillManager.spill(topicName, key, message, headers));
+                    return;
+                }
+                if (kafkaSpillManager != null) {
+                    kafkaSpillManager.onNonRetriableFailure();
+                }
+                complete(callback, throwable);
             } else {
-                RecordMetadata metadata = result.getRecordMetadata();
-                log.info("Message sent successfully. Topic: {}, Partition: {}, Offset: {}, Timestamp: {}, SentAt: {}",
-                        metadata.topic(), metadata.partition(), metadata.offset(), metadata.timestamp(), Instant.now());
+                complete(callback, null);
+                if (kafkaSpillManager != null) {
+                    kafkaSpillManager.onSendSuccess();
+                }
+                if (log.isDebugEnabled()) {
+                    RecordMetadata metadata = result.getRecordMetadata();
+                    log.debug("Message sent successfully. Topic: {}, Partition: {}, Offset: {}, Timestamp: {}, SentAt: {}",
+                            metadata.topic(), metadata.partition(), metadata.offset(), metadata.timestamp(), Instant.now());
+                }
             }
         });
     }
 
+    // spill log 에 남긴 레코드는 재시작해도 다시 보내지므로 성공으로 알린다
+    private static void completeSpill(SendCallback callback, boolean spilled) {
+        complete(callback, spilled ? null : new KafkaException("Record was not stored in the spill log"));
+    }
+
+    private static void complete(SendCallback callback, Throwable exception) {
+        if (callback == null) {
+            return;
+        }
+        try {
+            callback.onCompletion(exception);
+        } catch (RuntimeException e) {
+            log.error("Error in send callback", e);
+        }
+    }
+
     @PreDestroy
     public void close() {
-        if (kafkaTemplate != null) {
-            log.info("Closing kafka producer");
-            kafkaTemplate.destroy();
-        }
+        log.info("Closing kafka producer");
+        kafkaProducerPool.close();
     }
 
 }
@@ -1,6 +1,7 @@
 package com.jh.service;
 
 import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.header.Header;
 
 import java.io.Serializable;
 
@@ -8,4 +9,10 @@ public interface KafkaProducer<K extends Serializable, V extends SpecificRecordB
 
     void send(String topicName, K key, V value);
 
+    // headers 가 null 이면 header 없이 보낸다
+    void send(String topicName, K key, V value, Iterable<Header> headers);
+
+    // callback 은 ack, spill log 저장 또는 실패 때 한 번 불린다. null 이면 결과를 알리지 않는다
+    void send(String topicName, K key, V value, Iterable<Header> headers, SendCallback callback);
+
 }
@@ -0,0 +1,11 @@
+package com.jh.service;
+
+/**
+ * 레코드 하나의 전송 결과. broker 가 ack 했거나 spill log 에 남겨 유실되지 않게 되면 exception 이 null 이다.
+ */
+@FunctionalInterface
+public interface SendCallback {
+
+    void onCompletion(Throwable exception);
+
+}
@@ -0,0 +1,353 @@
+package com.jh.spill;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.buffer.SpillHandler;
+import com.jh.config.SpillLogConfigData;
+import com.jh.pool.KafkaProducerPool;
+import com.jh.pool.ProducerShard;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kafka 에 보낼 수 없을 때 레코드를 로컬 SpillLog 에 쌓았다가 회복되면 순서대로 다시 보낸다.
+ * <p>
+ * 보내기 실패가 성공보다 최근이면 unhealthy, producer buffer-available-bytes 가 buffer.memory 의
+ * buffer-available-low-ratio 아래로 떨어지면 saturated 로 본다. 둘 중 하나면 spill 모드로 들어가고,
+ * spill 모드 동안에는 새 레코드도 log 뒤에 붙여 순서를 지킨다.
+ * drain 스레드가 batch 단위로 보내고 모든 ack 를 받은 뒤에 읽기 위치를 commit 하며,
+ * log 가 비면 spill 모드를 끝낸다. ring buffer 의 SPILL 정책도 이 log 로 넘긴다.
+ * <p>
+ * 다시 보내서 성공할 수 있는 실패(RetriableException, timeout 과 buffer 고갈 포함)만 spill 한다.
+ * RecordTooLargeException, SerializationException 같은 실패는 몇 번을 보내도 같으므로 log 를 남기고 버린다.
+ * drain 중에 이런 레코드를 만나도 건너뛰고 나머지를 commit 해 log 앞에서 막히지 않게 한다.
+ * <p>
+ * value 는 TwitterAvroModel 의 single-object encoding(toByteBuffer)으로 저장해 registry 없이 되살린다.
+ */
+@Component
+@ConditionalOnProperty(name = "spill-log-config.enable", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaSpillManager implements SpillHandler<Long, TwitterAvroModel> {
+
+    private static final long DEFAULT_BUFFER_MEMORY = 32 * 1024 * 1024L;
+
+    private final SpillLogConfigData spillLogConfigData;
+
+    private final KafkaProducerPool<Long, TwitterAvroModel> kafkaProducerPool;
+
+    private final LongAdder spilledCount = new LongAdder();
+    private final LongAdder drainedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+
+    private volatile boolean spilling;
+
+    private volatile boolean saturated;
+
+    private volatile long lastSuccessNanos = System.nanoTime();
+
+    private volatile long lastFailureNanos = lastSuccessNanos - 1;
+
+    private volatile double drainRatePerSecond;
+
+    private SpillLog spillLog;
+
+    private ScheduledExecutorService drainExecutor;
+
+    @PostConstruct
+    public void init() {
+        spillLog = new SpillLog(Paths.get(spillLogConfigData.getDirectory()),
+                spillLogConfigData.getSegmentSizeBytes(), spillLogConfigData.getMaxDiskBytes());
+        // 이전 실행에서 남은 레코드가 있으면 새 레코드보다 먼저 보낸다
+        spilling = !spillLog.isEmpty();
+
+        long drainIntervalMs = spillLogConfigData.getDrainIntervalMs();
+        long reportIntervalMs = spillLogConfigData.getReportIntervalMs();
+        drainExecutor = Executors.newScheduledThreadPool(2);
+        drainExecutor.scheduleWithFixedDelay(this::drain, drainIntervalMs, drainIntervalMs, TimeUnit.MILLISECONDS);
+        drainExecutor.scheduleAtFixedRate(new Runnable() {
+            private long lastDrained;
+
+            @Override
+            public void run() {
+                long drained = drainedCount.sum();
+                drainRatePerSecond = (drained - lastDrained) * 1000.0 / reportIntervalMs;
+                lastDrained = drained;
+                if (spilling) {
+                    log.info("Spill log depth: {} records, {} bytes, drain rate {} records/sec, spilled: {}, " +
+                                    "rejected: {}, skipped: {}, corrupted: {}", getSpillDepth(), getSpillBytes(),
+                            String.format("%.1f", drainRatePerSecond), getSpilledCount(), getRejectedCount(),
+                            getSkippedCount(), spillLog.getCorruptedEntries());
+                }
+            }
+        }, reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
+
+        log.info("Opened spill log in {} with {} pending records", spillLogConfigData.getDirectory(), getSpillDepth());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (drainExecutor != null) {
+            drainExecutor.shutdownNow();
+            try {
+                drainExecutor.awaitTermination(spillLogConfigData.getDrainTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (spillLog != null) {
+            log.info("Closing spill log with {} pending records", spillLog.getPendingEntries());
+            spillLog.close();
+        }
+    }
+
+    /**
+     * spill 모드이면 true. 호출자는 새 레코드도 바로 보내지 않고 spill() 로 log 뒤에 붙여야 한다.
+     */
+    public boolean isActive() {
+        return spilling || saturated || !isHealthy();
+    }
+
+    @Override
+    public boolean spill(String topicName, Long key, TwitterAvroModel value, Iterable<Header> headers) {
+        spilling = true;
+        SpillRecord record;
+        try {
+            record = new SpillRecord(topicName, encodeKey(key), toBytes(value.toByteBuffer()), toList(headers));
+        } catch (IOException e) {
+            rejectedCount.increment();
+            log.error("Error encoding record for spill log. Topic: {}, Key: {}", topicName, key, e);
+            return false;
+        }
+        if (spillLog.append(record)) {
+            spilledCount.increment();
+            return true;
+        }
+        rejectedCount.increment();
+        log.error("Spill log is full ({} bytes), dropping record. Topic: {}, Key: {}",
+                spillLog.getDiskBytes(), topicName, key);
+        return false;
+    }
+
+    public void onSendSuccess() {
+        lastSuccessNanos = System.nanoTime();
+    }
+
+    public void onSendFailure() {
+        lastFailureNanos = System.nanoTime();
+    }
+
+    // 다시 보내도 실패할 레코드를 버렸을 때
+    public void onNonRetriableFailure() {
+        skippedCount.increment();
+    }
+
+    /**
+     * 다시 보내면 성공할 수 있는 실패인지. spring 의 KafkaProducerException 등으로 감싸져 있어도 원인을 따라간다.
+     */
+    public static boolean isRetriable(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    public boolean isHealthy() {
+        return lastSuccessNanos - lastFailureNanos > 0;
+    }
+
+    public boolean isSpilling() {
+        return spilling;
+    }
+
+    public long getSpillDepth() {
+        return spillLog.getPendingEntries();
+    }
+
+    public long getSpillBytes() {
+        return spillLog.getPendingBytes();
+    }
+
+    public double getDrainRatePerSecond() {
+        return drainRatePerSecond;
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.sum();
+    }
+
+    public long getDrainedCount() {
+        return drainedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    // drain 스레드. batch 를 보내고 모두 ack 되면 commit, 하나라도 retriable 하게 실패하면 다음 주기에 같은 batch 부터 다시 보낸다
+    private void drain() {
+        try {
+            saturated = checkSaturated();
+            spillLog.force();
+            if (!spilling && spillLog.isEmpty()) {
+                return;
+            }
+            spilling = true;
+
+            while (!saturated && !Thread.currentThread().isInterrupted()) {
+                List<SpillRecord> batch = spillLog.read(spillLogConfigData.getDrainBatchSize());
+                if (batch.isEmpty()) {
+                    finishSpilling();
+                    return;
+                }
+                if (!sendBatch(batch)) {
+                    return;
+                }
+                spillLog.commit();
+                drainedCount.add(batch.size());
+                saturated = checkSaturated();
+            }
+        } catch (RuntimeException e) {
+            log.error("Error draining spill log", e);
+        }
+    }
+
+    // 다시 보내도 실패할 레코드는 건너뛴다. 그 밖의 실패나 timeout 이 하나라도 있으면 false
+    private boolean sendBatch(List<SpillRecord> batch) {
+        List<SpillRecord> sentRecords = new ArrayList<>(batch.size());
+        List<CompletableFuture<SendResult<Long, TwitterAvroModel>>> futures = new ArrayList<>(batch.size());
+        for (SpillRecord record : batch) {
+            TwitterAvroModel value = decodeValue(record.getValue());
+            if (value == null) {
+                continue;
+            }
+            sentRecords.add(record);
+            futures.add(kafkaProducerPool.send(record.getTopicName(), decodeKey(record.getKey()), value,
+                    record.getHeaders()));
+        }
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(spillLogConfigData.getDrainTimeoutMs());
+        Throwable retriableFailure = null;
+        try {
+            for (int i = 0; i < futures.size() && retriableFailure == null; i++) {
+                try {
+                    futures.get(i).get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    if (isRetriable(e.getCause())) {
+                        retriableFailure = e.getCause();
+                    } else {
+                        SpillRecord record = sentRecords.get(i);
+                        onNonRetriableFailure();
+                        log.error("Skipping spilled record that Kafka can not accept. Topic: {}, Key: {}",
+                                record.getTopicName(), decodeKey(record.getKey()), e.getCause());
+                    }
+                } catch (TimeoutException e) {
+                    retriableFailure = e;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        if (retriableFailure != null) {
+            onSendFailure();
+            log.warn("Kafka is still unavailable, keeping {} records in spill log: {}", getSpillDepth(),
+                    retriableFailure.toString());
+            return false;
+        }
+        onSendSuccess();
+        return true;
+    }
+
+    // log 가 빈 것을 확인하고 spill 모드를 끄는 사이에 들어온 레코드는 다음 주기에 drain 된다
+    private void finishSpilling() {
+        if (spillLog.isEmpty() && isHealthy()) {
+            spilling = false;
+            if (!spillLog.isEmpty()) {
+                spilling = true;
+            } else {
+                log.info("Spill log drained, resuming direct sends");
+            }
+        }
+    }
+
+    private boolean checkSaturated() {
+        Object bufferMemoryConfig = kafkaProducerPool.getProducerConfig().get(ProducerConfig.BUFFER_MEMORY_CONFIG);
+        double bufferMemory = bufferMemoryConfig == null
+                ? DEFAULT_BUFFER_MEMORY : Double.parseDouble(bufferMemoryConfig.toString());
+        for (ProducerShard<Long, TwitterAvroModel> shard : kafkaProducerPool.getShards()) {
+            double available = shard.producerMetric("buffer-available-bytes");
+            if (!Double.isNaN(available)
+                    && available / bufferMemory < spillLogConfigData.getBufferAvailableLowRatio()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TwitterAvroModel decodeValue(byte[] value) {
+        try {
+            return TwitterAvroModel.fromByteBuffer(ByteBuffer.wrap(value));
+        } catch (IOException | RuntimeException e) {
+            log.error("Skipping spilled record that can not be decoded", e);
+            return null;
+        }
+    }
+
+    private static byte[] encodeKey(Long key) {
+        return key == null ? null : ByteBuffer.allocate(Long.BYTES).putLong(key).array();
+    }
+
+    private static Long decodeKey(byte[] key) {
+        return key == null ? null : ByteBuffer.wrap(key).getLong();
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static List<Header> toList(Iterable<Header> headers) {
+        if (headers == null) {
+            return null;
+        }
+        List<Header> list = new ArrayList<>();
+        for (Header header : headers) {
+            list.add(header);
+        }
+        return list;
+    }
+
+}
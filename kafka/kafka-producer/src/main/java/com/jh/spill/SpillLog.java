@@ -0,0 +1,544 @@
+package com.jh.spill;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 디스크에 남기는 append-only spill log. 고정 크기 segment 파일을 mmap 해서 쓴다.
+ * <p>
+ * entry 형식: [length int][crc32 int][payload]
+ * payload   : [topic][key][header count short][headers...][value], 문자열 / 바이트 배열은 길이 접두
+ * <p>
+ * segment 끝은 length 0 으로 표시한다. 재시작하면 segment 를 처음부터 훑어 crc 가 맞는 데까지를
+ * 유효한 entry 로 보고, 깨진 꼬리(쓰다 죽은 entry)는 그 자리부터 덮어쓴다.
+ * read 할 때도 crc 를 다시 확인해, 그 사이 깨진 entry 는 보내지 않고 건너뛴다.
+ * 읽기 위치는 cursor 파일에 남기고, 다 읽은 segment 는 unmap 한 뒤 지운다.
+ * segment 를 봉인할 때 그 segment 를 디스크로 내리고, force() 는 그 뒤에 쓴 segment 들을 내린다.
+ * 디스크 사용량은 segment 수 x segment 크기로 제한하며 넘으면 append 가 false 를 반환한다.
+ * 스레드 안전하다 (모든 public 메서드가 synchronized).
+ */
+@Slf4j
+public class SpillLog {
+
+    private static final String SEGMENT_SUFFIX = ".spill";
+
+    private static final String CURSOR_FILE_NAME = "cursor";
+
+    private static final int ENTRY_HEADER_SIZE = Integer.BYTES * 2;
+
+    private static final int END_OF_SEGMENT = 0;
+
+    // JDK 9+ 의 Unsafe.invokeCleaner. 없으면 mapping 은 GC 가 buffer 를 거둘 때 풀린다
+    private static final Object UNSAFE;
+
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            unsafe = field.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final Path directory;
+
+    private final int segmentSizeBytes;
+
+    private final long maxDiskBytes;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private final CRC32 crc32 = new CRC32();
+
+    // segment id 는 지운 뒤에도 재사용하지 않는다 (cursor 가 이전 id 를 가리키고 있을 수 있다)
+    private long nextSegmentId;
+
+    // 아직 drain 되지 않은 entry 수와 바이트
+    private long pendingEntries;
+
+    private long pendingBytes;
+
+    // 읽기 위치 (commit 된 위치)
+    private int readOffset;
+
+    // read() 로 넘겨 주었지만 아직 commit 되지 않은 위치
+    private long uncommittedSegmentId = -1;
+
+    private int uncommittedOffset;
+
+    private int uncommittedEntries;
+
+    private int uncommittedBytes;
+
+    private int uncommittedCorrupted;
+
+    private long corruptedEntries;
+
+    private boolean closed;
+
+    public SpillLog(Path directory, int segmentSizeBytes, long maxDiskBytes) {
+        if (segmentSizeBytes <= ENTRY_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size is too small: " + segmentSizeBytes);
+        }
+        if (maxDiskBytes < segmentSizeBytes) {
+            throw new IllegalArgumentException("Disk budget " + maxDiskBytes + " is smaller than a segment");
+        }
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening spill log in " + directory, e);
+        }
+    }
+
+    /**
+     * 레코드를 끝에 붙인다. 디스크 예산을 넘거나 segment 보다 큰 레코드면 false.
+     */
+    public synchronized boolean append(SpillRecord record) {
+        if (closed) {
+            return false;
+        }
+        byte[] payload = encode(record);
+        int entrySize = ENTRY_HEADER_SIZE + payload.length;
+        // 끝 표시(length 0)를 쓸 자리를 항상 남겨 둔다
+        if (entrySize + Integer.BYTES > segmentSizeBytes) {
+            log.error("Spill record of {} bytes does not fit in a {} byte segment", entrySize, segmentSizeBytes);
+            return false;
+        }
+
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.writePosition + entrySize + Integer.BYTES > segmentSizeBytes) {
+            if ((long) (segments.size() + 1) * segmentSizeBytes > maxDiskBytes) {
+                return false;
+            }
+            if (segment != null) {
+                segment.buffer.putInt(segment.writePosition, END_OF_SEGMENT);
+                segment.sealed = true;
+                // 다음 force() 는 마지막 segment 만 보므로 봉인할 때 내려 둔다
+                segment.buffer.force();
+                segment.dirty = false;
+            }
+            segment = createSegment(nextSegmentId++);
+        }
+
+        crc32.reset();
+        crc32.update(payload, 0, payload.length);
+        ByteBuffer buffer = segment.buffer;
+        int position = segment.writePosition;
+        buffer.putInt(position + Integer.BYTES, (int) crc32.getValue());
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + ENTRY_HEADER_SIZE);
+        target.put(payload);
+        // 다음 entry 자리를 비워 두고 length 를 마지막에 써서, 쓰다 죽으면 여기서 끝난 것으로 보이게 한다
+        if (position + entrySize + Integer.BYTES <= segmentSizeBytes) {
+            buffer.putInt(position + entrySize, END_OF_SEGMENT);
+        }
+        buffer.putInt(position, payload.length);
+        segment.writePosition = position + entrySize;
+        segment.pendingEntries++;
+        segment.dirty = true;
+
+        pendingEntries++;
+        pendingBytes += entrySize;
+        return true;
+    }
+
+    /**
+     * 읽기 위치부터 최대 maxRecords 개를 읽는다. 위치는 commit() 해야 앞으로 간다.
+     * commit 전에 다시 부르면 같은 레코드를 다시 돌려준다.
+     * crc 가 맞지 않는 entry 는 돌려주지 않고 건너뛰며, length 가 깨졌으면 segment 의 나머지를 건너뛴다.
+     */
+    public synchronized List<SpillRecord> read(int maxRecords) {
+        List<SpillRecord> records = new ArrayList<>();
+        uncommittedEntries = 0;
+        uncommittedBytes = 0;
+        uncommittedCorrupted = 0;
+        skipDrainedSegments();
+        Segment segment = segments.peekFirst();
+        if (segment == null) {
+            return records;
+        }
+
+        int offset = readOffset;
+        ByteBuffer source = segment.buffer.duplicate();
+        while (records.size() < maxRecords && offset < segment.writePosition) {
+            int length = segment.buffer.getInt(offset);
+            if (length <= END_OF_SEGMENT || offset + ENTRY_HEADER_SIZE + length > segment.writePosition) {
+                log.error("Spill log segment {} has a corrupt entry length at offset {}, skipping {} entries",
+                        segment.id, offset, segment.pendingEntries - uncommittedEntries);
+                uncommittedCorrupted += segment.pendingEntries - uncommittedEntries;
+                uncommittedEntries = segment.pendingEntries;
+                uncommittedBytes += segment.writePosition - offset;
+                offset = segment.writePosition;
+                break;
+            }
+            byte[] payload = new byte[length];
+            source.position(offset + ENTRY_HEADER_SIZE);
+            source.get(payload);
+            crc32.reset();
+            crc32.update(payload, 0, length);
+            if ((int) crc32.getValue() == segment.buffer.getInt(offset + Integer.BYTES)) {
+                records.add(decode(payload));
+            } else {
+                log.error("Spill log segment {} has a corrupt entry at offset {}, skipping it", segment.id, offset);
+                uncommittedCorrupted++;
+            }
+            offset += ENTRY_HEADER_SIZE + length;
+            uncommittedEntries++;
+            uncommittedBytes += ENTRY_HEADER_SIZE + length;
+        }
+
+        uncommittedSegmentId = segment.id;
+        uncommittedOffset = offset;
+        return records;
+    }
+
+    /**
+     * 마지막 read() 로 읽은 레코드까지 읽기 위치를 옮기고, 다 읽은 segment 는 지운다.
+     */
+    public synchronized void commit() {
+        Segment segment = segments.peekFirst();
+        if (segment == null || segment.id != uncommittedSegmentId) {
+            return;
+        }
+        readOffset = uncommittedOffset;
+        segment.pendingEntries -= uncommittedEntries;
+        pendingEntries -= uncommittedEntries;
+        pendingBytes -= uncommittedBytes;
+        corruptedEntries += uncommittedCorrupted;
+        uncommittedEntries = 0;
+        uncommittedBytes = 0;
+        uncommittedCorrupted = 0;
+
+        skipDrainedSegments();
+        segment = segments.peekFirst();
+        writeCursor(segment == null ? nextSegmentId : segment.id, readOffset);
+    }
+
+    public synchronized boolean isEmpty() {
+        return pendingEntries == 0;
+    }
+
+    public synchronized long getPendingEntries() {
+        return pendingEntries;
+    }
+
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    // read 에서 crc 가 맞지 않아 버린 entry 수
+    public synchronized long getCorruptedEntries() {
+        return corruptedEntries;
+    }
+
+    public synchronized long getDiskBytes() {
+        return (long) segments.size() * segmentSizeBytes;
+    }
+
+    // 마지막 force 뒤에 쓴 segment 를 모두 디스크로 내린다
+    public synchronized void force() {
+        if (closed) {
+            return;
+        }
+        for (Segment segment : segments) {
+            if (segment.dirty) {
+                segment.buffer.force();
+                segment.dirty = false;
+            }
+        }
+    }
+
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            closeQuietly(segment.channel);
+            unmap(segment.buffer);
+        }
+        segments.clear();
+    }
+
+    // 봉인된 segment 를 끝까지 읽었으면 지우고 다음 segment 처음으로 간다
+    private void skipDrainedSegments() {
+        Segment segment = segments.peekFirst();
+        while (segment != null && segment.sealed && readOffset >= segment.writePosition) {
+            segments.pollFirst();
+            deleteSegment(segment);
+            readOffset = 0;
+            segment = segments.peekFirst();
+        }
+    }
+
+    private void recover() throws IOException {
+        long cursorSegmentId = 0;
+        int cursorOffset = 0;
+        Path cursorPath = directory.resolve(CURSOR_FILE_NAME);
+        if (Files.exists(cursorPath)) {
+            ByteBuffer cursor = ByteBuffer.wrap(Files.readAllBytes(cursorPath));
+            if (cursor.remaining() >= Long.BYTES + Integer.BYTES) {
+                cursorSegmentId = cursor.getLong();
+                cursorOffset = cursor.getInt();
+            }
+        }
+
+        List<Path> segmentPaths = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : paths) {
+                segmentPaths.add(path);
+            }
+        }
+        Collections.sort(segmentPaths);
+
+        for (Path path : segmentPaths) {
+            long id = Long.parseLong(path.getFileName().toString().replace(SEGMENT_SUFFIX, ""));
+            if (id < cursorSegmentId) {
+                Files.deleteIfExists(path);
+                continue;
+            }
+            Segment segment = openSegment(id, path);
+            int start = id == cursorSegmentId ? cursorOffset : 0;
+            scan(segment, start);
+            segments.addLast(segment);
+        }
+
+        // 마지막 segment 만 이어 쓰고 나머지는 봉인된 것으로 본다
+        Segment last = segments.peekLast();
+        for (Segment segment : segments) {
+            segment.sealed = segment != last;
+        }
+        Segment first = segments.peekFirst();
+        readOffset = first != null && first.id == cursorSegmentId ? cursorOffset : 0;
+        nextSegmentId = last == null ? cursorSegmentId : Math.max(cursorSegmentId, last.id + 1);
+
+        if (pendingEntries > 0) {
+            log.info("Recovered spill log in {} with {} entries ({} bytes) in {} segments",
+                    directory, pendingEntries, pendingBytes, segments.size());
+        }
+    }
+
+    // crc 가 맞는 마지막 entry 뒤를 쓰기 위치로 잡는다
+    private void scan(Segment segment, int start) {
+        ByteBuffer buffer = segment.buffer;
+        ByteBuffer source = buffer.duplicate();
+        byte[] scanBuffer = new byte[0];
+        int offset = start;
+        while (offset + ENTRY_HEADER_SIZE <= segmentSizeBytes) {
+            int length = buffer.getInt(offset);
+            if (length <= END_OF_SEGMENT || offset + ENTRY_HEADER_SIZE + length > segmentSizeBytes) {
+                break;
+            }
+            if (scanBuffer.length < length) {
+                scanBuffer = new byte[length];
+            }
+            source.position(offset + ENTRY_HEADER_SIZE);
+            source.get(scanBuffer, 0, length);
+            crc32.reset();
+            crc32.update(scanBuffer, 0, length);
+            if ((int) crc32.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+                log.warn("Spill log segment {} has a corrupt entry at offset {}, truncating", segment.id, offset);
+                buffer.putInt(offset, END_OF_SEGMENT);
+                break;
+            }
+            offset += ENTRY_HEADER_SIZE + length;
+            segment.pendingEntries++;
+            pendingEntries++;
+            pendingBytes += ENTRY_HEADER_SIZE + length;
+        }
+        segment.writePosition = offset;
+    }
+
+    private Segment createSegment(long id) {
+        Path path = directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+        try {
+            Segment segment = openSegment(id, path);
+            segment.buffer.putInt(0, END_OF_SEGMENT);
+            segments.addLast(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error creating spill log segment " + path, e);
+        }
+    }
+
+    private Segment openSegment(long id, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeBytes);
+        return new Segment(id, path, channel, buffer);
+    }
+
+    private void deleteSegment(Segment segment) {
+        closeQuietly(segment.channel);
+        unmap(segment.buffer);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("Error deleting drained spill log segment {}", segment.path, e);
+        }
+    }
+
+    private void writeCursor(long segmentId, int offset) {
+        ByteBuffer cursor = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        cursor.putLong(segmentId).putInt(offset);
+        Path cursorPath = directory.resolve(CURSOR_FILE_NAME);
+        Path tempPath = directory.resolve(CURSOR_FILE_NAME + ".tmp");
+        try {
+            Files.write(tempPath, cursor.array());
+            Files.move(tempPath, cursorPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // cursor 가 뒤처지면 재시작 때 같은 레코드를 한 번 더 보낼 뿐 유실되지는 않는다
+            log.warn("Error writing spill log cursor", e);
+        }
+    }
+
+    private static byte[] encode(SpillRecord record) {
+        byte[] topic = record.getTopicName().getBytes(StandardCharsets.UTF_8);
+        List<Header> headers = record.getHeaders() == null ? Collections.<Header>emptyList() : record.getHeaders();
+        int size = Integer.BYTES + topic.length + Integer.BYTES + length(record.getKey())
+                + Short.BYTES + Integer.BYTES + length(record.getValue());
+        List<byte[]> headerKeys = new ArrayList<>(headers.size());
+        for (Header header : headers) {
+            byte[] headerKey = header.key().getBytes(StandardCharsets.UTF_8);
+            headerKeys.add(headerKey);
+            size += Integer.BYTES + headerKey.length + Integer.BYTES + length(header.value());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        putBytes(buffer, topic);
+        putBytes(buffer, record.getKey());
+        buffer.putShort((short) headers.size());
+        for (int i = 0; i < headers.size(); i++) {
+            putBytes(buffer, headerKeys.get(i));
+            putBytes(buffer, headers.get(i).value());
+        }
+        putBytes(buffer, record.getValue());
+        return buffer.array();
+    }
+
+    private static SpillRecord decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        String topic = new String(getBytes(buffer), StandardCharsets.UTF_8);
+        byte[] key = getBytes(buffer);
+        int headerCount = buffer.getShort();
+        List<Header> headers = null;
+        if (headerCount > 0) {
+            headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                String headerKey = new String(getBytes(buffer), StandardCharsets.UTF_8);
+                headers.add(new RecordHeader(headerKey, getBytes(buffer)));
+            }
+        }
+        byte[] value = getBytes(buffer);
+        return new SpillRecord(topic, key, value, headers);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    // null 은 길이 -1 로 남긴다
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    // 지운 segment 의 mapping 이 GC 전까지 주소 공간과 page cache 를 붙잡지 않게 바로 푼다. 이후 buffer 를 쓰면 안 된다
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("Could not unmap spill log segment", e);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing spill log segment", e);
+        }
+    }
+
+    private static final class Segment {
+
+        private final long id;
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private int writePosition;
+
+        // 아직 commit 되지 않은 entry 수
+        private int pendingEntries;
+
+        private boolean sealed;
+
+        // 마지막 force 뒤에 쓴 entry 가 있는지
+        private boolean dirty;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+    }
+
+}
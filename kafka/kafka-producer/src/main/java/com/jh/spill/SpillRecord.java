@@ -0,0 +1,22 @@
+package com.jh.spill;
+
+import lombok.Value;
+import org.apache.kafka.common.header.Header;
+
+import java.util.List;
+
+/**
+ * spill log 에 저장되는 직렬화된 레코드 하나. key 가 없으면 null.
+ */
+@Value
+public class SpillRecord {
+
+    String topicName;
+
+    byte[] key;
+
+    byte[] value;
+
+    List<Header> headers;
+
+}
@@ -0,0 +1,45 @@
+package com.jh.partitioner;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HotKeyTrackerTest {
+
+    private static final long WINDOW_MS = 50;
+
+    @Test
+    void hotKeyGetsGaplessSequence() {
+        // window 50ms 에 10 msgs/sec 이면 레코드 하나로 20 msgs/sec 가 되어 바로 hot 이다
+        HotKeyTracker tracker = new HotKeyTracker(256, 4, WINDOW_MS, 10, 0.5, 4, 8);
+        HotKeyTracker.Placement first = tracker.record("hot");
+        assertNotNull(first);
+        assertEquals(0, first.getSequence());
+        assertEquals(1, tracker.record("hot").getSequence());
+        tracker.record("hot");
+        assertNull(tracker.takePlacement("cold"));
+        tracker.record("hot");
+        assertEquals(3, tracker.takePlacement("hot").getSequence());
+        assertNull(tracker.takePlacement("hot"));
+        assertEquals(1, tracker.getHotKeyCount());
+    }
+
+    @Test
+    void expiresHotKeysThatStopSending() throws InterruptedException {
+        HotKeyTracker tracker = new HotKeyTracker(256, 4, WINDOW_MS, 10, 0.5, 4, 1);
+        long run = tracker.record("stale").getRun();
+        assertEquals(1, tracker.getHotKeyCount());
+        // max-hot-keys 가 차 있으면 다른 key 는 hot 이 되지 못한다
+        assertNull(tracker.record("other"));
+
+        Thread.sleep(WINDOW_MS * 3);
+        HotKeyTracker.Placement placement = tracker.record("other");
+        assertNotNull(placement);
+        assertEquals(1, tracker.getHotKeyCount());
+        assertNotEquals(run, placement.getRun());
+    }
+
+}
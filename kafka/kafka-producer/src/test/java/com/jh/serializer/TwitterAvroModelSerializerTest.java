@@ -0,0 +1,53 @@
+package com.jh.serializer;
+
+import com.jh.avro.model.TwitterAvroModel;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import io.confluent.kafka.serializers.KafkaAvroSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TwitterAvroModelSerializerTest {
+
+    private static final String TOPIC = "twitter-topic";
+
+    @Test
+    void writesSameBytesAsKafkaAvroSerializer() {
+        MockSchemaRegistryClient schemaRegistryClient = new MockSchemaRegistryClient();
+        Map<String, Object> configs = Collections.singletonMap(
+                AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://twitter");
+
+        KafkaAvroSerializer kafkaAvroSerializer = new KafkaAvroSerializer(schemaRegistryClient, configs);
+        TwitterAvroModelSerializer twitterAvroModelSerializer = new TwitterAvroModelSerializer(schemaRegistryClient);
+        twitterAvroModelSerializer.configure(configs, false);
+
+        TwitterAvroModel[] tweets = {
+                TwitterAvroModel.newBuilder()
+                        .setUserId(123456789L)
+                        .setId(1780000000000000000L)
+                        .setText("Kafka 와 Java 로 보내는 tweet")
+                        .setCreatedAt(1700000000000L)
+                        .build(),
+                TwitterAvroModel.newBuilder()
+                        .setUserId(-1L)
+                        .setId(0L)
+                        .setText(null)
+                        .setCreatedAt(null)
+                        .build()
+        };
+        for (TwitterAvroModel tweet : tweets) {
+            // 두 번째 호출은 캐시한 schema id 와 재사용하는 encoder 로 쓴다
+            for (int i = 0; i < 2; i++) {
+                assertArrayEquals(kafkaAvroSerializer.serialize(TOPIC, tweet),
+                        twitterAvroModelSerializer.serialize(TOPIC, tweet));
+            }
+        }
+        assertNull(twitterAvroModelSerializer.serialize(TOPIC, null));
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.jh.spill;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpillLogTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackAppendedRecords() {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 4L);
+        List<Header> headers = Collections.<Header>singletonList(
+                new RecordHeader("trace", "t-1".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(spillLog.append(new SpillRecord("topic-a", bytes("k1"), bytes("v1"), headers)));
+        assertTrue(spillLog.append(new SpillRecord("topic-b", null, bytes("v2"), null)));
+
+        List<SpillRecord> records = spillLog.read(10);
+        assertEquals(2, records.size());
+        assertEquals("topic-a", records.get(0).getTopicName());
+        assertArrayEquals(bytes("k1"), records.get(0).getKey());
+        assertArrayEquals(bytes("v1"), records.get(0).getValue());
+        assertEquals(1, records.get(0).getHeaders().size());
+        assertEquals("trace", records.get(0).getHeaders().get(0).key());
+        assertArrayEquals(bytes("t-1"), records.get(0).getHeaders().get(0).value());
+        assertEquals("topic-b", records.get(1).getTopicName());
+        assertNull(records.get(1).getKey());
+        assertArrayEquals(bytes("v2"), records.get(1).getValue());
+        spillLog.close();
+    }
+
+    @Test
+    void readWithoutCommitReturnsSameRecords() {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 4L);
+        spillLog.append(record("v1"));
+        spillLog.append(record("v2"));
+
+        assertEquals(1, spillLog.read(1).size());
+        assertEquals(2, spillLog.getPendingEntries());
+        assertEquals(values(spillLog.read(10)), values(spillLog.read(10)));
+
+        spillLog.commit();
+        assertTrue(spillLog.isEmpty());
+        assertTrue(spillLog.read(10).isEmpty());
+        spillLog.close();
+    }
+
+    @Test
+    void rollsSegmentsAndDeletesDrainedOnes() {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 8L);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(spillLog.append(record(value(i))));
+        }
+        assertTrue(spillLog.getDiskBytes() > SEGMENT_SIZE);
+
+        List<String> drained = new ArrayList<>();
+        while (!spillLog.isEmpty()) {
+            List<SpillRecord> records = spillLog.read(10);
+            drained.addAll(values(records));
+            spillLog.commit();
+        }
+        assertEquals(values(0, 6), drained);
+        // 이어 쓰는 마지막 segment 만 남는다
+        assertEquals(SEGMENT_SIZE, spillLog.getDiskBytes());
+        spillLog.close();
+    }
+
+    @Test
+    void rejectsAppendsOverDiskBudget() {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 2L);
+        int appended = 0;
+        while (spillLog.append(record(value(appended)))) {
+            appended++;
+        }
+        assertTrue(appended > 0);
+        assertEquals(SEGMENT_SIZE * 2L, spillLog.getDiskBytes());
+        assertEquals(appended, spillLog.getPendingEntries());
+        assertFalse(spillLog.append(new SpillRecord("topic", null, new byte[SEGMENT_SIZE], null)));
+        spillLog.close();
+    }
+
+    @Test
+    void resumesFromCommittedPositionAfterReopen() {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 8L);
+        for (int i = 0; i < 6; i++) {
+            spillLog.append(record(value(i)));
+        }
+        spillLog.read(1);
+        spillLog.commit();
+        spillLog.close();
+
+        SpillLog reopened = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 8L);
+        assertEquals(5, reopened.getPendingEntries());
+        reopened.append(record(value(6)));
+        List<String> drained = new ArrayList<>();
+        while (!reopened.isEmpty()) {
+            drained.addAll(values(reopened.read(10)));
+            reopened.commit();
+        }
+        assertEquals(values(1, 7), drained);
+        reopened.close();
+    }
+
+    @Test
+    void truncatesCorruptTailOnReopen() throws IOException {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 4L);
+        spillLog.append(record("v1"));
+        spillLog.append(record("v2"));
+        spillLog.close();
+        corruptSecondEntry();
+
+        SpillLog reopened = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 4L);
+        assertEquals(1, reopened.getPendingEntries());
+        assertTrue(reopened.append(record("v3")));
+        assertEquals(Arrays.asList("v1", "v3"), values(reopened.read(10)));
+        reopened.close();
+    }
+
+    @Test
+    void skipsEntriesCorruptedAfterRecovery() throws IOException {
+        SpillLog spillLog = new SpillLog(directory, SEGMENT_SIZE, SEGMENT_SIZE * 4L);
+        spillLog.append(record("v1"));
+        spillLog.append(record("v2"));
+        spillLog.append(record("v3"));
+        corruptSecondEntry();
+
+        assertEquals(Arrays.asList("v1", "v3"), values(spillLog.read(10)));
+        spillLog.commit();
+        assertTrue(spillLog.isEmpty());
+        assertEquals(1, spillLog.getCorruptedEntries());
+        spillLog.close();
+    }
+
+    private static SpillRecord record(String value) {
+        return new SpillRecord("topic", bytes("key"), bytes(value), null);
+    }
+
+    // 첫 segment 의 두 번째 entry 의 payload 첫 바이트를 바꿔 crc 가 맞지 않게 한다
+    private void corruptSecondEntry() throws IOException {
+        Path segmentPath = directory.resolve(String.format("%020d.spill", 0));
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, 0);
+            long secondPayload = Integer.BYTES * 2L + length.getInt(0) + Integer.BYTES * 2L;
+            ByteBuffer current = ByteBuffer.allocate(1);
+            channel.read(current, secondPayload);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~current.get(0)}), secondPayload);
+        }
+    }
+
+    // 한 segment 에 몇 개만 들어가도록 값을 길게 만든다
+    private static String value(int i) {
+        StringBuilder value = new StringBuilder("value-").append(i).append('-');
+        while (value.length() < 80) {
+            value.append('x');
+        }
+        return value.toString();
+    }
+
+    private static List<String> values(int from, int to) {
+        List<String> values = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            values.add(value(i));
+        }
+        return values;
+    }
+
+    private static List<String> values(List<SpillRecord> records) {
+        List<String> values = new ArrayList<>();
+        for (SpillRecord record : records) {
+            values.add(new String(record.getValue(), StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.jh.consumer;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.SearchServiceConfigData;
+import com.jh.index.InvertedIndex;
+import com.jh.service.KafkaConsumer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * twitter-topic 을 읽어 InvertedIndex 에 넣는다.
+ * <p>
+ * 색인이 메모리에만 있으므로 이 JVM 이 처음 받은 partition 은 retention 시작 시각부터 다시 읽는다.
+ * 이후 rebalance 로 다시 받은 partition 은 commit 한 offset(이미 색인한 곳)부터 이어서 읽는다.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TweetIndexConsumer implements KafkaConsumer<Long, TwitterAvroModel>, ConsumerSeekAware {
+
+    private final InvertedIndex invertedIndex;
+
+    private final SearchServiceConfigData searchServiceConfigData;
+
+    private final Set<TopicPartition> seekedPartitions = ConcurrentHashMap.newKeySet();
+
+    @Override
+    @KafkaListener(id = "tweetIndexListener", topics = "${kafka-config.topic-name}")
+    public void receive(List<ConsumerRecord<Long, TwitterAvroModel>> records, Acknowledgment acknowledgment) {
+        for (ConsumerRecord<Long, TwitterAvroModel> record : records) {
+            if (record.value() != null) {
+                invertedIndex.index(record.value());
+            }
+        }
+        acknowledgment.acknowledge();
+        log.debug("Indexed {} tweets, {} segments", records.size(), invertedIndex.getSegmentCount());
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        long timestamp = System.currentTimeMillis() - searchServiceConfigData.getRetentionMs();
+        for (TopicPartition partition : assignments.keySet()) {
+            if (seekedPartitions.add(partition)) {
+                log.info("Rebuilding index for {} from timestamp {}", partition, timestamp);
+                callback.seekToTimestamp(partition.topic(), partition.partition(), timestamp);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.jh.controller;
+
+import com.jh.config.SearchServiceConfigData;
+import com.jh.index.InvertedIndex;
+import com.jh.model.SearchResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final InvertedIndex invertedIndex;
+
+    private final SearchServiceConfigData searchServiceConfigData;
+
+    // GET /search?q=kafka, GET /search?q=spring kafka&limit=50 (모든 단어를 가진 tweet)
+    @GetMapping
+    public SearchResponse search(@RequestParam("q") String query,
+                                 @RequestParam(required = false) Integer limit) {
+        int size = limit != null ? limit : searchServiceConfigData.getDefaultLimit();
+        return invertedIndex.search(query, Math.max(0, Math.min(size, searchServiceConfigData.getMaxLimit())));
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.jh.index;
+
+import com.jh.model.SearchHit;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * createdAt 이 [startMs, startMs + segment-duration-ms) 인 tweet 들의 색인.
+ * <p>
+ * 문서 번호는 segment 안에서 들어온 순서대로 0 부터 붙이고, tweet 필드는 번호를 index 로 하는 배열에 둔다.
+ * 단어마다 문서 번호 posting list 를 두고 사전은 TermTrie 로 찾는다.
+ * 만료는 segment 를 통째로 버리는 것이라 문서 단위 삭제는 없다.
+ */
+final class IndexSegment {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final long startMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TermTrie dictionary = new TermTrie();
+
+    private PostingList[] postings = new PostingList[INITIAL_CAPACITY];
+
+    private long[] tweetIds = new long[INITIAL_CAPACITY];
+
+    private long[] userIds = new long[INITIAL_CAPACITY];
+
+    private long[] createdAts = new long[INITIAL_CAPACITY];
+
+    private String[] texts = new String[INITIAL_CAPACITY];
+
+    private int docCount;
+
+    IndexSegment(long startMs) {
+        this.startMs = startMs;
+    }
+
+    void add(long tweetId, long userId, long createdAt, String text, List<String> terms) {
+        lock.writeLock().lock();
+        try {
+            int doc = docCount;
+            if (doc == tweetIds.length) {
+                int capacity = doc * 2;
+                tweetIds = Arrays.copyOf(tweetIds, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                createdAts = Arrays.copyOf(createdAts, capacity);
+                texts = Arrays.copyOf(texts, capacity);
+            }
+            tweetIds[doc] = tweetId;
+            userIds[doc] = userId;
+            createdAts[doc] = createdAt;
+            texts[doc] = text;
+            docCount++;
+
+            for (String term : terms) {
+                int termId = dictionary.getOrAdd(term);
+                if (termId == postings.length) {
+                    postings = Arrays.copyOf(postings, termId * 2);
+                }
+                PostingList postingList = postings[termId];
+                if (postingList == null) {
+                    postingList = new PostingList();
+                    postings[termId] = postingList;
+                }
+                postingList.add(doc);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 모든 단어를 가진 문서를 세고, 그중 늦게 들어온 것부터 limit 개를 hits 에 더한다.
+     */
+    long search(List<String> terms, int limit, List<SearchHit> hits) {
+        lock.readLock().lock();
+        try {
+            PostingList[] lists = new PostingList[terms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                int termId = dictionary.get(terms.get(i));
+                if (termId < 0) {
+                    return 0;
+                }
+                lists[i] = postings[termId];
+            }
+            // 가장 짧은 list 를 따라가며 나머지에서 같은 문서를 찾는다
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size(), b.size()));
+            PostingList.Iterator[] iterators = new PostingList.Iterator[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                iterators[i] = lists[i].iterator();
+            }
+
+            long[] newest = new long[Math.max(limit, 1)];
+            long matched = 0;
+            long candidate = iterators[0].next();
+            while (candidate != PostingList.Iterator.END) {
+                long next = candidate;
+                for (int i = 1; i < iterators.length && next == candidate; i++) {
+                    next = iterators[i].advance(candidate);
+                }
+                if (next == PostingList.Iterator.END) {
+                    break;
+                }
+                if (next == candidate) {
+                    newest[(int) (matched % newest.length)] = candidate;
+                    matched++;
+                    candidate = iterators[0].next();
+                } else {
+                    candidate = iterators[0].advance(next);
+                }
+            }
+
+            int count = (int) Math.min(Math.min(matched, limit), newest.length);
+            for (int i = 1; i <= count; i++) {
+                int doc = (int) newest[(int) ((matched - i) % newest.length)];
+                hits.add(new SearchHit(tweetIds[doc], userIds[doc], texts[doc], createdAts[doc]));
+            }
+            return matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long getStartMs() {
+        return startMs;
+    }
+
+    int getDocCount() {
+        lock.readLock().lock();
+        try {
+            return docCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int getTermCount() {
+        lock.readLock().lock();
+        try {
+            return dictionary.termCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+}
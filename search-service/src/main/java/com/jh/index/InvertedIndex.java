@@ -0,0 +1,150 @@
+package com.jh.index;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.SearchServiceConfigData;
+import com.jh.model.SearchHit;
+import com.jh.model.SearchResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * tweet 본문의 in-memory 역색인. createdAt 을 segment-duration-ms 단위 bucket 으로 나눠 segment 를 두고,
+ * retention-ms 보다 오래된 segment 는 통째로 버린다. createdAt 이 이미 retention 밖인 tweet 은 색인하지 않는다.
+ * <p>
+ * 질의는 모든 단어를 가진 tweet(AND)을 최신 segment 부터 찾는다. segment 안에서는 들어온 순서의 역순이다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InvertedIndex {
+
+    private final SearchServiceConfigData searchServiceConfigData;
+
+    private final ConcurrentNavigableMap<Long, IndexSegment> segments = new ConcurrentSkipListMap<>();
+
+    private final LongAdder indexedCount = new LongAdder();
+
+    private final LongAdder expiredCount = new LongAdder();
+
+    private TermTokenizer termTokenizer;
+
+    private long segmentDurationMs;
+
+    private long retentionMs;
+
+    private ScheduledExecutorService expireExecutor;
+
+    @PostConstruct
+    public void init() {
+        termTokenizer = new TermTokenizer(searchServiceConfigData.getMinTermLength(),
+                searchServiceConfigData.getMaxTermLength());
+        segmentDurationMs = searchServiceConfigData.getSegmentDurationMs();
+        retentionMs = searchServiceConfigData.getRetentionMs();
+
+        long expireIntervalMs = searchServiceConfigData.getExpireIntervalMs();
+        expireExecutor = Executors.newSingleThreadScheduledExecutor();
+        expireExecutor.scheduleWithFixedDelay(this::expire, expireIntervalMs, expireIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (expireExecutor != null) {
+            expireExecutor.shutdownNow();
+        }
+    }
+
+    public void index(TwitterAvroModel twitterAvroModel) {
+        long createdAt = twitterAvroModel.getCreatedAt() != null
+                ? twitterAvroModel.getCreatedAt() : System.currentTimeMillis();
+        long bucketStart = createdAt - Math.floorMod(createdAt, segmentDurationMs);
+        if (isExpired(bucketStart, System.currentTimeMillis())) {
+            return;
+        }
+        String text = twitterAvroModel.getText() != null ? twitterAvroModel.getText().toString() : null;
+        IndexSegment segment = segments.get(bucketStart);
+        if (segment == null) {
+            segment = segments.computeIfAbsent(bucketStart, IndexSegment::new);
+        }
+        segment.add(twitterAvroModel.getId(), twitterAvroModel.getUserId(), createdAt, text,
+                termTokenizer.tokenize(text));
+        indexedCount.increment();
+    }
+
+    public SearchResponse search(String query, int limit) {
+        long startNanos = System.nanoTime();
+        List<String> terms = termTokenizer.tokenize(query);
+        List<SearchHit> hits = new ArrayList<>(Math.min(limit, 64));
+        long totalHits = 0;
+        if (!terms.isEmpty()) {
+            for (IndexSegment segment : segments.descendingMap().values()) {
+                totalHits += segment.search(terms, limit - hits.size(), hits);
+            }
+        }
+        return SearchResponse.builder()
+                .query(query)
+                .terms(terms)
+                .totalHits(totalHits)
+                .tookMicros(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos))
+                .hits(hits)
+                .build();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getDocCount() {
+        long count = 0;
+        for (IndexSegment segment : segments.values()) {
+            count += segment.getDocCount();
+        }
+        return count;
+    }
+
+    public long getIndexedCount() {
+        return indexedCount.sum();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    private void expire() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<Long, IndexSegment> entry : segments.entrySet()) {
+                if (!isExpired(entry.getKey(), now)) {
+                    break;
+                }
+                if (segments.remove(entry.getKey(), entry.getValue())) {
+                    IndexSegment segment = entry.getValue();
+                    expiredCount.add(segment.getDocCount());
+                    log.info("Expired index segment starting at {} with {} tweets and {} terms",
+                            segment.getStartMs(), segment.getDocCount(), segment.getTermCount());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Error expiring index segments", e);
+        }
+    }
+
+    // segment 의 끝이 retention 밖이면 만료
+    private boolean isExpired(long bucketStart, long now) {
+        return bucketStart + segmentDurationMs <= now - retentionMs;
+    }
+
+}
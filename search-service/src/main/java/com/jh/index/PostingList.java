@@ -0,0 +1,109 @@
+package com.jh.index;
+
+import java.util.Arrays;
+
+/**
+ * 오름차순 long 들을 앞 값과의 차이(delta)로, 다시 7 bit varint 로 줄여 byte[] 에 이어 붙인다.
+ * segment 안의 문서 번호는 작은 수로 촘촘히 증가하므로 대부분 한 byte 에 들어간다.
+ * <p>
+ * 같은 값을 다시 넣으면(한 문서에 같은 단어가 여러 번) 무시한다. 동기화는 IndexSegment 가 한다.
+ */
+final class PostingList {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+    private int length;
+
+    private int size;
+
+    private long last;
+
+    void add(long value) {
+        if (size > 0 && value <= last) {
+            if (value < last) {
+                throw new IllegalArgumentException("Posting " + value + " is smaller than last posting " + last);
+            }
+            return;
+        }
+        long delta = size == 0 ? value : value - last;
+        ensureCapacity(length + 10);
+        while ((delta & ~0x7FL) != 0) {
+            bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+        last = value;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int sizeInBytes() {
+        return length;
+    }
+
+    Iterator iterator() {
+        return new Iterator(bytes, length);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+
+    /**
+     * 만든 시점까지 쓰인 byte 만 읽는다.
+     */
+    static final class Iterator {
+
+        static final long END = -1L;
+
+        private final byte[] bytes;
+
+        private final int length;
+
+        private int position;
+
+        private long current;
+
+        private long value = Long.MIN_VALUE;
+
+        private Iterator(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+
+        long next() {
+            if (position >= length) {
+                value = END;
+                return END;
+            }
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            current += delta;
+            value = current;
+            return value;
+        }
+
+        // 현재 값이 target 이상이면 그대로, 아니면 target 이상인 값까지 순서대로 풀어 간다 (건너뛸 목차는 없다)
+        long advance(long target) {
+            while (value != END && value < target) {
+                next();
+            }
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.jh.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 글자 / 숫자가 이어진 구간을 소문자 단어로 자른다. 색인과 질의가 같은 규칙을 쓴다.
+ * 길이가 min-term-length 보다 짧거나 max-term-length 보다 긴 단어는 버리고, 같은 단어는 한 번만 낸다.
+ */
+public class TermTokenizer {
+
+    private final int minTermLength;
+
+    private final int maxTermLength;
+
+    public TermTokenizer(int minTermLength, int maxTermLength) {
+        this.minTermLength = minTermLength;
+        this.maxTermLength = maxTermLength;
+    }
+
+    public List<String> tokenize(CharSequence text) {
+        if (text == null || text.length() == 0) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                int termLength = i - start;
+                if (termLength >= minTermLength && termLength <= maxTermLength) {
+                    String term = text.subSequence(start, i).toString().toLowerCase(Locale.ROOT);
+                    if (!terms.contains(term)) {
+                        terms.add(term);
+                    }
+                }
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.jh.index;
+
+import java.util.Arrays;
+
+/**
+ * 단어 -> term id 사전. 노드마다 객체를 만들지 않고 병렬 배열에 첫 자식 / 다음 형제 링크로 저장한다.
+ * 노드 0 이 root 이고, 단어가 끝나는 노드에만 term id 가 있다. 동기화는 IndexSegment 가 한다.
+ */
+final class TermTrie {
+
+    private static final int NO_NODE = 0;
+
+    private static final int NO_TERM = -1;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private char[] labels = new char[INITIAL_CAPACITY];
+
+    private int[] firstChild = new int[INITIAL_CAPACITY];
+
+    private int[] nextSibling = new int[INITIAL_CAPACITY];
+
+    private int[] termIds = new int[INITIAL_CAPACITY];
+
+    private int nodeCount = 1;
+
+    private int termCount;
+
+    TermTrie() {
+        termIds[0] = NO_TERM;
+    }
+
+    // 없으면 -1
+    int get(CharSequence term) {
+        int node = 0;
+        for (int i = 0; i < term.length() && node != NO_NODE; i++) {
+            node = findChild(node, term.charAt(i));
+        }
+        return node == NO_NODE ? NO_TERM : termIds[node];
+    }
+
+    int getOrAdd(CharSequence term) {
+        int node = 0;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            int child = findChild(node, c);
+            if (child == NO_NODE) {
+                child = addChild(node, c);
+            }
+            node = child;
+        }
+        if (termIds[node] == NO_TERM) {
+            termIds[node] = termCount++;
+        }
+        return termIds[node];
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    int nodeCount() {
+        return nodeCount;
+    }
+
+    private int findChild(int node, char c) {
+        int child = firstChild[node];
+        while (child != NO_NODE && labels[child] != c) {
+            child = nextSibling[child];
+        }
+        return child;
+    }
+
+    // 새 자식은 형제 목록 맨 앞에 둔다
+    private int addChild(int parent, char c) {
+        if (nodeCount == labels.length) {
+            int capacity = labels.length * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            termIds = Arrays.copyOf(termIds, capacity);
+        }
+        int node = nodeCount++;
+        labels[node] = c;
+        firstChild[node] = NO_NODE;
+        nextSibling[node] = firstChild[parent];
+        termIds[node] = NO_TERM;
+        firstChild[parent] = node;
+        return node;
+    }
+
+}
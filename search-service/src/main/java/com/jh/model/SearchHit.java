@@ -0,0 +1,17 @@
+package com.jh.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHit {
+
+    private long id;
+    private long userId;
+    private String text;
+    private long createdAt;
+
+}
@@ -0,0 +1,22 @@
+package com.jh.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponse {
+
+    private String query;
+    private List<String> terms;
+    private long totalHits;
+    private long tookMicros;
+    private List<SearchHit> hits;
+
+}
@@ -0,0 +1,25 @@
+package com.jh.controller;
+
+import com.jh.compression.CompressionCalibrator;
+import com.jh.compression.CompressionDecision;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@ConditionalOnProperty(name = "compression-calibration-config.enable", havingValue = "true")
+@RequiredArgsConstructor
+public class CompressionCalibrationController {
+
+    private final CompressionCalibrator compressionCalibrator;
+
+    // 마지막 calibration 의 codec 별 측정값과 선택 결과. 아직 한 번도 돌지 않았으면 204
+    @GetMapping("/producer/compression")
+    public ResponseEntity<CompressionDecision> lastDecision() {
+        CompressionDecision decision = compressionCalibrator.getLastDecision();
+        return decision == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(decision);
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.jh.controller;
+
+import com.jh.sketch.HeavyHitter;
+import com.jh.sketch.HeavyHitterTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnProperty(name = "heavy-hitter-config.enable", havingValue = "true")
+@RequestMapping("/heavy-hitters")
+@RequiredArgsConstructor
+public class HeavyHitterController {
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    @GetMapping("/terms")
+    public List<HeavyHitter> topTerms(@RequestParam(defaultValue = "10") int k) {
+        return heavyHitterTracker.topTerms(k);
+    }
+
+    @GetMapping("/users")
+    public List<HeavyHitter> topUsers(@RequestParam(defaultValue = "10") int k) {
+        return heavyHitterTracker.topUsers(k);
+    }
+
+    // Count-Min sketch 추정 빈도. 실제보다 작게 나오지는 않는다
+    @GetMapping("/terms/{term}/estimate")
+    public long estimateTerm(@PathVariable String term) {
+        return heavyHitterTracker.estimateTerm(term);
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.jh.dedup;
+
+/**
+ * boxing 없는 long 집합. open addressing(linear probing) 테이블에 최대 capacity 개를 넣고,
+ * 넣은 순서를 ring 으로 기억해 두었다가 가득 차거나 ttl 이 지나면 가장 오래된 것부터 뺀다.
+ * <p>
+ * 삭제는 tombstone 없이 backward shift 로 처리하므로 오래 돌아도 probe 길이가 늘지 않는다.
+ * 스레드 안전하지 않다. 여러 스레드에서 쓸 때는 stripe 별로 잠그고 쓴다.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+
+    private final long[] table;
+
+    private final int mask;
+
+    // 넣은 순서대로의 key 와 넣은 시각. head 가 가장 오래된 항목
+    private final long[] insertionOrder;
+
+    private final long[] insertionTimes;
+
+    private final int capacity;
+
+    private final long ttlMs;
+
+    private int head;
+
+    private int size;
+
+    // 0 은 빈 슬롯 표시로 쓰므로 따로 기억한다
+    private boolean containsZero;
+
+    public LongHashSet(int capacity, long ttlMs) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.ttlMs = ttlMs;
+        // load factor 0.5 이하로 유지
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new long[tableSize];
+        this.mask = tableSize - 1;
+        this.insertionOrder = new long[capacity];
+        this.insertionTimes = new long[capacity];
+    }
+
+    /**
+     * 없던 key 면 넣고 true, 이미 있으면 false.
+     */
+    public boolean add(long key, long nowMs) {
+        evictExpired(nowMs);
+        if (contains(key)) {
+            return false;
+        }
+        if (size == capacity) {
+            evictOldest();
+        }
+
+        if (key == EMPTY) {
+            containsZero = true;
+        } else {
+            int i = index(key);
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = key;
+        }
+
+        int tail = head + size;
+        if (tail >= capacity) {
+            tail -= capacity;
+        }
+        insertionOrder[tail] = key;
+        insertionTimes[tail] = nowMs;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsZero;
+        }
+        return slotOf(key) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private void evictExpired(long nowMs) {
+        if (ttlMs <= 0) {
+            return;
+        }
+        while (size > 0 && nowMs - insertionTimes[head] > ttlMs) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        remove(insertionOrder[head]);
+        head = head + 1 == capacity ? 0 : head + 1;
+        size--;
+    }
+
+    private void remove(long key) {
+        if (key == EMPTY) {
+            containsZero = false;
+            return;
+        }
+        int i = slotOf(key);
+        if (i < 0) {
+            return;
+        }
+        table[i] = EMPTY;
+
+        // 뒤따르는 클러스터에서 빈 자리 i 보다 앞에 home 이 있는 항목을 당겨 온다
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = table[j];
+            if (k == EMPTY) {
+                return;
+            }
+            int home = index(k);
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                table[i] = k;
+                table[j] = EMPTY;
+                i = j;
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        int i = index(key);
+        while (true) {
+            long k = table[i];
+            if (k == key) {
+                return i;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    // tweet id 는 하위 비트에 sequence 가 몰려 있으므로 섞어서 쓴다 (murmur3 fmix64)
+    private int index(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+}
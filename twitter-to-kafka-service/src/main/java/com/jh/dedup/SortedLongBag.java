@@ -0,0 +1,84 @@
+package com.jh.dedup;
+
+import java.util.Arrays;
+
+/**
+ * boxing 없이 long 을 정렬된 채로 담는 multiset. 가장 작은 값을 바로 꺼내 볼 수 있다.
+ * <p>
+ * 값은 배열의 [head, tail) 구간에 오름차순으로 둔다. tweet id 는 대체로 늘어나는 순서로 들어오고
+ * 들어온 순서에 가깝게 빠지므로, 넣기는 보통 끝에 붙이기이고 빼기는 앞쪽 몇 칸만 민다.
+ * 스레드 안전하지 않다. 여러 스레드에서 쓸 때는 잠그고 쓴다.
+ */
+public class SortedLongBag {
+
+    private long[] values;
+
+    private int head;
+
+    private int tail;
+
+    public SortedLongBag(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive: " + initialCapacity);
+        }
+        this.values = new long[initialCapacity];
+    }
+
+    public void add(long value) {
+        if (tail == values.length) {
+            makeRoom();
+        }
+        if (head == tail || value >= values[tail - 1]) {
+            values[tail++] = value;
+            return;
+        }
+        int index = Arrays.binarySearch(values, head, tail, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        System.arraycopy(values, index, values, index + 1, tail - index);
+        values[index] = value;
+        tail++;
+    }
+
+    // 같은 값이 여러 개면 하나만 뺀다
+    public boolean remove(long value) {
+        int index = Arrays.binarySearch(values, head, tail, value);
+        if (index < 0) {
+            return false;
+        }
+        // 가까운 쪽 끝을 민다
+        if (index - head < tail - index) {
+            System.arraycopy(values, head, values, head + 1, index - head);
+            head++;
+        } else {
+            System.arraycopy(values, index + 1, values, index, tail - index - 1);
+            tail--;
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+        }
+        return true;
+    }
+
+    // 비어 있으면 Long.MAX_VALUE
+    public long min() {
+        return head == tail ? Long.MAX_VALUE : values[head];
+    }
+
+    public int size() {
+        return tail - head;
+    }
+
+    // 앞쪽이 절반 넘게 비었으면 당기고, 아니면 두 배로 늘린다
+    private void makeRoom() {
+        int size = tail - head;
+        long[] target = head > values.length / 2 ? values : new long[values.length * 2];
+        System.arraycopy(values, head, target, 0, size);
+        values = target;
+        head = 0;
+        tail = size;
+    }
+
+}
@@ -0,0 +1,351 @@
+package com.jh.dedup;
+
+import com.jh.config.TweetDedupConfigData;
+import com.jh.service.SendCallback;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * KafkaProducer.send 앞에서 tweet id 로 중복을 거른다.
+ * <p>
+ * 최근 id 는 stripe 별 LongHashSet 에 두고(용량 / ttl 로 오래된 것부터 제거),
+ * keyword 별 acked watermark 를 checkpoint 파일에 주기적으로 남긴다.
+ * 재시작하면 그 값을 resume watermark 로 읽어, 매치된 keyword 모두에서 watermark 이하인
+ * tweet 은 이미 보낸 것으로 보고 버린다. 실행 중에 갱신되는 값으로 거르지 않는 것은
+ * live stream 에서 id 순서가 조금씩 뒤바뀌어 도착하기 때문이다.
+ * <p>
+ * watermark 는 받아들인 tweet 의 전송이 끝났을 때(sendCallback)만 올라간다. ack 된 가장 큰 id 이되,
+ * 아직 ack 를 기다리는 tweet 과 전송에 실패한 tweet 보다는 작게 잡는다. 그래서 재시작해도
+ * 보내던 중이거나 실패한 tweet 은 다시 받아 보내고, 그 대가로 그 위의 tweet 몇 개가 중복될 수 있다.
+ * 실패한 tweet 이 생기면 이번 실행 동안 그 keyword 의 watermark 는 그 아래에 머문다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TweetDeduplicator {
+
+    // 어떤 keyword 에도 매치되지 않은 tweet 의 checkpoint key
+    public static final String UNMATCHED_KEYWORD = "*";
+
+    private final TweetDedupConfigData tweetDedupConfigData;
+
+    private final Map<String, KeywordWatermark> watermarks = new ConcurrentHashMap<>();
+
+    private final LongAdder acceptedCount = new LongAdder();
+    private final LongAdder duplicateCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    private Map<String, Long> resumeWatermarks = Collections.emptyMap();
+
+    private LongHashSet[] stripes;
+
+    private int stripeMask;
+
+    private Path checkpointPath;
+
+    private ScheduledExecutorService checkpointExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(tweetDedupConfigData.getEnable())) {
+            return;
+        }
+
+        int stripeCount = Integer.highestOneBit(Math.max(1, tweetDedupConfigData.getStripes()));
+        int capacityPerStripe = Math.max(1, tweetDedupConfigData.getCapacity() / stripeCount);
+        stripes = new LongHashSet[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new LongHashSet(capacityPerStripe, tweetDedupConfigData.getTtlMs());
+        }
+        stripeMask = stripeCount - 1;
+
+        String checkpointFile = tweetDedupConfigData.getCheckpointFile();
+        if (checkpointFile != null && !checkpointFile.isEmpty()) {
+            checkpointPath = Paths.get(checkpointFile);
+            resumeWatermarks = loadCheckpoint(checkpointPath);
+            for (Map.Entry<String, Long> entry : resumeWatermarks.entrySet()) {
+                watermarks.put(entry.getKey(), new KeywordWatermark(entry.getValue()));
+            }
+
+            long intervalMs = tweetDedupConfigData.getCheckpointIntervalMs();
+            checkpointExecutor = Executors.newSingleThreadScheduledExecutor();
+            checkpointExecutor.scheduleWithFixedDelay(this::checkpoint, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        log.info("Tweet dedup enabled with {} stripes of {} ids, ttl {} ms, resume watermarks {}",
+                stripeCount, capacityPerStripe, tweetDedupConfigData.getTtlMs(), resumeWatermarks);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (checkpointExecutor != null) {
+            checkpointExecutor.shutdownNow();
+            checkpoint();
+        }
+        if (stripes != null) {
+            log.info("Tweet dedup accepted: {}, duplicates: {}, replayed: {}, failed sends: {}",
+                    getAcceptedCount(), getDuplicateCount(), getReplayedCount(), getFailedCount());
+        }
+    }
+
+    /**
+     * 처음 보는 tweet 이면 기록하고 true, 중복이거나 재시작 전에 보낸 tweet 이면 false.
+     * true 를 받았으면 sendCallback 으로 전송 결과를 알려야 watermark 가 올라간다.
+     *
+     * @param keywordIds 매치된 keyword index 비트 (KeywordRoutingTable.match)
+     * @param keywords   keywordIds 의 index 가 가리키는 keyword 목록
+     */
+    public boolean tryAccept(long tweetId, long keywordIds, List<String> keywords) {
+        if (isReplayed(tweetId, keywordIds, keywords)) {
+            replayedCount.increment();
+            return false;
+        }
+
+        LongHashSet stripe = stripes[stripeIndex(tweetId)];
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.add(tweetId, System.currentTimeMillis());
+        }
+        if (!added) {
+            duplicateCount.increment();
+            return false;
+        }
+
+        if (keywordIds == 0L) {
+            keywordWatermark(UNMATCHED_KEYWORD).track(tweetId);
+        }
+        while (keywordIds != 0L) {
+            int k = Long.numberOfTrailingZeros(keywordIds);
+            keywordIds &= keywordIds - 1;
+            keywordWatermark(keywords.get(k)).track(tweetId);
+        }
+        acceptedCount.increment();
+        return true;
+    }
+
+    /**
+     * tryAccept 로 받아들인 tweet 을 sendCount 번 보낼 때 각 전송에 넘길 callback.
+     * 모두 성공하면 ack, 하나라도 실패하면 실패로 한 번만 기록한다.
+     */
+    public SendCallback sendCallback(long tweetId, long keywordIds, List<String> keywords, int sendCount) {
+        if (sendCount <= 0) {
+            complete(tweetId, keywordIds, keywords, true);
+            return null;
+        }
+        AtomicInteger remaining = new AtomicInteger(sendCount);
+        return exception -> {
+            if (exception != null) {
+                if (remaining.getAndSet(0) > 0) {
+                    complete(tweetId, keywordIds, keywords, false);
+                }
+            } else if (remaining.decrementAndGet() == 0) {
+                complete(tweetId, keywordIds, keywords, true);
+            }
+        };
+    }
+
+    /**
+     * keyword 별로 재시작 때 이 값 이하는 보내지 않아도 되는 id.
+     */
+    public Map<String, Long> getAckedWatermarks() {
+        Map<String, Long> snapshot = new HashMap<>();
+        for (Map.Entry<String, KeywordWatermark> entry : watermarks.entrySet()) {
+            long watermark = entry.getValue().current();
+            if (watermark != Long.MIN_VALUE) {
+                snapshot.put(entry.getKey(), watermark);
+            }
+        }
+        return snapshot;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.sum();
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount.sum();
+    }
+
+    public long getReplayedCount() {
+        return replayedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    private boolean isReplayed(long tweetId, long keywordIds, List<String> keywords) {
+        if (resumeWatermarks.isEmpty()) {
+            return false;
+        }
+        if (keywordIds == 0L) {
+            return tweetId <= watermark(UNMATCHED_KEYWORD);
+        }
+        while (keywordIds != 0L) {
+            int k = Long.numberOfTrailingZeros(keywordIds);
+            keywordIds &= keywordIds - 1;
+            if (tweetId > watermark(keywords.get(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long watermark(String keyword) {
+        Long watermark = resumeWatermarks.get(keyword);
+        return watermark == null ? Long.MIN_VALUE : watermark;
+    }
+
+    private void complete(long tweetId, long keywordIds, List<String> keywords, boolean acked) {
+        if (keywordIds == 0L) {
+            keywordWatermark(UNMATCHED_KEYWORD).complete(tweetId, acked);
+        }
+        while (keywordIds != 0L) {
+            int k = Long.numberOfTrailingZeros(keywordIds);
+            keywordIds &= keywordIds - 1;
+            keywordWatermark(keywords.get(k)).complete(tweetId, acked);
+        }
+        if (!acked) {
+            failedCount.increment();
+        }
+    }
+
+    private KeywordWatermark keywordWatermark(String keyword) {
+        KeywordWatermark watermark = watermarks.get(keyword);
+        if (watermark == null) {
+            watermark = watermarks.computeIfAbsent(keyword, k -> new KeywordWatermark(Long.MIN_VALUE));
+        }
+        return watermark;
+    }
+
+    private int stripeIndex(long tweetId) {
+        return (int) (tweetId ^ (tweetId >>> 32)) * 0x9E3779B9 >>> 16 & stripeMask;
+    }
+
+    // 임시 파일에 쓴 뒤 rename 해서 중간에 죽어도 이전 checkpoint 가 깨지지 않게 한다
+    private synchronized void checkpoint() {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> entry : getAckedWatermarks().entrySet()) {
+            properties.setProperty(entry.getKey(), Long.toString(entry.getValue()));
+        }
+        try {
+            Path parent = checkpointPath.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tempPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempPath)) {
+                properties.store(out, "acked tweet id watermark per keyword");
+            }
+            Files.move(tempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Error writing tweet dedup checkpoint {}", checkpointPath, e);
+        }
+    }
+
+    private static Map<String, Long> loadCheckpoint(Path path) {
+        if (!Files.exists(path)) {
+            return Collections.emptyMap();
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.error("Error reading tweet dedup checkpoint {}, starting without resume watermarks", path, e);
+            return Collections.emptyMap();
+        }
+        Map<String, Long> watermarks = new HashMap<>();
+        for (String keyword : properties.stringPropertyNames()) {
+            try {
+                watermarks.put(keyword, Long.parseLong(properties.getProperty(keyword).trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid checkpoint entry {}={}", keyword, properties.getProperty(keyword));
+            }
+        }
+        return Collections.unmodifiableMap(watermarks);
+    }
+
+    private static void updateMax(AtomicLong value, long candidate) {
+        long current = value.get();
+        while (candidate > current && !value.compareAndSet(current, candidate)) {
+            current = value.get();
+        }
+    }
+
+    private static void updateMin(AtomicLong value, long candidate) {
+        long current = value.get();
+        while (candidate < current && !value.compareAndSet(current, candidate)) {
+            current = value.get();
+        }
+    }
+
+    // keyword 하나의 ack 된 가장 큰 id 와, 그보다 작게 watermark 를 붙잡는 전송 중 / 실패한 id
+    private static final class KeywordWatermark {
+
+        private final AtomicLong highestAcked;
+
+        private final AtomicLong lowestFailed = new AtomicLong(Long.MAX_VALUE);
+
+        // tryAccept 와 callback 스레드가 같이 쓰므로 잠그고 쓴다
+        private final SortedLongBag inFlight = new SortedLongBag(64);
+
+        private KeywordWatermark(long resumeWatermark) {
+            this.highestAcked = new AtomicLong(resumeWatermark);
+        }
+
+        private void track(long tweetId) {
+            synchronized (inFlight) {
+                inFlight.add(tweetId);
+            }
+        }
+
+        private void complete(long tweetId, boolean acked) {
+            if (acked) {
+                updateMax(highestAcked, tweetId);
+            } else {
+                updateMin(lowestFailed, tweetId);
+            }
+            synchronized (inFlight) {
+                inFlight.remove(tweetId);
+            }
+        }
+
+        private long current() {
+            long watermark = Math.min(highestAcked.get(), lowestFailed.get() - 1);
+            long lowestInFlight;
+            synchronized (inFlight) {
+                lowestInFlight = inFlight.min();
+            }
+            if (lowestInFlight != Long.MAX_VALUE) {
+                watermark = Math.min(watermark, lowestInFlight - 1);
+            }
+            return watermark;
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+package com.jh.generator;
+
+/**
+ * on / off 주기로 반복되는 burst 스케줄.
+ * 시작 후 경과 시간만으로 배율이 정해지므로 같은 설정이면 항상 같은 모양의 트래픽이 나온다.
+ */
+public class BurstSchedule {
+
+    private static final BurstSchedule NONE = new BurstSchedule(0, 0, 1.0);
+
+    private final long burstOnMs;
+
+    private final long burstOffMs;
+
+    private final double burstRateMultiplier;
+
+    public BurstSchedule(long burstOnMs, long burstOffMs, double burstRateMultiplier) {
+        if (burstOnMs < 0 || burstOffMs < 0 || burstRateMultiplier <= 0) {
+            throw new IllegalArgumentException("Invalid burst schedule: on " + burstOnMs + "ms, off " + burstOffMs
+                    + "ms, multiplier " + burstRateMultiplier);
+        }
+        this.burstOnMs = burstOnMs;
+        this.burstOffMs = burstOffMs;
+        this.burstRateMultiplier = burstRateMultiplier;
+    }
+
+    public static BurstSchedule none() {
+        return NONE;
+    }
+
+    // off 구간은 기본 rate(1.0), on 구간은 burstRateMultiplier 배
+    public double rateMultiplierAt(long elapsedMs) {
+        if (burstOnMs == 0) {
+            return 1.0;
+        }
+        long period = burstOnMs + burstOffMs;
+        return elapsedMs % period < burstOnMs ? burstRateMultiplier : 1.0;
+    }
+
+    public boolean isEnabled() {
+        return burstOnMs > 0 && burstRateMultiplier != 1.0;
+    }
+
+}
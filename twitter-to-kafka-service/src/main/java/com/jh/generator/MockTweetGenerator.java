@@ -0,0 +1,129 @@
+package com.jh.generator;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * 한 스레드 전용 mock tweet json 생성기. 스레드 간 공유하지 않는다.
+ */
+public class MockTweetGenerator {
+
+    private static final String TWITTER_STATUS_DATE_FORMAT = "EEE MMM dd HH:mm:ss Z yyyy";
+
+    private static final DateTimeFormatter TWITTER_STATUS_DATE_FORMATTER =
+            DateTimeFormatter.ofPattern(TWITTER_STATUS_DATE_FORMAT, Locale.ENGLISH);
+
+    // streamIndex 를 tweet id 하위 자리에 섞어 스레드 간 id 가 겹치지 않게 한다
+    private static final int MAX_STREAMS = 1024;
+
+    // snowflake id 의 기준 시각과 timestamp 아래 비트 수
+    private static final long TWITTER_EPOCH_MS = 1288834974657L;
+
+    private static final int SNOWFLAKE_TIMESTAMP_SHIFT = 22;
+
+    private final MockWorkload workload;
+
+    private final SplittableRandom random;
+
+    private final int streamIndex;
+
+    private final long firstTweetId;
+
+    private long sequence;
+
+    MockTweetGenerator(MockWorkload workload, int streamIndex) {
+        if (streamIndex < 0 || streamIndex >= MAX_STREAMS) {
+            throw new IllegalArgumentException("Stream index must be between 0 and " + (MAX_STREAMS - 1));
+        }
+        this.workload = workload;
+        this.streamIndex = streamIndex;
+        this.random = new SplittableRandom(mix(workload.getSeed() + streamIndex));
+        // 시작 시각의 snowflake id 에서 시작해 재시작해도 이전 실행의 id 보다 커지게 한다 (dedup watermark)
+        this.firstTweetId = snowflakeId(System.currentTimeMillis());
+    }
+
+    public String nextTweet() {
+        return new StringBuilder(256)
+                .append("{\n")
+                .append("  \"created_at\": \"")
+                .append(formatCreatedAt(System.currentTimeMillis())).append("\",\n")
+                .append("  \"id\": ").append(nextTweetId()).append(",\n")
+                .append("  \"text\": \"").append(nextTweetContent()).append("\",\n")
+                .append("  \"user\": {\n")
+                .append("    \"id\": ").append(nextUserId()).append("\n")
+                .append("  }\n")
+                .append("}")
+                .toString();
+    }
+
+    /**
+     * 그 시각에 만들어진 tweet 의 snowflake id 하한. timestamp 아래 비트가 0 이므로 MAX_STREAMS 의 배수다.
+     */
+    static long snowflakeId(long epochMs) {
+        return (epochMs - TWITTER_EPOCH_MS) << SNOWFLAKE_TIMESTAMP_SHIFT;
+    }
+
+    static String formatCreatedAt(long epochMs) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZoneOffset.UTC)
+                .format(TWITTER_STATUS_DATE_FORMATTER);
+    }
+
+    private long nextTweetId() {
+        return firstTweetId + (sequence++) * MAX_STREAMS + streamIndex;
+    }
+
+    private long nextUserId() {
+        ZipfDistribution userDistribution = workload.getUserDistribution();
+        if (userDistribution == null) {
+            return random.nextLong(Long.MAX_VALUE);
+        }
+        // rank 를 그대로 쓰면 인기 사용자 id 가 작은 수에 몰리므로 seed 와 섞어 흩뿌린다
+        int rank = userDistribution.sample(random);
+        return mix(workload.getSeed() ^ (rank + 1) * 0x9E3779B97F4A7C15L) & Long.MAX_VALUE;
+    }
+
+    private String nextTweetContent() {
+        StringBuilder sb = new StringBuilder();
+        int tweetLength = nextTweetLength();
+        boolean withKeyword = random.nextDouble() < workload.getKeywordProbability();
+
+        for (int i = 0; i < tweetLength; i++) {
+            sb.append(MockWorkload.WORDS[random.nextInt(MockWorkload.WORDS.length)]).append(" ");
+
+            if (withKeyword && i == tweetLength / 2) {
+                sb.append(workload.getKeywordSampler().sample(random)).append(" ");
+            }
+        }
+
+        return sb.toString().trim();
+    }
+
+    private int nextTweetLength() {
+        int min = workload.getMinTweetLength();
+        int max = workload.getMaxTweetLength();
+        if (!workload.isGaussianTextLength()) {
+            return min + random.nextInt(max - min + 1);
+        }
+        double length = workload.getTextLengthMean() + nextGaussian() * workload.getTextLengthStdDev();
+        return (int) Math.max(min, Math.min(max, Math.round(length)));
+    }
+
+    // SplittableRandom 에는 nextGaussian 이 없어 Box-Muller 로 계산
+    private double nextGaussian() {
+        double u1 = 1.0 - random.nextDouble();
+        double u2 = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.jh.generator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 부하 생성 중에 tweet json 을 만드는 비용이 측정에 섞이지 않도록 미리 만들어 둔 payload 풀.
+ * 각 generator 스레드는 자기 cursor 로 풀을 순환한다.
+ * <p>
+ * 풀을 그대로 돌려 쓰면 tweet id 와 created_at 이 반복되어 dedup 이 부하를 걸러 버린다.
+ * 그래서 payload 를 id 와 created_at 값 자리에서 잘라 두고, 꺼낼 때마다 단조 증가하는 새 id 와
+ * 현재 시각(초 단위로 캐시)을 끼워 넣는다.
+ */
+public class MockTweetPayloadPool {
+
+    private static final String CREATED_AT_FIELD = "\"created_at\": \"";
+
+    private static final String ID_FIELD = "\"id\": ";
+
+    // created_at 값 앞, created_at 값 뒤부터 id 값 앞, id 값 뒤. 필드가 없는 payload 는 prefix 만 있다
+    private final String[] prefixes;
+
+    private final String[] middles;
+
+    private final String[] suffixes;
+
+    private final AtomicLong nextTweetId = new AtomicLong(MockTweetGenerator.snowflakeId(System.currentTimeMillis()));
+
+    private volatile CreatedAt createdAt = new CreatedAt(Long.MIN_VALUE, null);
+
+    public MockTweetPayloadPool(int size, Supplier<String> payloadSupplier) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Payload pool size must be positive: " + size);
+        }
+        prefixes = new String[size];
+        middles = new String[size];
+        suffixes = new String[size];
+        for (int i = 0; i < size; i++) {
+            split(i, payloadSupplier.get());
+        }
+    }
+
+    public String get(long cursor) {
+        int index = (int) (cursor % prefixes.length);
+        if (middles[index] == null) {
+            return prefixes[index];
+        }
+        String prefix = prefixes[index];
+        String middle = middles[index];
+        String suffix = suffixes[index];
+        String created = currentCreatedAt();
+        return new StringBuilder(prefix.length() + created.length() + middle.length() + 20 + suffix.length())
+                .append(prefix).append(created)
+                .append(middle).append(nextTweetId.getAndIncrement())
+                .append(suffix)
+                .toString();
+    }
+
+    public int size() {
+        return prefixes.length;
+    }
+
+    // created_at 이 id 보다 앞에 있는 top-level 필드라고 본다 (MockTweetGenerator 형식)
+    private void split(int index, String payload) {
+        int createdAtStart = payload.indexOf(CREATED_AT_FIELD);
+        int createdAtEnd = createdAtStart < 0 ? -1 : payload.indexOf('"', createdAtStart + CREATED_AT_FIELD.length());
+        int idStart = createdAtEnd < 0 ? -1 : payload.indexOf(ID_FIELD, createdAtEnd);
+        if (idStart < 0) {
+            prefixes[index] = payload;
+            return;
+        }
+        int idValueStart = idStart + ID_FIELD.length();
+        int idValueEnd = idValueStart;
+        while (idValueEnd < payload.length() && Character.isDigit(payload.charAt(idValueEnd))) {
+            idValueEnd++;
+        }
+        prefixes[index] = payload.substring(0, createdAtStart + CREATED_AT_FIELD.length());
+        middles[index] = payload.substring(createdAtEnd, idValueStart);
+        suffixes[index] = payload.substring(idValueEnd);
+    }
+
+    private String currentCreatedAt() {
+        long nowMs = System.currentTimeMillis();
+        long second = nowMs / 1000;
+        CreatedAt cached = createdAt;
+        if (cached.second != second) {
+            cached = new CreatedAt(second, MockTweetGenerator.formatCreatedAt(nowMs));
+            createdAt = cached;
+        }
+        return cached.formatted;
+    }
+
+    private static final class CreatedAt {
+
+        private final long second;
+
+        private final String formatted;
+
+        private CreatedAt(long second, String formatted) {
+            this.second = second;
+            this.formatted = formatted;
+        }
+
+    }
+
+}
@@ -0,0 +1,168 @@
+package com.jh.generator;
+
+import com.jh.config.TwitterToKafkaServiceConfigData;
+import com.jh.config.TwitterToKafkaServiceConfigData.MockWorkloadProfile;
+import com.jh.exception.TwitterToKafkaServiceException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * mock-workload-profile 로 선택한 부하 모양(사용자 분포, 키워드 비율, 길이 분포, burst, seed).
+ * 불변 객체이고, 스레드마다 newGenerator(streamIndex) 로 독립된 generator 를 만들어 쓴다.
+ * <p>
+ * 같은 seed 와 streamIndex 면 generator 가 만드는 tweet 시퀀스(created_at 제외)가 항상 같다.
+ */
+@Getter
+@Slf4j
+public class MockWorkload {
+
+    static final String[] WORDS = new String[]{
+            "lorem", "ipsum", "dolor", "sit", "amet",
+            "consectetur", "adipiscing", "elit", "sed", "do",
+            "eiusmod", "tempor", "incididunt", "ut", "labore",
+            "et", "dolore", "magna", "aliqua", "enim"
+    };
+
+    private static final String UNIFORM_PROFILE_NAME = "uniform";
+
+    private final String name;
+
+    private final long seed;
+
+    private final WeightedSampler keywordSampler;
+
+    private final double keywordProbability;
+
+    // null 이면 사용자 id 를 균등하게 뽑는다
+    private final ZipfDistribution userDistribution;
+
+    private final int minTweetLength;
+
+    private final int maxTweetLength;
+
+    private final boolean gaussianTextLength;
+
+    private final double textLengthMean;
+
+    private final double textLengthStdDev;
+
+    private final BurstSchedule burstSchedule;
+
+    private MockWorkload(String name, long seed, WeightedSampler keywordSampler, double keywordProbability,
+                         ZipfDistribution userDistribution, int minTweetLength, int maxTweetLength,
+                         boolean gaussianTextLength, double textLengthMean, double textLengthStdDev,
+                         BurstSchedule burstSchedule) {
+        if (minTweetLength <= 0 || maxTweetLength < minTweetLength) {
+            throw new TwitterToKafkaServiceException("Invalid mock tweet length range: " + minTweetLength
+                    + " - " + maxTweetLength);
+        }
+        this.name = name;
+        this.seed = seed;
+        this.keywordSampler = keywordSampler;
+        this.keywordProbability = keywordProbability;
+        this.userDistribution = userDistribution;
+        this.minTweetLength = minTweetLength;
+        this.maxTweetLength = maxTweetLength;
+        this.gaussianTextLength = gaussianTextLength;
+        this.textLengthMean = textLengthMean;
+        this.textLengthStdDev = textLengthStdDev;
+        this.burstSchedule = burstSchedule;
+    }
+
+    public static MockWorkload fromConfig(TwitterToKafkaServiceConfigData configData) {
+        String[] keywords = configData.getTwitterKeywords().toArray(new String[0]);
+        int minTweetLength = configData.getMockMinTweetLength();
+        int maxTweetLength = configData.getMockMaxTweetLength();
+
+        String profileName = configData.getMockWorkloadProfile();
+        if (profileName == null || profileName.isEmpty()) {
+            return new MockWorkload(UNIFORM_PROFILE_NAME, ThreadLocalRandom.current().nextLong(),
+                    uniformSampler(keywords), 1.0, null, minTweetLength, maxTweetLength,
+                    false, 0, 0, BurstSchedule.none());
+        }
+
+        Map<String, MockWorkloadProfile> profiles = configData.getMockWorkloadProfiles();
+        MockWorkloadProfile profile = profiles == null ? null : profiles.get(profileName);
+        if (profile == null) {
+            throw new TwitterToKafkaServiceException("Unknown mock workload profile: " + profileName);
+        }
+
+        long seed = profile.getSeed() != null ? profile.getSeed() : ThreadLocalRandom.current().nextLong();
+
+        ZipfDistribution userDistribution = null;
+        if (profile.getUserPopulation() != null) {
+            double exponent = profile.getZipfExponent() != null ? profile.getZipfExponent() : 1.0;
+            userDistribution = new ZipfDistribution(profile.getUserPopulation(), exponent);
+        }
+
+        BurstSchedule burstSchedule = BurstSchedule.none();
+        if (profile.getBurstOnMs() != null && profile.getBurstOffMs() != null) {
+            burstSchedule = new BurstSchedule(profile.getBurstOnMs(), profile.getBurstOffMs(),
+                    profile.getBurstRateMultiplier() != null ? profile.getBurstRateMultiplier() : 1.0);
+        }
+
+        boolean gaussianTextLength = "gaussian".equalsIgnoreCase(profile.getTextLengthDistribution());
+        int profileMinTweetLength = profile.getMinTweetLength() != null ? profile.getMinTweetLength() : minTweetLength;
+        int profileMaxTweetLength = profile.getMaxTweetLength() != null ? profile.getMaxTweetLength() : maxTweetLength;
+
+        MockWorkload workload = new MockWorkload(profileName, seed,
+                keywordSampler(keywords, profile.getKeywordWeights()),
+                profile.getKeywordProbability() != null ? profile.getKeywordProbability() : 1.0,
+                userDistribution,
+                profileMinTweetLength,
+                profileMaxTweetLength,
+                gaussianTextLength,
+                profile.getTextLengthMean() != null
+                        ? profile.getTextLengthMean() : (profileMinTweetLength + profileMaxTweetLength) / 2.0,
+                profile.getTextLengthStdDev() != null ? profile.getTextLengthStdDev() : 1.0,
+                burstSchedule);
+
+        log.info("Using mock workload profile {} with seed {} (set seed to replay this run)", profileName, seed);
+        return workload;
+    }
+
+    public MockTweetGenerator newGenerator(int streamIndex) {
+        return new MockTweetGenerator(this, streamIndex);
+    }
+
+    private static WeightedSampler uniformSampler(String[] keywords) {
+        double[] weights = new double[keywords.length];
+        for (int i = 0; i < keywords.length; i++) {
+            weights[i] = 1.0;
+        }
+        return new WeightedSampler(keywords, weights);
+    }
+
+    // 프로필에 비율이 없는 키워드는 등장하지 않는다
+    private static WeightedSampler keywordSampler(String[] keywords, Map<String, Integer> keywordWeights) {
+        if (keywordWeights == null || keywordWeights.isEmpty()) {
+            return uniformSampler(keywords);
+        }
+
+        double[] weights = new double[keywords.length];
+        for (Map.Entry<String, Integer> entry : keywordWeights.entrySet()) {
+            int index = indexOfIgnoreCase(keywords, entry.getKey());
+            if (index < 0) {
+                throw new TwitterToKafkaServiceException("Keyword weight for unknown keyword: " + entry.getKey());
+            }
+            weights[index] = entry.getValue();
+        }
+        return new WeightedSampler(keywords, weights);
+    }
+
+    private static int indexOfIgnoreCase(String[] keywords, String keyword) {
+        String target = keyword.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < keywords.length; i++) {
+            if (keywords[i].toLowerCase(Locale.ROOT).equals(target)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
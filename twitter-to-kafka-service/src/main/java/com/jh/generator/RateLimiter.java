@@ -0,0 +1,57 @@
+package com.jh.generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 여러 generator 스레드가 공유하는 pacing rate limiter.
+ * <p>
+ * 다음 발행 슬롯(nanoTime)을 CAS 로 하나씩 예약하고, 슬롯 시각까지 park 한다.
+ * 뒤처진 경우 슬롯을 현재 시각으로 당기기 때문에 밀린 만큼 한꺼번에 쏟아내지 않는다.
+ * 따라서 목표 rate 를 따라가지 못하면 실제 달성 rate 가 그만큼 낮게 측정된다.
+ */
+public class RateLimiter {
+
+    private final AtomicLong nextSlotNanos = new AtomicLong(System.nanoTime());
+
+    private volatile long intervalNanos;
+
+    public RateLimiter(double permitsPerSecond) {
+        setRate(permitsPerSecond);
+    }
+
+    public void setRate(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: " + permitsPerSecond);
+        }
+        intervalNanos = Math.max(1L, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+    }
+
+    public double getRate() {
+        return (double) TimeUnit.SECONDS.toNanos(1) / intervalNanos;
+    }
+
+    public void acquire() {
+        long interval = intervalNanos;
+        long now = System.nanoTime();
+        long slot;
+        while (true) {
+            long next = nextSlotNanos.get();
+            slot = Math.max(next, now);
+            if (nextSlotNanos.compareAndSet(next, slot + interval)) {
+                break;
+            }
+        }
+
+        long waitNanos = slot - now;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            waitNanos = slot - System.nanoTime();
+        }
+    }
+
+}
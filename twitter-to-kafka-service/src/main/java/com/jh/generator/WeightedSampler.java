@@ -0,0 +1,41 @@
+package com.jh.generator;
+
+import java.util.SplittableRandom;
+
+public class WeightedSampler {
+
+    private final String[] values;
+
+    private final double[] cumulativeWeights;
+
+    public WeightedSampler(String[] values, double[] weights) {
+        if (values.length == 0 || values.length != weights.length) {
+            throw new IllegalArgumentException("Values and weights must be non-empty and of the same length");
+        }
+
+        this.values = values.clone();
+        cumulativeWeights = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + values[i]);
+            }
+            sum += weights[i];
+            cumulativeWeights[i] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+    }
+
+    public String sample(SplittableRandom random) {
+        double u = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (u < cumulativeWeights[i]) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+}
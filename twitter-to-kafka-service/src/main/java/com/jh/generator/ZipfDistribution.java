@@ -0,0 +1,57 @@
+package com.jh.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * rank k (1..n) 가 1 / k^s 에 비례하는 확률로 뽑히는 Zipf 분포.
+ * 누적 분포를 한 번 계산해 두고 이진 탐색으로 샘플링하므로 불변이고 스레드 간 공유할 수 있다.
+ */
+public class ZipfDistribution {
+
+    // cdf 배열이 8 byte * n 을 차지하므로 컨테이너 heap 을 고려해 상한을 둔다
+    private static final int MAX_POPULATION = 1_000_000;
+
+    private final double[] cdf;
+
+    public ZipfDistribution(int population, double exponent) {
+        if (population <= 0 || population > MAX_POPULATION) {
+            throw new IllegalArgumentException("Zipf population must be between 1 and " + MAX_POPULATION
+                    + ": " + population);
+        }
+        if (exponent < 0) {
+            throw new IllegalArgumentException("Zipf exponent must not be negative: " + exponent);
+        }
+
+        cdf = new double[population];
+        double sum = 0;
+        for (int k = 1; k <= population; k++) {
+            sum += 1.0 / Math.pow(k, exponent);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < population; i++) {
+            cdf[i] /= sum;
+        }
+        cdf[population - 1] = 1.0;
+    }
+
+    // 0 부터 시작하는 rank, 0 이 가장 자주 나온다
+    public int sample(SplittableRandom random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getPopulation() {
+        return cdf.length;
+    }
+
+}
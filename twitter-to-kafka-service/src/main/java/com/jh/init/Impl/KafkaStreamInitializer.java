@@ -2,10 +2,15 @@ package com.jh.init.Impl;
 
 import com.jh.client.KafkaAdminClient;
 import com.jh.config.KafkaConfigData;
+import com.jh.config.RetryConfigData;
+import com.jh.exception.TwitterToKafkaServiceException;
 import com.jh.init.StreamInitializer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 
 @Configuration
 @RequiredArgsConstructor
@@ -14,13 +19,39 @@ public class KafkaStreamInitializer implements StreamInitializer {
 
     private final KafkaConfigData kafkaConfigData;
 
+    private final RetryConfigData retryConfigData;
+
     private final KafkaAdminClient kafkaAdminClient;
 
+    /**
+     * 토픽 생성 / 준비 확인과 schema registry 확인을 동시에 돌리고 둘 다 끝날 때까지 한 번만 기다린다.
+     * 시작 시간은 두 의존성의 합이 아니라 느린 쪽에 맞춰지고, 전체는 startup-timeout-ms 로 제한된다.
+     */
     @Override
     public void init() {
-        kafkaAdminClient.createTopics();
-        kafkaAdminClient.checkSchemaRegistry();
+        long startMs = System.currentTimeMillis();
+
+        Mono<Void> topicsReady = kafkaAdminClient.createTopicsAsync()
+                .then(kafkaAdminClient.awaitTopicsReady());
+
+        Mono<Void> schemaRegistryReady;
+        if (KafkaConfigData.WIRE_FORMAT_SINGLE_OBJECT.equals(kafkaConfigData.getWireFormat())) {
+            log.info("Wire format is {}, skipping schema registry check", kafkaConfigData.getWireFormat());
+            schemaRegistryReady = Mono.empty();
+        } else {
+            schemaRegistryReady = kafkaAdminClient.awaitSchemaRegistry();
+        }
+
+        try {
+            Mono.when(topicsReady, schemaRegistryReady)
+                    .timeout(Duration.ofMillis(retryConfigData.getStartupTimeoutMs()))
+                    .block();
+        } catch (RuntimeException e) {
+            throw new TwitterToKafkaServiceException("Kafka dependencies are not ready after "
+                    + (System.currentTimeMillis() - startMs) + " ms", e);
+        }
 
-        log.info("Topics with name {} is ready for operations!", kafkaConfigData.getTopicNamesToCreate().toArray());
+        log.info("Topics with name {} is ready for operations! ({} ms)",
+                kafkaConfigData.getTopicNamesToCreate().toArray(), System.currentTimeMillis() - startMs);
     }
 }
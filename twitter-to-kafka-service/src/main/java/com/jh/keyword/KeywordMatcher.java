@@ -0,0 +1,156 @@
+package com.jh.keyword;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 여러 keyword 를 한 번의 텍스트 순회로 찾는 Aho-Corasick 매처.
+ * <p>
+ * keyword 와 텍스트 모두 문자 단위로 소문자로 접어서 비교하고, 단어 중간에 걸친 매치
+ * ("Java" 와 "JavaScript")는 앞뒤 문자가 글자/숫자가 아닐 때만 인정한다.
+ * failure link 를 미리 전이 테이블에 펼쳐 둔 DFA 라서 문자당 배열 조회 한 번이면 된다.
+ * 매치 결과는 keyword 목록의 index 를 비트로 갖는 long 이므로 keyword 는 64 개까지 받는다.
+ */
+public final class KeywordMatcher {
+
+    public static final int MAX_KEYWORDS = Long.SIZE;
+
+    private static final int ROOT = 0;
+
+    private final List<String> keywords;
+
+    private final int[] keywordLengths;
+
+    // 문자 -> 전이 테이블 열. keyword 에 없는 문자는 모두 0 열을 쓴다
+    private final char[] columnByChar;
+
+    private final int columns;
+
+    private final int[] transitions;
+
+    private final long[] outputs;
+
+    public KeywordMatcher(List<String> keywords) {
+        if (keywords.size() > MAX_KEYWORDS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYWORDS + " keywords are supported: " + keywords.size());
+        }
+        this.keywords = Collections.unmodifiableList(new ArrayList<>(keywords));
+        this.keywordLengths = new int[keywords.size()];
+
+        columnByChar = new char[Character.MAX_VALUE + 1];
+        int columnCount = 1;
+        int maxStates = 1;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = Character.toLowerCase(keyword.charAt(i));
+                if (columnByChar[c] == 0) {
+                    columnByChar[c] = (char) columnCount++;
+                }
+            }
+            maxStates += keyword.length();
+        }
+        columns = columnCount;
+
+        int[] trie = new int[maxStates * columns];
+        Arrays.fill(trie, -1);
+        long[] trieOutputs = new long[maxStates];
+        int states = 1;
+
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            keywordLengths[k] = keyword.length();
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                int slot = state * columns + columnByChar[Character.toLowerCase(keyword.charAt(i))];
+                if (trie[slot] == -1) {
+                    trie[slot] = states++;
+                }
+                state = trie[slot];
+            }
+            trieOutputs[state] |= 1L << k;
+        }
+
+        // BFS 로 failure link 를 구하면서 없는 전이를 failure 상태의 전이로 채운다
+        int[] failure = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        for (int c = 0; c < columns; c++) {
+            int child = trie[c];
+            if (child == -1) {
+                trie[c] = ROOT;
+            } else {
+                failure[child] = ROOT;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            trieOutputs[state] |= trieOutputs[failure[state]];
+            for (int c = 0; c < columns; c++) {
+                int slot = state * columns + c;
+                int fallback = trie[failure[state] * columns + c];
+                if (trie[slot] == -1) {
+                    trie[slot] = fallback;
+                } else {
+                    failure[trie[slot]] = fallback;
+                    queue[tail++] = trie[slot];
+                }
+            }
+        }
+
+        transitions = Arrays.copyOf(trie, states * columns);
+        outputs = Arrays.copyOf(trieOutputs, states);
+    }
+
+    /**
+     * 텍스트에 나온 keyword 의 index 비트 집합. 없으면 0.
+     */
+    public long match(CharSequence text) {
+        if (text == null) {
+            return 0L;
+        }
+        long matched = 0L;
+        int state = ROOT;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * columns + columnByChar[Character.toLowerCase(text.charAt(i))]];
+            long candidates = outputs[state] & ~matched;
+            if (candidates != 0L) {
+                matched |= onWordBoundary(candidates, text, i);
+            }
+        }
+        return matched;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public int size() {
+        return keywords.size();
+    }
+
+    private long onWordBoundary(long candidates, CharSequence text, int end) {
+        long accepted = 0L;
+        boolean endsOnBoundary = isBoundary(text, end + 1);
+        while (candidates != 0L) {
+            int k = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (endsOnBoundary && isBoundary(text, end - keywordLengths[k])) {
+                accepted |= 1L << k;
+            }
+        }
+        return accepted;
+    }
+
+    private static boolean isBoundary(CharSequence text, int index) {
+        return index < 0 || index >= text.length() || !Character.isLetterOrDigit(text.charAt(index));
+    }
+
+}
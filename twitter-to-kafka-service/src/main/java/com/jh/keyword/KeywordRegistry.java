@@ -0,0 +1,146 @@
+package com.jh.keyword;
+
+import com.jh.config.KafkaConfigData;
+import com.jh.config.KeywordRoutingConfigData;
+import com.jh.config.TwitterToKafkaServiceConfigData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 현재 keyword 목록으로 컴파일된 KeywordRoutingTable 을 들고 있다.
+ * <p>
+ * keyword 가 바뀌면 새 테이블을 만들어 AtomicReference 로 교체하고, 등록된 리스너
+ * (예: live stream 의 filter 갱신)에 새 목록을 알린다. keywords-file 이 설정되어 있으면
+ * 파일 수정 시각을 주기적으로 확인해 다시 읽는다. 한 줄에 keyword 하나, # 으로 시작하면 주석.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KeywordRegistry {
+
+    private final TwitterToKafkaServiceConfigData twitterToKafkaServiceConfigData;
+
+    private final KafkaConfigData kafkaConfigData;
+
+    private final KeywordRoutingConfigData keywordRoutingConfigData;
+
+    private final AtomicReference<KeywordRoutingTable> routingTable = new AtomicReference<>();
+
+    private final List<Consumer<List<String>>> keywordChangeListeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService reloadExecutor;
+
+    private FileTime lastModifiedTime;
+
+    @PostConstruct
+    public void init() {
+        String keywordsFile = keywordRoutingConfigData.getKeywordsFile();
+        if (keywordsFile == null || keywordsFile.isEmpty()) {
+            update(twitterToKafkaServiceConfigData.getTwitterKeywords());
+            return;
+        }
+
+        Path path = Paths.get(keywordsFile);
+        if (!reloadIfModified(path)) {
+            update(twitterToKafkaServiceConfigData.getTwitterKeywords());
+        }
+
+        long reloadIntervalMs = keywordRoutingConfigData.getReloadIntervalMs();
+        reloadExecutor = Executors.newSingleThreadScheduledExecutor();
+        reloadExecutor.scheduleWithFixedDelay(() -> reloadIfModified(path),
+                reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Watching keywords file {} every {} ms", path, reloadIntervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+    }
+
+    public KeywordRoutingTable current() {
+        return routingTable.get();
+    }
+
+    public List<String> getKeywords() {
+        return routingTable.get().getKeywords();
+    }
+
+    public void addKeywordChangeListener(Consumer<List<String>> listener) {
+        keywordChangeListeners.add(listener);
+    }
+
+    /**
+     * 새 keyword 목록으로 매처를 다시 만들어 교체한다. 목록이 같으면 아무것도 하지 않는다.
+     */
+    public synchronized void update(List<String> keywords) {
+        KeywordRoutingTable previous = routingTable.get();
+        if (previous != null && previous.getKeywords().equals(keywords)) {
+            return;
+        }
+
+        KeywordRoutingTable table = new KeywordRoutingTable(keywords,
+                keywordRoutingConfigData.getTopics(),
+                kafkaConfigData.getTopicName(),
+                Boolean.TRUE.equals(keywordRoutingConfigData.getFanOut()));
+        routingTable.set(table);
+        log.info("Compiled keyword matcher for keywords {}, topics {}", table.getKeywords(), table.getTopics());
+
+        if (previous != null) {
+            for (Consumer<List<String>> listener : keywordChangeListeners) {
+                try {
+                    listener.accept(table.getKeywords());
+                } catch (RuntimeException e) {
+                    log.error("Error notifying keyword change listener", e);
+                }
+            }
+        }
+    }
+
+    // 파일이 바뀌었으면 다시 읽어 교체하고 true 를 반환한다
+    private boolean reloadIfModified(Path path) {
+        try {
+            if (!Files.exists(path)) {
+                log.warn("Keywords file {} does not exist", path);
+                return false;
+            }
+            FileTime modifiedTime = Files.getLastModifiedTime(path);
+            if (modifiedTime.equals(lastModifiedTime)) {
+                return false;
+            }
+            List<String> keywords = new ArrayList<>();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String keyword = line.trim();
+                if (!keyword.isEmpty() && !keyword.startsWith("#")) {
+                    keywords.add(keyword);
+                }
+            }
+            lastModifiedTime = modifiedTime;
+            update(keywords);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Error reloading keywords file {}", path, e);
+            return false;
+        }
+    }
+
+}
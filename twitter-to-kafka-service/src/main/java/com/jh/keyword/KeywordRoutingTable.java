@@ -0,0 +1,122 @@
+package com.jh.keyword;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 컴파일된 매처와 keyword -> topic 라우팅을 한 번에 묶은 불변 스냅샷.
+ * keyword 목록이 바뀌면 통째로 새로 만들어 교체하므로 읽는 쪽은 잠금 없이 쓴다.
+ * <p>
+ * topic 도 index 비트로 다룬다. 0 번은 기본 topic 이고 라우팅이 없는 keyword 와
+ * 아무 keyword 도 매치되지 않은 tweet 은 기본 topic 으로 간다.
+ */
+public final class KeywordRoutingTable {
+
+    public static final String KEYWORD_IDS_HEADER = "keyword-ids";
+
+    private static final int DEFAULT_TOPIC_INDEX = 0;
+
+    private final KeywordMatcher matcher;
+
+    private final List<String> topics;
+
+    private final int[] topicIndexByKeyword;
+
+    private final boolean fanOut;
+
+    public KeywordRoutingTable(List<String> keywords, Map<String, String> topicByKeyword,
+                               String defaultTopic, boolean fanOut) {
+        this.matcher = new KeywordMatcher(keywords);
+        this.fanOut = fanOut;
+        this.topicIndexByKeyword = new int[keywords.size()];
+
+        List<String> topicList = new ArrayList<>();
+        topicList.add(defaultTopic);
+        for (int k = 0; k < keywords.size(); k++) {
+            String topic = findTopic(topicByKeyword, keywords.get(k));
+            if (topic == null) {
+                topicIndexByKeyword[k] = DEFAULT_TOPIC_INDEX;
+                continue;
+            }
+            int index = topicList.indexOf(topic);
+            if (index < 0) {
+                if (topicList.size() == Long.SIZE) {
+                    throw new IllegalArgumentException("At most " + (Long.SIZE - 1) + " routed topics are supported");
+                }
+                index = topicList.size();
+                topicList.add(topic);
+            }
+            topicIndexByKeyword[k] = index;
+        }
+        this.topics = Collections.unmodifiableList(topicList);
+    }
+
+    public long match(CharSequence text) {
+        return matcher.match(text);
+    }
+
+    /**
+     * 매치된 keyword 비트로 보낼 topic 의 index 비트를 구한다.
+     * fan-out 이 꺼져 있으면 가장 작은 id 의 keyword 하나만 따른다.
+     */
+    public long topicsFor(long keywordIds) {
+        if (keywordIds == 0L) {
+            return 1L << DEFAULT_TOPIC_INDEX;
+        }
+        if (!fanOut) {
+            return 1L << topicIndexByKeyword[Long.numberOfTrailingZeros(keywordIds)];
+        }
+        long topicBits = 0L;
+        while (keywordIds != 0L) {
+            int k = Long.numberOfTrailingZeros(keywordIds);
+            keywordIds &= keywordIds - 1;
+            topicBits |= 1L << topicIndexByKeyword[k];
+        }
+        return topicBits;
+    }
+
+    public String topic(int topicIndex) {
+        return topics.get(topicIndex);
+    }
+
+    // "0,3" 처럼 매치된 keyword id 를 쉼표로 이은 header. 매치가 없으면 null
+    public List<Header> keywordIdsHeaders(long keywordIds) {
+        if (keywordIds == 0L) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        while (keywordIds != 0L) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(Long.numberOfTrailingZeros(keywordIds));
+            keywordIds &= keywordIds - 1;
+        }
+        return Collections.singletonList(
+                new RecordHeader(KEYWORD_IDS_HEADER, sb.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    public List<String> getKeywords() {
+        return matcher.getKeywords();
+    }
+
+    public List<String> getTopics() {
+        return topics;
+    }
+
+    private static String findTopic(Map<String, String> topicByKeyword, String keyword) {
+        for (Map.Entry<String, String> entry : topicByKeyword.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(keyword)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+}
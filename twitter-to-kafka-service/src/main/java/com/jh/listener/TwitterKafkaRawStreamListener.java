@@ -0,0 +1,34 @@
+package com.jh.listener;
+
+import com.jh.exception.TwitterToKafkaServiceException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import twitter4j.RawStreamListener;
+
+/**
+ * enable-streaming-json-transformer 가 켜져 있을 때 live stream 에 등록되는 리스너.
+ * twitter4j 가 Status 를 만들기 전의 raw json 을 그대로 받아 fast path 로 넘긴다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TwitterKafkaRawStreamListener implements RawStreamListener {
+
+    private final TwitterKafkaStatusListener twitterKafkaStatusListener;
+
+    @Override
+    public void onMessage(String rawString) {
+        try {
+            twitterKafkaStatusListener.onRawStatus(rawString);
+        } catch (TwitterToKafkaServiceException e) {
+            log.error("Error transforming raw twitter message", e);
+        }
+    }
+
+    @Override
+    public void onException(Exception ex) {
+        log.error("Twitter raw stream error", ex);
+    }
+
+}
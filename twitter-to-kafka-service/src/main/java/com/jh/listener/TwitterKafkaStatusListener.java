@@ -1,7 +1,10 @@
 package com.jh.listener;
 
-import com.jh.config.KafkaConfigData;
+import com.jh.config.HeavyHitterConfigData;
+import com.jh.routing.TweetRouter;
 import com.jh.service.KafkaProducer;
+import com.jh.sketch.HeavyHitterTracker;
+import com.jh.transformer.TwitterJsonToAvroTransformer;
 import com.jh.transformer.TwitterStatusToAvroTransformer;
 import com.jh.avro.model.TwitterAvroModel;
 import lombok.RequiredArgsConstructor;
@@ -15,18 +18,43 @@ import twitter4j.StatusAdapter;
 @Slf4j
 public class TwitterKafkaStatusListener extends StatusAdapter {
 
-    private final KafkaConfigData kafkaConfigData;
-
     private final KafkaProducer<Long, TwitterAvroModel> kafkaProducer;
 
     private final TwitterStatusToAvroTransformer twitterStatusToAvroTransformer;
 
+    private final TwitterJsonToAvroTransformer twitterJsonToAvroTransformer;
+
+    private final TweetRouter tweetRouter;
+
+    private final HeavyHitterConfigData heavyHitterConfigData;
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
     @Override
     public void onStatus(Status status) {
-        log.info("Twitter status with text {}", status.getText());
+        log.debug("Twitter status with text {}", status.getText());
 
         TwitterAvroModel twitterAvroModel = twitterStatusToAvroTransformer.getTwitterAvroModelFromStatus(status);
-        kafkaProducer.send(kafkaConfigData.getTopicName(), twitterAvroModel.getUserId(), twitterAvroModel);
+        publish(twitterAvroModel);
+    }
+
+    // Status 를 거치지 않는 fast path
+    public void onRawStatus(String rawJson) {
+        TwitterAvroModel twitterAvroModel = twitterJsonToAvroTransformer.getTwitterAvroModelFromJson(rawJson);
+        if (twitterAvroModel == null) {
+            log.debug("Skipping non-status message {}", rawJson);
+            return;
+        }
+
+        log.debug("Twitter status with text {}", twitterAvroModel.getText());
+        publish(twitterAvroModel);
+    }
+
+    public void publish(TwitterAvroModel twitterAvroModel) {
+        if (Boolean.TRUE.equals(heavyHitterConfigData.getEnable())) {
+            heavyHitterTracker.record(twitterAvroModel);
+        }
+        tweetRouter.route(twitterAvroModel, kafkaProducer::send);
     }
 
 }
@@ -0,0 +1,191 @@
+package com.jh.pipeline;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.HeavyHitterConfigData;
+import com.jh.config.ReactivePipelineConfigData;
+import com.jh.exception.TwitterToKafkaServiceException;
+import com.jh.routing.TweetRouter;
+import com.jh.service.SendCallback;
+import com.jh.sketch.HeavyHitterTracker;
+import com.jh.transformer.TwitterJsonToAvroTransformer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * runner 가 내보내는 Flux 를 변환 -> 라우팅 -> 전송 operator 로 잇는다.
+ * <p>
+ * 전송은 reactor-kafka KafkaSender 가 맡고, ack 를 기다리는 레코드가 max-in-flight 개가 되면
+ * upstream 에 더 요청하지 않는다. 이 요청이 소스까지 그대로 올라가므로 mock / replay 소스는
+ * Kafka 가 받아주는 만큼만 만든다. 늦출 수 없는 live stream 은 fromLiveSource 로 감싸 버퍼를 넘으면 버린다.
+ * <p>
+ * 실패한 전송은 건너뛰고 계속 보낸다 (stopOnError=false). ring buffer / spill log 는 거치지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "reactive-pipeline-config.enable", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveTweetPipeline {
+
+    // 라우팅 단계가 한 번에 upstream 에 요청하는 개수. 실제 상한은 sender 의 max-in-flight 다
+    private static final int ROUTE_PREFETCH = 32;
+
+    private final ReactivePipelineConfigData reactivePipelineConfigData;
+
+    private final KafkaSender<Long, TwitterAvroModel> kafkaSender;
+
+    private final TwitterJsonToAvroTransformer twitterJsonToAvroTransformer;
+
+    private final TweetRouter tweetRouter;
+
+    private final HeavyHitterConfigData heavyHitterConfigData;
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    private final LongAdder receivedCount = new LongAdder();
+    private final LongAdder skippedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    private Disposable subscription;
+
+    private ScheduledExecutorService reportExecutor;
+
+    public synchronized void start(Flux<TwitterAvroModel> tweets) {
+        if (subscription != null) {
+            throw new TwitterToKafkaServiceException("Reactive pipeline is already started");
+        }
+        log.info("Starting reactive pipeline with max in flight {}", reactivePipelineConfigData.getMaxInFlight());
+
+        boolean heavyHitters = Boolean.TRUE.equals(heavyHitterConfigData.getEnable());
+        subscription = kafkaSender.send(tweets
+                        .doOnNext(twitterAvroModel -> {
+                            receivedCount.increment();
+                            if (heavyHitters) {
+                                heavyHitterTracker.record(twitterAvroModel);
+                            }
+                        })
+                        .flatMapIterable(this::route, ROUTE_PREFETCH))
+                .subscribe(this::onSendResult,
+                        e -> log.error("Reactive pipeline stopped", e),
+                        () -> log.info("Reactive pipeline completed, sent {}, failed {}",
+                                sentCount.sum(), failedCount.sum()));
+
+        startReport();
+    }
+
+    /**
+     * raw json 을 TwitterAvroModel 로 바꾸는 단계. status 가 아니거나 깨진 json 은 건너뛴다.
+     */
+    public Flux<TwitterAvroModel> transformRawJson(Flux<String> rawStatuses) {
+        return rawStatuses.handle((rawJson, sink) -> {
+            TwitterAvroModel twitterAvroModel;
+            try {
+                twitterAvroModel = twitterJsonToAvroTransformer.getTwitterAvroModelFromJson(rawJson);
+            } catch (TwitterToKafkaServiceException e) {
+                log.debug("Skipping unparsable message {}", rawJson, e);
+                twitterAvroModel = null;
+            }
+            if (twitterAvroModel == null) {
+                skippedCount.increment();
+                return;
+            }
+            sink.next(twitterAvroModel);
+        });
+    }
+
+    /**
+     * 요청과 상관없이 밀려 들어오는 소스용. live-buffer-size 를 넘으면 가장 오래된 것부터 버린다.
+     */
+    public <T> Flux<T> fromLiveSource(Flux<T> liveSource) {
+        return liveSource.onBackpressureBuffer(reactivePipelineConfigData.getLiveBufferSize(),
+                dropped -> droppedCount.increment(), BufferOverflowStrategy.DROP_OLDEST);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+        }
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    // correlation metadata 로 전송 결과를 받을 callback 을 싣는다
+    private List<SenderRecord<Long, TwitterAvroModel, SendCallback>> route(TwitterAvroModel twitterAvroModel) {
+        List<SenderRecord<Long, TwitterAvroModel, SendCallback>> records = new ArrayList<>(1);
+        tweetRouter.route(twitterAvroModel, (topicName, key, value, headers, callback) -> {
+            long tweetId = value.getId();
+            records.add(SenderRecord.create(new ProducerRecord<>(topicName, null, key, value, headers), exception -> {
+                if (exception != null) {
+                    log.error("Error while sending tweet {}", tweetId, exception);
+                }
+                if (callback != null) {
+                    callback.onCompletion(exception);
+                }
+            }));
+        });
+        return records;
+    }
+
+    private void onSendResult(SenderResult<SendCallback> senderResult) {
+        if (senderResult.exception() != null) {
+            failedCount.increment();
+        } else {
+            sentCount.increment();
+        }
+        senderResult.correlationMetadata().onCompletion(senderResult.exception());
+    }
+
+    private void startReport() {
+        long reportIntervalMs = reactivePipelineConfigData.getReportIntervalMs();
+        reportExecutor = Executors.newSingleThreadScheduledExecutor();
+        reportExecutor.scheduleAtFixedRate(new Runnable() {
+            private long lastCount;
+            private long lastNanos = System.nanoTime();
+
+            @Override
+            public void run() {
+                long count = sentCount.sum();
+                long now = System.nanoTime();
+                double rate = (count - lastCount) * (double) TimeUnit.SECONDS.toNanos(1) / (now - lastNanos);
+                log.info("Reactive pipeline sent {} msgs/sec, received {}, sent {}, failed {}, skipped {}, dropped {}",
+                        String.format("%.1f", rate), receivedCount.sum(), count, failedCount.sum(),
+                        skippedCount.sum(), droppedCount.sum());
+                lastCount = count;
+                lastNanos = now;
+            }
+        }, reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+}
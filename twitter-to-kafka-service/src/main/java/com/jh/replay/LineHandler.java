@@ -0,0 +1,10 @@
+package com.jh.replay;
+
+/**
+ * 파일에서 읽은 한 줄. bytes 는 재사용되므로 호출이 끝난 뒤에는 참조하면 안 된다.
+ */
+public interface LineHandler {
+
+    void onLine(byte[] bytes, int offset, int length);
+
+}
@@ -0,0 +1,11 @@
+package com.jh.replay;
+
+public enum ReplayMode {
+
+    // 읽는 대로 바로 보낸다
+    AS_FAST_AS_POSSIBLE,
+
+    // tweet 의 created_at 간격(replay-speedup 배)대로 보낸다
+    ORIGINAL_TIMESTAMP
+
+}
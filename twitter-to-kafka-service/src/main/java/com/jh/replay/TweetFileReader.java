@@ -0,0 +1,133 @@
+package com.jh.replay;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 줄 단위(newline-delimited) tweet json 파일을 읽어 한 줄씩 넘긴다.
+ * <p>
+ * 일반 파일은 window 단위로 mmap 해서 커널 page cache 를 바로 읽고, .gz 파일은 GZIPInputStream 으로 읽는다.
+ * 어느 쪽이든 줄을 재사용 버퍼에 복사해서 넘기므로 줄마다 String 을 만들지 않는다.
+ * 빈 줄과 줄 끝의 \r 은 건너뛴다.
+ */
+public class TweetFileReader {
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private static final int MAPPING_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+    private static final int INITIAL_LINE_BUFFER_BYTES = 8 * 1024;
+
+    private byte[] lineBuffer = new byte[INITIAL_LINE_BUFFER_BYTES];
+
+    private int lineLength;
+
+    /**
+     * @return 넘긴 줄 수
+     */
+    public long read(Path path, LineHandler lineHandler) throws IOException {
+        if (path.getFileName().toString().endsWith(GZIP_SUFFIX)) {
+            return readGzip(path, lineHandler);
+        }
+        return readMapped(path, lineHandler);
+    }
+
+    private long readMapped(Path path, LineHandler lineHandler) throws IOException {
+        long lines = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = 0;
+            while (windowStart < size) {
+                int windowLength = (int) Math.min(MAPPING_WINDOW_BYTES, size - windowStart);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+                boolean lastWindow = windowStart + windowLength == size;
+
+                int lineStart = 0;
+                for (int i = 0; i < windowLength; i++) {
+                    if (window.get(i) == '\n') {
+                        lines += emit(window, lineStart, i - lineStart, lineHandler);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lastWindow) {
+                    lines += emit(window, lineStart, windowLength - lineStart, lineHandler);
+                    break;
+                }
+                if (lineStart == 0) {
+                    throw new IOException("Line longer than " + MAPPING_WINDOW_BYTES + " bytes in " + path);
+                }
+                // window 경계에 걸친 줄은 다음 window 의 처음부터 다시 읽는다
+                windowStart += lineStart;
+            }
+        }
+        return lines;
+    }
+
+    private long readGzip(Path path, LineHandler lineHandler) throws IOException {
+        long lines = 0;
+        lineLength = 0;
+        byte[] chunk = new byte[GZIP_BUFFER_BYTES];
+        try (InputStream in = new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(path), GZIP_BUFFER_BYTES), GZIP_BUFFER_BYTES)) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (chunk[i] == '\n') {
+                        appendToLine(chunk, lineStart, i - lineStart);
+                        lines += flushLine(lineHandler);
+                        lineStart = i + 1;
+                    }
+                }
+                appendToLine(chunk, lineStart, read - lineStart);
+            }
+        }
+        lines += flushLine(lineHandler);
+        return lines;
+    }
+
+    // 줄 경계는 absolute get 으로 찾으므로 position 은 복사에만 쓴다 (Java 8 에는 absolute bulk get 이 없다)
+    private int emit(MappedByteBuffer window, int start, int length, LineHandler lineHandler) {
+        ensureLineCapacity(length);
+        window.position(start);
+        window.get(lineBuffer, 0, length);
+        lineLength = length;
+        return flushLine(lineHandler);
+    }
+
+    private void appendToLine(byte[] bytes, int offset, int length) {
+        ensureLineCapacity(lineLength + length);
+        System.arraycopy(bytes, offset, lineBuffer, lineLength, length);
+        lineLength += length;
+    }
+
+    private int flushLine(LineHandler lineHandler) {
+        int length = lineLength;
+        lineLength = 0;
+        if (length > 0 && lineBuffer[length - 1] == '\r') {
+            length--;
+        }
+        if (length == 0) {
+            return 0;
+        }
+        lineHandler.onLine(lineBuffer, 0, length);
+        return 1;
+    }
+
+    private void ensureLineCapacity(int capacity) {
+        if (capacity > lineBuffer.length) {
+            lineBuffer = Arrays.copyOf(lineBuffer, Math.max(capacity, lineBuffer.length * 2));
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.jh.routing;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.KafkaConfigData;
+import com.jh.config.KeywordRoutingConfigData;
+import com.jh.config.TweetDedupConfigData;
+import com.jh.dedup.TweetDeduplicator;
+import com.jh.keyword.KeywordRegistry;
+import com.jh.keyword.KeywordRoutingTable;
+import com.jh.service.SendCallback;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * tweet 하나를 보낼 (topic, key, header) 들로 바꾼다. 콜백 리스너와 reactive pipeline 이 같이 쓴다.
+ * <p>
+ * dedup 이 켜져 있으면 중복 tweet 은 아무것도 넘기지 않고, keyword routing 이 켜져 있으면
+ * 매치된 keyword id header 를 붙여 keyword 별 topic 마다 넘긴다.
+ * dedup 이 켜져 있으면 넘기는 callback 으로 전송 결과를 받아 dedup watermark 를 올린다. 아니면 callback 은 null 이다.
+ * RouteConsumer 가 예외를 던지면 callback 을 그 예외로 끝낸 뒤 다시 던진다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TweetRouter {
+
+    private final KafkaConfigData kafkaConfigData;
+
+    private final KeywordRoutingConfigData keywordRoutingConfigData;
+
+    private final KeywordRegistry keywordRegistry;
+
+    private final TweetDedupConfigData tweetDedupConfigData;
+
+    private final TweetDeduplicator tweetDeduplicator;
+
+    @FunctionalInterface
+    public interface RouteConsumer {
+
+        void accept(String topicName, Long key, TwitterAvroModel value, List<Header> headers, SendCallback callback);
+
+    }
+
+    public void route(TwitterAvroModel twitterAvroModel, RouteConsumer routeConsumer) {
+        boolean keywordRouting = Boolean.TRUE.equals(keywordRoutingConfigData.getEnable());
+        boolean dedup = Boolean.TRUE.equals(tweetDedupConfigData.getEnable());
+        if (!keywordRouting && !dedup) {
+            send(routeConsumer, kafkaConfigData.getTopicName(), twitterAvroModel, null, null);
+            return;
+        }
+
+        KeywordRoutingTable routingTable = keywordRegistry.current();
+        long keywordIds = routingTable.match(twitterAvroModel.getText());
+
+        if (dedup && !tweetDeduplicator.tryAccept(twitterAvroModel.getId(), keywordIds, routingTable.getKeywords())) {
+            log.debug("Skipping duplicate tweet {}", twitterAvroModel.getId());
+            return;
+        }
+
+        if (!keywordRouting) {
+            SendCallback callback = tweetDeduplicator.sendCallback(twitterAvroModel.getId(), keywordIds,
+                    routingTable.getKeywords(), 1);
+            send(routeConsumer, kafkaConfigData.getTopicName(), twitterAvroModel, null, callback);
+            return;
+        }
+
+        // 매치된 keyword id 를 header 로 붙이고 keyword 별 topic 으로 보낸다
+        List<Header> headers = routingTable.keywordIdsHeaders(keywordIds);
+        long topicIndexes = routingTable.topicsFor(keywordIds);
+        SendCallback callback = dedup ? tweetDeduplicator.sendCallback(twitterAvroModel.getId(), keywordIds,
+                routingTable.getKeywords(), Long.bitCount(topicIndexes)) : null;
+        while (topicIndexes != 0L) {
+            String topicName = routingTable.topic(Long.numberOfTrailingZeros(topicIndexes));
+            topicIndexes &= topicIndexes - 1;
+            send(routeConsumer, topicName, twitterAvroModel, headers, callback);
+        }
+    }
+
+    // 보내기 전에 던진 예외(serialization, max.block.ms 초과 등)는 callback 이 불리지 않으므로 여기서 실패로 알린다.
+    // 그러지 않으면 dedup 이 그 tweet 을 계속 전송 중으로 보고 watermark 를 붙잡는다
+    private static void send(RouteConsumer routeConsumer, String topicName, TwitterAvroModel twitterAvroModel,
+                             List<Header> headers, SendCallback callback) {
+        try {
+            routeConsumer.accept(topicName, twitterAvroModel.getUserId(), twitterAvroModel, headers, callback);
+        } catch (RuntimeException e) {
+            if (callback != null) {
+                callback.onCompletion(e);
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,247 @@
+package com.jh.runner.Impl;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.TwitterToKafkaServiceConfigData;
+import com.jh.exception.TwitterToKafkaServiceException;
+import com.jh.listener.TwitterKafkaStatusListener;
+import com.jh.pipeline.ReactiveTweetPipeline;
+import com.jh.replay.ReplayMode;
+import com.jh.replay.TweetFileReader;
+import com.jh.runner.StreamRunner;
+import com.jh.transformer.TwitterJsonToAvroTransformer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 녹화해 둔 tweet json 파일(한 줄에 하나)을 다시 흘려 실제 payload 모양으로 처리량을 잰다.
+ * <p>
+ * 줄은 재사용 버퍼의 바이트 그대로 스트리밍 변환기로 넘기므로 줄마다 String 을 만들지 않는다.
+ * ORIGINAL_TIMESTAMP 모드는 첫 tweet 의 created_at 을 기준으로 원래 간격 / replay-speedup 만큼 기다렸다 보낸다.
+ * reactive pipeline 이 있으면 downstream 요청이 없을 때 읽기 스레드가 멈춰 기다린다.
+ */
+@Component
+@ConditionalOnProperty(name = "twitter-to-kafka-service.enable-file-replay", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class FileReplayKafkaStreamRunner implements StreamRunner {
+
+    private final TwitterToKafkaServiceConfigData twitterToKafkaServiceConfigData;
+
+    private final TwitterKafkaStatusListener twitterKafkaStatusListener;
+
+    private final TwitterJsonToAvroTransformer twitterJsonToAvroTransformer;
+
+    private final ObjectProvider<ReactiveTweetPipeline> reactiveTweetPipelineProvider;
+
+    // 요청을 기다리는 동안 cancel / interrupt 를 확인하는 간격
+    private static final long DEMAND_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final LongAdder replayedCount = new LongAdder();
+
+    private final LongAdder skippedCount = new LongAdder();
+
+    private ExecutorService replayExecutor;
+
+    private ScheduledExecutorService reportExecutor;
+
+    @Override
+    public void start() throws Exception {
+        List<Path> files = resolveFiles(twitterToKafkaServiceConfigData.getReplayFiles());
+        if (files.isEmpty()) {
+            throw new TwitterToKafkaServiceException("No replay files found in "
+                    + twitterToKafkaServiceConfigData.getReplayFiles());
+        }
+        ReplayMode replayMode = ReplayMode.valueOf(twitterToKafkaServiceConfigData.getReplayMode());
+        boolean loop = Boolean.TRUE.equals(twitterToKafkaServiceConfigData.getReplayLoop());
+
+        log.info("Starting file replay of {} files in {} mode, loop {}", files.size(), replayMode, loop);
+
+        replayExecutor = Executors.newSingleThreadExecutor();
+        ReactiveTweetPipeline reactiveTweetPipeline = reactiveTweetPipelineProvider.getIfAvailable();
+        if (reactiveTweetPipeline != null) {
+            reactiveTweetPipeline.start(Flux.create(sink -> replayExecutor.submit(() -> {
+                Thread replayThread = Thread.currentThread();
+                sink.onRequest(n -> LockSupport.unpark(replayThread));
+                replayAll(files, replayMode, loop, twitterAvroModel -> emit(sink, twitterAvroModel));
+                sink.complete();
+            }), FluxSink.OverflowStrategy.ERROR));
+        } else {
+            replayExecutor.submit(() -> replayAll(files, replayMode, loop, twitterKafkaStatusListener::publish));
+        }
+
+        startRateReport();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (replayExecutor != null) {
+            replayExecutor.shutdownNow();
+        }
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+        }
+    }
+
+    private void replayAll(List<Path> files, ReplayMode replayMode, boolean loop,
+                           Consumer<TwitterAvroModel> publisher) {
+        try {
+            do {
+                replay(files, replayMode, publisher);
+            } while (loop && !Thread.currentThread().isInterrupted());
+            log.info("File replay finished, replayed {} tweets, skipped {} lines",
+                    replayedCount.sum(), skippedCount.sum());
+        } catch (IOException e) {
+            log.error("Error reading replay file", e);
+        } catch (RuntimeException e) {
+            log.error("File replay stopped", e);
+        }
+    }
+
+    // downstream 이 요청할 때까지 읽기 스레드를 세운다. 요청이 오면 onRequest 에서 깨운다
+    private void emit(FluxSink<TwitterAvroModel> sink, TwitterAvroModel twitterAvroModel) {
+        while (sink.requestedFromDownstream() == 0) {
+            if (sink.isCancelled() || Thread.currentThread().isInterrupted()) {
+                throw new TwitterToKafkaServiceException("File replay is cancelled");
+            }
+            LockSupport.parkNanos(DEMAND_WAIT_NANOS);
+        }
+        sink.next(twitterAvroModel);
+    }
+
+    private void replay(List<Path> files, ReplayMode replayMode, Consumer<TwitterAvroModel> publisher)
+            throws IOException {
+        TweetFileReader reader = new TweetFileReader();
+        Pacer pacer = replayMode == ReplayMode.ORIGINAL_TIMESTAMP
+                ? new Pacer(twitterToKafkaServiceConfigData.getReplaySpeedup()) : null;
+
+        for (Path file : files) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            long lines = reader.read(file, (bytes, offset, length) -> {
+                TwitterAvroModel twitterAvroModel;
+                try {
+                    twitterAvroModel = twitterJsonToAvroTransformer.getTwitterAvroModelFromJson(bytes, offset, length);
+                } catch (TwitterToKafkaServiceException e) {
+                    log.debug("Skipping unparsable line in {}", file, e);
+                    twitterAvroModel = null;
+                }
+                if (twitterAvroModel == null) {
+                    skippedCount.increment();
+                    return;
+                }
+                if (pacer != null && twitterAvroModel.getCreatedAt() != null) {
+                    pacer.await(twitterAvroModel.getCreatedAt());
+                }
+                publisher.accept(twitterAvroModel);
+                replayedCount.increment();
+            });
+            log.info("Replayed {} lines from {}", lines, file);
+        }
+    }
+
+    private void startRateReport() {
+        long reportIntervalMs = twitterToKafkaServiceConfigData.getReplayRateReportIntervalMs();
+        reportExecutor = Executors.newSingleThreadScheduledExecutor();
+        reportExecutor.scheduleAtFixedRate(new Runnable() {
+            private long lastCount;
+            private long lastNanos = System.nanoTime();
+
+            @Override
+            public void run() {
+                long count = replayedCount.sum();
+                long now = System.nanoTime();
+                double rate = (count - lastCount) * (double) TimeUnit.SECONDS.toNanos(1) / (now - lastNanos);
+                log.info("File replay achieved {} msgs/sec, total {}, skipped {}",
+                        String.format("%.1f", rate), count, skippedCount.sum());
+                lastCount = count;
+                lastNanos = now;
+            }
+        }, reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    // 디렉터리는 안의 일반 파일을 이름 순으로 읽는다
+    private static List<Path> resolveFiles(List<String> locations) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (locations == null) {
+            return files;
+        }
+        for (String location : locations) {
+            Path path = Paths.get(location);
+            if (Files.isDirectory(path)) {
+                List<Path> children = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                    for (Path child : stream) {
+                        if (Files.isRegularFile(child)) {
+                            children.add(child);
+                        }
+                    }
+                }
+                Collections.sort(children);
+                files.addAll(children);
+            } else if (Files.isRegularFile(path)) {
+                files.add(path);
+            } else {
+                log.warn("Replay file {} does not exist", path);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 첫 tweet 시각과 시작 시각을 맞춰 두고, 이후 tweet 은 (created_at - 첫 created_at) / speedup 시점까지 기다린다.
+     * 원래 순서가 뒤바뀐 tweet 은 기다리지 않고 바로 보낸다.
+     */
+    private static final class Pacer {
+
+        private final double speedup;
+
+        private long firstCreatedAt = Long.MIN_VALUE;
+
+        private long startNanos;
+
+        private Pacer(double speedup) {
+            if (speedup <= 0) {
+                throw new IllegalArgumentException("Replay speedup must be positive: " + speedup);
+            }
+            this.speedup = speedup;
+        }
+
+        private void await(long createdAt) {
+            if (firstCreatedAt == Long.MIN_VALUE) {
+                firstCreatedAt = createdAt;
+                startNanos = System.nanoTime();
+                return;
+            }
+            long dueNanos = startNanos + (long) (TimeUnit.MILLISECONDS.toNanos(createdAt - firstCreatedAt) / speedup);
+            long waitNanos;
+            while ((waitNanos = dueNanos - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(waitNanos);
+            }
+        }
+
+    }
+
+}
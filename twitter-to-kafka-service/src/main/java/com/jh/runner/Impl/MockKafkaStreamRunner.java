@@ -2,25 +2,37 @@ package com.jh.runner.Impl;
 
 import com.jh.config.TwitterToKafkaServiceConfigData;
 import com.jh.exception.TwitterToKafkaServiceException;
+import com.jh.generator.BurstSchedule;
+import com.jh.generator.MockTweetGenerator;
+import com.jh.generator.MockTweetPayloadPool;
+import com.jh.generator.MockWorkload;
+import com.jh.generator.RateLimiter;
 import com.jh.listener.TwitterKafkaStatusListener;
+import com.jh.pipeline.ReactiveTweetPipeline;
 import com.jh.runner.StreamRunner;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 import twitter4j.Status;
 import twitter4j.TwitterException;
 import twitter4j.TwitterObjectFactory;
 
-import java.text.SimpleDateFormat;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.*;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
-@ConditionalOnProperty(name = "twitter-to-kafka-service.enable-mock-tweets", havingValue = "true")
+// file replay 가 켜져 있으면 그쪽이 우선한다
+@ConditionalOnExpression("${twitter-to-kafka-service.enable-mock-tweets:false} " +
+        "&& !${twitter-to-kafka-service.enable-file-replay:false}")
 @RequiredArgsConstructor
 @Slf4j
 public class MockKafkaStreamRunner implements StreamRunner {
@@ -29,55 +41,60 @@ public class MockKafkaStreamRunner implements StreamRunner {
 
     private final TwitterKafkaStatusListener twitterKafkaStatusListener;
 
-    private static final Random RANDOM = new Random();
-
-    private static final String[] WORDS = new String[]{
-            "lorem", "ipsum", "dolor", "sit", "amet",
-            "consectetur", "adipiscing", "elit", "sed", "do",
-            "eiusmod", "tempor", "incididunt", "ut", "labore",
-            "et", "dolore", "magna", "aliqua", "enim"
-    };
-
-    private static final String tweetAsRawJson =
-            "{\n" +
-            "  \"created_at\": \"" + getFormattedDateForTwitter() + "\",\n" +
-            "  \"id\": {1},\n" +
-            "  \"text\": \"{2}\",\n" +
-            "  \"user\": {\n" +
-            "    \"id\": {3}\n" +
-            "  }\n" +
-            "}";
-
-    private static final String TWITTER_STATUS_DATE_FORMAT = "EEE MMM dd HH:mm:ss ZZZZZ yyyy";
-
-    // TODO: 시간 관련 정리하기
-    private static String getFormattedDateForTwitter() {
-        SimpleDateFormat twitterDateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss Z yyyy", Locale.ENGLISH);
-        twitterDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return twitterDateFormat.format(new Date());
-    }
+    private final ObjectProvider<ReactiveTweetPipeline> reactiveTweetPipelineProvider;
+
+    private static final long BURST_UPDATE_INTERVAL_MS = 10;
+
+    private final LongAdder generatedCount = new LongAdder();
+
+    private ExecutorService generatorExecutor;
+
+    private ScheduledExecutorService reportExecutor;
 
     @Override
     public void start() throws Exception {
         String[] keywords = twitterToKafkaServiceConfigData.getTwitterKeywords().toArray(new String[0]);
-        int minTweetLength = twitterToKafkaServiceConfigData.getMockMinTweetLength();
-        int maxTweetLength = twitterToKafkaServiceConfigData.getMockMaxTweetLength();
+        MockWorkload workload = MockWorkload.fromConfig(twitterToKafkaServiceConfigData);
         long sleepTimeMs = twitterToKafkaServiceConfigData.getMockSleepMs();
+        boolean streamingJsonTransformer =
+                Boolean.TRUE.equals(twitterToKafkaServiceConfigData.getEnableStreamingJsonTransformer());
 
         log.info("Starting mock filtering twitter stream for keywords {}", Arrays.toString(keywords));
 
-        simulateTwitterStream(keywords, minTweetLength, maxTweetLength, sleepTimeMs);
+        ReactiveTweetPipeline reactiveTweetPipeline = reactiveTweetPipelineProvider.getIfAvailable();
+        if (Boolean.TRUE.equals(twitterToKafkaServiceConfigData.getEnableMockLoadGenerator())) {
+            simulateLoadGenerator(workload, streamingJsonTransformer, reactiveTweetPipeline);
+        } else if (reactiveTweetPipeline != null) {
+            simulateReactiveTwitterStream(workload, sleepTimeMs, reactiveTweetPipeline);
+        } else {
+            simulateTwitterStream(workload, sleepTimeMs, streamingJsonTransformer);
+        }
     }
 
-    private void simulateTwitterStream(String[] keywords, int minTweetLength, int maxTweetLength, long sleepTimeMs) {
+    @PreDestroy
+    public void shutdown() {
+        if (generatorExecutor != null) {
+            generatorExecutor.shutdownNow();
+        }
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+        }
+    }
+
+    private void simulateTwitterStream(MockWorkload workload, long sleepTimeMs, boolean streamingJsonTransformer) {
+        MockTweetGenerator mockTweetGenerator = workload.newGenerator(0);
+        BurstSchedule burstSchedule = workload.getBurstSchedule();
+        long startMs = System.currentTimeMillis();
+
         // Runner
-        Executors.newSingleThreadExecutor().submit(() -> {
+        generatorExecutor = Executors.newSingleThreadExecutor();
+        generatorExecutor.submit(() -> {
             try {
                 while (true) {
-                    String formattedTweetAsRawJson = getFormattedTweet(keywords, minTweetLength, maxTweetLength);
-                    Status status = TwitterObjectFactory.createStatus(formattedTweetAsRawJson);
-                    twitterKafkaStatusListener.onStatus(status);
-                    sleep(sleepTimeMs);
+                    String formattedTweetAsRawJson = mockTweetGenerator.nextTweet();
+                    publish(formattedTweetAsRawJson, streamingJsonTransformer);
+                    double rateMultiplier = burstSchedule.rateMultiplierAt(System.currentTimeMillis() - startMs);
+                    sleep((long) (sleepTimeMs / rateMultiplier));
                 }
             } catch (TwitterException e) {
                 log.error("Error creating twitter status", e);
@@ -85,43 +102,112 @@ public class MockKafkaStreamRunner implements StreamRunner {
         });
     }
 
-    private void sleep(long sleepTimeMs) {
-        try {
-            Thread.sleep(sleepTimeMs);
-        } catch (InterruptedException e) {
-            throw new TwitterToKafkaServiceException("Error sleeping", e);
-        }
+    // reactive pipeline 이 요청할 때만 다음 tweet 을 만든다. sleep 은 요청을 받은 generator 스레드에서 한다
+    private void simulateReactiveTwitterStream(MockWorkload workload, long sleepTimeMs,
+                                               ReactiveTweetPipeline reactiveTweetPipeline) {
+        MockTweetGenerator mockTweetGenerator = workload.newGenerator(0);
+        BurstSchedule burstSchedule = workload.getBurstSchedule();
+        long startMs = System.currentTimeMillis();
+
+        generatorExecutor = Executors.newSingleThreadExecutor();
+        Flux<String> rawStatuses = Flux.generate(sink -> {
+            sink.next(mockTweetGenerator.nextTweet());
+            double rateMultiplier = burstSchedule.rateMultiplierAt(System.currentTimeMillis() - startMs);
+            sleep((long) (sleepTimeMs / rateMultiplier));
+        });
+        reactiveTweetPipeline.start(reactiveTweetPipeline.transformRawJson(
+                rawStatuses.subscribeOn(Schedulers.fromExecutorService(generatorExecutor))));
     }
 
-    private String getFormattedTweet(String[] keywords, int minTweetLength, int maxTweetLength) {
-        String[] params = new String[] {
-                ZonedDateTime.now().format(DateTimeFormatter.ofPattern(TWITTER_STATUS_DATE_FORMAT, Locale.ENGLISH)), // 시간대 고민 필요
-                String.valueOf(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE)),
-                getRandomTweetContent(keywords, minTweetLength, maxTweetLength),
-                String.valueOf(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE))
-
-        };
-
-        String tweet = tweetAsRawJson;
+    /**
+     * sleep 대신 rate limiter 로 목표 msgs/sec 를 맞추는 부하 생성 모드.
+     * payload 는 미리 만들어 둔 풀에서 꺼내 쓰되 id 와 created_at 은 꺼낼 때마다 새로 찍어 dedup 에 걸리지 않게 하고,
+     * 실제 달성 rate 를 주기적으로 로그로 남긴다.
+     * reactive pipeline 이 있으면 스레드 하나가 downstream 요청만큼만 만들어 넘긴다.
+     */
+    private void simulateLoadGenerator(MockWorkload workload, boolean streamingJsonTransformer,
+                                       ReactiveTweetPipeline reactiveTweetPipeline) {
+        int targetRate = twitterToKafkaServiceConfigData.getMockTargetRatePerSecond();
+        int threads = reactiveTweetPipeline != null ? 1 : twitterToKafkaServiceConfigData.getMockGeneratorThreads();
+        long reportIntervalMs = twitterToKafkaServiceConfigData.getMockRateReportIntervalMs();
+
+        MockTweetPayloadPool payloadPool = new MockTweetPayloadPool(
+                twitterToKafkaServiceConfigData.getMockPayloadPoolSize(),
+                workload.newGenerator(0)::nextTweet);
+        RateLimiter rateLimiter = new RateLimiter(targetRate);
+        BurstSchedule burstSchedule = workload.getBurstSchedule();
+
+        log.info("Starting mock load generator, target rate {} msgs/sec, {} threads, payload pool size {}",
+                targetRate, threads, payloadPool.size());
+
+        generatorExecutor = Executors.newFixedThreadPool(threads);
+        if (reactiveTweetPipeline != null) {
+            Flux<String> rawStatuses = Flux.generate(() -> 0L, (cursor, sink) -> {
+                rateLimiter.acquire();
+                sink.next(payloadPool.get(cursor));
+                generatedCount.increment();
+                return cursor + 1;
+            });
+            reactiveTweetPipeline.start(reactiveTweetPipeline.transformRawJson(
+                    rawStatuses.subscribeOn(Schedulers.fromExecutorService(generatorExecutor))));
+        } else {
+            for (int i = 0; i < threads; i++) {
+                long initialCursor = (long) i * payloadPool.size() / threads;
+                generatorExecutor.submit(() -> {
+                    long cursor = initialCursor;
+                    try {
+                        while (!Thread.currentThread().isInterrupted()) {
+                            rateLimiter.acquire();
+                            publish(payloadPool.get(cursor++), streamingJsonTransformer);
+                            generatedCount.increment();
+                        }
+                    } catch (TwitterException e) {
+                        log.error("Error creating twitter status", e);
+                    } catch (RuntimeException e) {
+                        log.error("Load generator thread stopped", e);
+                    }
+                });
+            }
+        }
 
-        for (int i = 0; i < params.length; i++) {
-            tweet = tweet.replace("{" + i + "}", params[i]);
+        reportExecutor = Executors.newScheduledThreadPool(2);
+        if (burstSchedule.isEnabled()) {
+            long startMs = System.currentTimeMillis();
+            reportExecutor.scheduleAtFixedRate(() -> rateLimiter.setRate(
+                            targetRate * burstSchedule.rateMultiplierAt(System.currentTimeMillis() - startMs)),
+                    BURST_UPDATE_INTERVAL_MS, BURST_UPDATE_INTERVAL_MS, TimeUnit.MILLISECONDS);
         }
-        return tweet;
+        reportExecutor.scheduleAtFixedRate(new Runnable() {
+            private long lastCount;
+            private long lastNanos = System.nanoTime();
+
+            @Override
+            public void run() {
+                long count = generatedCount.sum();
+                long now = System.nanoTime();
+                double achievedRate = (count - lastCount) * (double) TimeUnit.SECONDS.toNanos(1) / (now - lastNanos);
+                log.info("Mock load generator achieved {} msgs/sec (target {}), total {}",
+                        String.format("%.1f", achievedRate), targetRate, count);
+                lastCount = count;
+                lastNanos = now;
+            }
+        }, reportIntervalMs, reportIntervalMs, TimeUnit.MILLISECONDS);
     }
 
-    private String getRandomTweetContent(String[] keywords, int minTweetLength, int maxTweetLength) {
-        StringBuilder sb = new StringBuilder();
-        int tweetLength = RANDOM.nextInt(maxTweetLength - minTweetLength + 1) + minTweetLength;
-
-        for (int i = 0; i < tweetLength; i++) {
-            sb.append(WORDS[RANDOM.nextInt(WORDS.length)]).append(" ");
-
-            if (i == tweetLength / 2) {
-                sb.append(keywords[RANDOM.nextInt(keywords.length)]).append(" ");
-            }
+    private void publish(String formattedTweetAsRawJson, boolean streamingJsonTransformer) throws TwitterException {
+        if (streamingJsonTransformer) {
+            twitterKafkaStatusListener.onRawStatus(formattedTweetAsRawJson);
+        } else {
+            Status status = TwitterObjectFactory.createStatus(formattedTweetAsRawJson);
+            twitterKafkaStatusListener.onStatus(status);
         }
+    }
 
-        return sb.toString().trim();
+    private void sleep(long sleepTimeMs) {
+        try {
+            Thread.sleep(sleepTimeMs);
+        } catch (InterruptedException e) {
+            throw new TwitterToKafkaServiceException("Error sleeping", e);
+        }
     }
 }
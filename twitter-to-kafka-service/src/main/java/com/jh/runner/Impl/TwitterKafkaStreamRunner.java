@@ -2,21 +2,29 @@ package com.jh.runner.Impl;
 
 
 import com.jh.config.TwitterToKafkaServiceConfigData;
+import com.jh.keyword.KeywordRegistry;
+import com.jh.listener.TwitterKafkaRawStreamListener;
 import com.jh.listener.TwitterKafkaStatusListener;
+import com.jh.pipeline.ReactiveTweetPipeline;
 import com.jh.runner.StreamRunner;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import twitter4j.FilterQuery;
+import twitter4j.RawStreamListener;
 import twitter4j.TwitterStream;
 import twitter4j.TwitterStreamFactory;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Component
-@ConditionalOnProperty(name="twitter-to-kafka-service.enable-mock-tweets", havingValue = "false", matchIfMissing = true)
+@ConditionalOnExpression("!${twitter-to-kafka-service.enable-mock-tweets:false} " +
+        "&& !${twitter-to-kafka-service.enable-file-replay:false}")
 @RequiredArgsConstructor
 @Slf4j
 public class TwitterKafkaStreamRunner implements StreamRunner {
@@ -25,13 +33,41 @@ public class TwitterKafkaStreamRunner implements StreamRunner {
 
     private final TwitterKafkaStatusListener twitterKafkaStatusListener;
 
+    private final TwitterKafkaRawStreamListener twitterKafkaRawStreamListener;
+
+    private final KeywordRegistry keywordRegistry;
+
+    private final ObjectProvider<ReactiveTweetPipeline> reactiveTweetPipelineProvider;
+
     private TwitterStream twitterStream;
 
     @Override
     public void start() throws Exception {
         twitterStream = new TwitterStreamFactory().getInstance();
-        twitterStream.addListener(twitterKafkaStatusListener);
-        addFilter();
+        ReactiveTweetPipeline reactiveTweetPipeline = reactiveTweetPipelineProvider.getIfAvailable();
+        if (reactiveTweetPipeline != null) {
+            // live stream 은 늦출 수 없으므로 raw json 을 버퍼에 담고 넘치면 버린다
+            Flux<String> rawStatuses = Flux.create(sink -> twitterStream.addListener(new RawStreamListener() {
+                @Override
+                public void onMessage(String rawString) {
+                    sink.next(rawString);
+                }
+
+                @Override
+                public void onException(Exception ex) {
+                    log.error("Twitter raw stream error", ex);
+                }
+            }));
+            reactiveTweetPipeline.start(reactiveTweetPipeline.transformRawJson(
+                    reactiveTweetPipeline.fromLiveSource(rawStatuses)));
+        } else if (Boolean.TRUE.equals(twitterToKafkaServiceConfigData.getEnableStreamingJsonTransformer())) {
+            twitterStream.addListener(twitterKafkaRawStreamListener);
+        } else {
+            twitterStream.addListener(twitterKafkaStatusListener);
+        }
+        addFilter(keywordRegistry.getKeywords());
+        // keyword 가 바뀌면 runner 를 재시작하지 않고 filter 만 다시 건다
+        keywordRegistry.addKeywordChangeListener(this::addFilter);
     }
 
     @PreDestroy
@@ -42,8 +78,8 @@ public class TwitterKafkaStreamRunner implements StreamRunner {
         }
     }
 
-    private void addFilter() {
-        String[] keywords = twitterToKafkaServiceConfigData.getTwitterKeywords().toArray(new String[0]);
+    private void addFilter(List<String> keywordList) {
+        String[] keywords = keywordList.toArray(new String[0]);
 
         FilterQuery filterQuery = new FilterQuery(keywords);
         twitterStream.filter(filterQuery);
@@ -0,0 +1,70 @@
+package com.jh.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 고정 크기 Count-Min sketch. depth 개 행에 각각 width 개 counter 를 두고, 추정값은 행별 counter 의 최소값이다.
+ * <p>
+ * 행 index 는 64bit 해시 하나를 둘로 나눠 h1 + i * h2 로 만든다. counter 는 AtomicLongArray 라 락 없이 더한다.
+ * 과대 추정 오차는 대략 전체 개수 * e / width 이하다 (확률 1 - e^-depth).
+ */
+public class CountMinSketch {
+
+    private final int depth;
+
+    private final int widthMask;
+
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(int width, int depth) {
+        int powerOfTwoWidth = Integer.highestOneBit(Math.max(2, width));
+        this.depth = Math.max(1, depth);
+        this.widthMask = powerOfTwoWidth - 1;
+        this.counters = new AtomicLongArray(powerOfTwoWidth * this.depth);
+    }
+
+    public void add(CharSequence item, long count) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < depth; i++) {
+            counters.getAndAdd(index(i, h1 + i * h2), count);
+        }
+    }
+
+    public long estimate(CharSequence item) {
+        long hash = hash(item);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, counters.get(index(i, h1 + i * h2)));
+        }
+        return min;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0L);
+        }
+    }
+
+    private int index(int row, int hash) {
+        return row * (widthMask + 1) + (hash & widthMask);
+    }
+
+    private static long hash(CharSequence item) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < item.length(); i++) {
+            h = 31 * h + item.charAt(i);
+        }
+        // murmur3 fmix64
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.jh.sketch;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeavyHitter {
+
+    private String key;
+    // decay 가중치를 적용한 count 추정값
+    private long estimate;
+    // 추정값이 실제보다 클 수 있는 상한
+    private long error;
+
+}
@@ -0,0 +1,98 @@
+package com.jh.sketch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jh.config.HeavyHitterConfigData;
+import com.jh.config.KafkaConfigData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * summary-topic-name 이 설정되어 있으면 summary-interval-ms 마다 상위 단어 / 사용자를 json 으로 보낸다.
+ * tweet 용 avro producer 와 섞이지 않도록 String producer 를 따로 쓴다. 토픽은 미리 만들어 두어야 한다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HeavyHitterSummaryPublisher {
+
+    private static final String SUMMARY_KEY = "heavy-hitters";
+
+    private final HeavyHitterConfigData heavyHitterConfigData;
+
+    private final KafkaConfigData kafkaConfigData;
+
+    private final HeavyHitterTracker heavyHitterTracker;
+
+    private final ObjectMapper objectMapper;
+
+    private KafkaProducer<String, String> summaryProducer;
+
+    private ScheduledExecutorService summaryExecutor;
+
+    @PostConstruct
+    public void init() {
+        String summaryTopicName = heavyHitterConfigData.getSummaryTopicName();
+        if (!heavyHitterTracker.isEnabled() || summaryTopicName == null || summaryTopicName.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaConfigData.getBootstrapServers());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        summaryProducer = new KafkaProducer<>(props);
+
+        long intervalMs = heavyHitterConfigData.getSummaryIntervalMs();
+        summaryExecutor = Executors.newSingleThreadScheduledExecutor();
+        summaryExecutor.scheduleAtFixedRate(() -> publish(summaryTopicName), intervalMs, intervalMs,
+                TimeUnit.MILLISECONDS);
+        log.info("Publishing heavy hitter summary to {} every {} ms", summaryTopicName, intervalMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (summaryExecutor != null) {
+            summaryExecutor.shutdownNow();
+        }
+        if (summaryProducer != null) {
+            summaryProducer.close();
+        }
+    }
+
+    private void publish(String summaryTopicName) {
+        int k = heavyHitterConfigData.getSummaryTopK();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("timestamp", System.currentTimeMillis());
+        summary.put("windowMs", heavyHitterConfigData.getWindowMs());
+        summary.put("windowCount", heavyHitterConfigData.getWindowCount());
+        summary.put("decayFactor", heavyHitterConfigData.getDecayFactor());
+        summary.put("topTerms", heavyHitterTracker.topTerms(k));
+        summary.put("topUsers", heavyHitterTracker.topUsers(k));
+        try {
+            summaryProducer.send(new ProducerRecord<>(summaryTopicName, SUMMARY_KEY,
+                    objectMapper.writeValueAsString(summary)), (metadata, e) -> {
+                if (e != null) {
+                    log.warn("Error while sending heavy hitter summary: {}", e.toString());
+                }
+            });
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Error publishing heavy hitter summary", e);
+        }
+    }
+
+}
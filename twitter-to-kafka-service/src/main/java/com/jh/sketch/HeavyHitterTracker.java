@@ -0,0 +1,180 @@
+package com.jh.sketch;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.HeavyHitterConfigData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 리스너에서 바로 세는 근사 집계. 별도 streaming job 없이 단어 빈도와 hot 사용자 / 단어를 본다.
+ * <p>
+ * window-ms 길이의 window 를 window-count 개 ring 으로 두고, window 마다 단어 빈도용 Count-Min sketch 와
+ * 단어 / 사용자용 Space-Saving top-K 를 둔다. 조회할 때는 age 번째 window 에 decay-factor^age 를 곱해 더하므로
+ * 최근 것일수록 크게 반영된다. 메모리는 sketch 크기와 top-k-capacity 로 정해지고 어휘 수와 상관없다.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HeavyHitterTracker {
+
+    private final HeavyHitterConfigData heavyHitterConfigData;
+
+    private Window[] windows;
+
+    private volatile int currentIndex;
+
+    private int minTermLength;
+
+    private ScheduledExecutorService rotateExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!Boolean.TRUE.equals(heavyHitterConfigData.getEnable())) {
+            return;
+        }
+
+        int windowCount = Math.max(1, heavyHitterConfigData.getWindowCount());
+        windows = new Window[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            windows[i] = new Window(heavyHitterConfigData.getSketchWidth(), heavyHitterConfigData.getSketchDepth(),
+                    heavyHitterConfigData.getTopKCapacity(), heavyHitterConfigData.getStripes());
+        }
+        minTermLength = heavyHitterConfigData.getMinTermLength();
+
+        long windowMs = heavyHitterConfigData.getWindowMs();
+        rotateExecutor = Executors.newSingleThreadScheduledExecutor();
+        rotateExecutor.scheduleAtFixedRate(this::rotate, windowMs, windowMs, TimeUnit.MILLISECONDS);
+
+        log.info("Heavy hitter tracking enabled with {} windows of {} ms, sketch {}x{}, top-k capacity {}",
+                windowCount, windowMs, heavyHitterConfigData.getSketchDepth(), heavyHitterConfigData.getSketchWidth(),
+                heavyHitterConfigData.getTopKCapacity());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rotateExecutor != null) {
+            rotateExecutor.shutdownNow();
+        }
+    }
+
+    public void record(TwitterAvroModel twitterAvroModel) {
+        Window window = windows[currentIndex];
+        window.users.add(String.valueOf(twitterAvroModel.getUserId()));
+
+        CharSequence text = twitterAvroModel.getText();
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean termChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                if (i - start >= minTermLength) {
+                    String term = text.subSequence(start, i).toString().toLowerCase();
+                    window.termSketch.add(term, 1);
+                    window.terms.add(term);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    public long estimateTerm(String term) {
+        String normalized = term.toLowerCase();
+        double estimate = 0;
+        double weight = 1;
+        int current = currentIndex;
+        for (int age = 0; age < windows.length; age++) {
+            estimate += weight * windows[(current - age + windows.length) % windows.length].termSketch
+                    .estimate(normalized);
+            weight *= heavyHitterConfigData.getDecayFactor();
+        }
+        return Math.round(estimate);
+    }
+
+    public List<HeavyHitter> topTerms(int k) {
+        return top(k, true);
+    }
+
+    public List<HeavyHitter> topUsers(int k) {
+        return top(k, false);
+    }
+
+    public boolean isEnabled() {
+        return windows != null;
+    }
+
+    // 지금 window 가 끝나면 가장 오래된 window 를 비우고 새 window 로 쓴다
+    private void rotate() {
+        int next = (currentIndex + 1) % windows.length;
+        windows[next].clear();
+        currentIndex = next;
+    }
+
+    private List<HeavyHitter> top(int k, boolean terms) {
+        // key -> {decay 적용 count, decay 적용 error}
+        Map<String, double[]> merged = new HashMap<>();
+        double weight = 1;
+        int current = currentIndex;
+        for (int age = 0; age < windows.length; age++) {
+            Window window = windows[(current - age + windows.length) % windows.length];
+            double windowWeight = weight;
+            (terms ? window.terms : window.users).forEach((key, count, error) -> {
+                double[] value = merged.get(key);
+                if (value == null) {
+                    value = new double[2];
+                    merged.put(key, value);
+                }
+                value[0] += windowWeight * count;
+                value[1] += windowWeight * error;
+            });
+            weight *= heavyHitterConfigData.getDecayFactor();
+        }
+
+        List<HeavyHitter> heavyHitters = new ArrayList<>(merged.size());
+        for (Map.Entry<String, double[]> entry : merged.entrySet()) {
+            heavyHitters.add(new HeavyHitter(entry.getKey(), Math.round(entry.getValue()[0]),
+                    Math.round(entry.getValue()[1])));
+        }
+        Collections.sort(heavyHitters, (h1, h2) -> Long.compare(h2.getEstimate(), h1.getEstimate()));
+        return heavyHitters.size() > k ? new ArrayList<>(heavyHitters.subList(0, k)) : heavyHitters;
+    }
+
+    private static final class Window {
+
+        private final CountMinSketch termSketch;
+
+        private final StripedSpaceSaving terms;
+
+        private final StripedSpaceSaving users;
+
+        private Window(int sketchWidth, int sketchDepth, int topKCapacity, int stripes) {
+            termSketch = new CountMinSketch(sketchWidth, sketchDepth);
+            terms = new StripedSpaceSaving(topKCapacity, stripes);
+            users = new StripedSpaceSaving(topKCapacity, stripes);
+        }
+
+        private void clear() {
+            termSketch.clear();
+            terms.clear();
+            users.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.jh.sketch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * capacity 개 counter 로 heavy hitter 를 찾는 Space-Saving summary. 스레드 안전하지 않아 호출자가 락을 잡는다.
+ * <p>
+ * counter 는 count 기준 min-heap 배열에 두고 key 의 heap 위치는 map 으로 찾는다. 자리가 없으면
+ * 가장 작은 counter 를 새 key 에 넘기고, 그 count 를 error(과대 추정 상한)로 기록한다.
+ */
+class SpaceSaving {
+
+    private final String[] keys;
+
+    private final long[] counts;
+
+    private final long[] errors;
+
+    private final Map<String, Integer> positions;
+
+    private int size;
+
+    SpaceSaving(int capacity) {
+        keys = new String[capacity];
+        counts = new long[capacity];
+        errors = new long[capacity];
+        positions = new HashMap<>(capacity * 2);
+    }
+
+    void add(String key, long count) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += count;
+            siftDown(position);
+            return;
+        }
+        if (size < keys.length) {
+            keys[size] = key;
+            counts[size] = count;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        // 가장 작은 counter 를 넘겨받는다
+        positions.remove(keys[0]);
+        errors[0] = counts[0];
+        counts[0] += count;
+        keys[0] = key;
+        positions.put(key, 0);
+        siftDown(0);
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(keys[i], counts[i], errors[i]);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+        }
+        positions.clear();
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+            if (counts[i] <= counts[smallest]) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        long error = errors[i];
+        errors[i] = errors[j];
+        errors[j] = error;
+        positions.put(keys[i], i);
+        positions.put(keys[j], j);
+    }
+
+    interface EntryConsumer {
+
+        void accept(String key, long count, long error);
+
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.jh.sketch;
+
+/**
+ * key 해시로 stripe 를 골라 stripe 마다 따로 락을 잡는 Space-Saving.
+ * 같은 key 는 항상 같은 stripe 에 들어가므로 stripe 들을 합치면 그대로 전체 summary 가 된다.
+ */
+class StripedSpaceSaving {
+
+    private final SpaceSaving[] stripes;
+
+    private final int stripeMask;
+
+    StripedSpaceSaving(int capacity, int stripeCount) {
+        int powerOfTwoStripes = Integer.highestOneBit(Math.max(1, stripeCount));
+        stripes = new SpaceSaving[powerOfTwoStripes];
+        for (int i = 0; i < powerOfTwoStripes; i++) {
+            stripes[i] = new SpaceSaving(Math.max(1, capacity / powerOfTwoStripes));
+        }
+        stripeMask = powerOfTwoStripes - 1;
+    }
+
+    void add(String key) {
+        int hash = key.hashCode();
+        SpaceSaving stripe = stripes[(hash ^ (hash >>> 16)) & stripeMask];
+        synchronized (stripe) {
+            stripe.add(key, 1);
+        }
+    }
+
+    void forEach(SpaceSaving.EntryConsumer consumer) {
+        for (SpaceSaving stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach(consumer);
+            }
+        }
+    }
+
+    void clear() {
+        for (SpaceSaving stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.jh.transformer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.exception.TwitterToKafkaServiceException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.Locale;
+
+/**
+ * raw tweet json 에서 id, user.id, text, created_at 네 필드만 스트리밍 파서로 읽어
+ * twitter4j Status 객체 그래프를 만들지 않고 바로 TwitterAvroModel 을 만든다.
+ * <p>
+ * 나머지 필드(entities, retweeted_status 등)는 skipChildren() 으로 토큰만 건너뛴다.
+ * status 가 아닌 메시지(delete, limit 등)는 null 을 반환한다.
+ */
+@Component
+public class TwitterJsonToAvroTransformer {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // "Wed Oct 10 20:19:24 +0000 2018" (twitter api) 와 "+00:00" / "Z" (mock) 오프셋을 모두 허용
+    private static final DateTimeFormatter TWITTER_STATUS_DATE_FORMATTER = new DateTimeFormatterBuilder()
+            .appendPattern("EEE MMM dd HH:mm:ss ")
+            .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+            .optionalStart().appendOffset("+HHMM", "+0000").optionalEnd()
+            .appendPattern(" yyyy")
+            .toFormatter(Locale.ENGLISH);
+
+    // 같은 초에 생성된 tweet 은 created_at 문자열이 같으므로 마지막 파싱 결과를 스레드별로 재사용
+    private static final ThreadLocal<CreatedAtCache> CREATED_AT_CACHE = ThreadLocal.withInitial(CreatedAtCache::new);
+
+    public TwitterAvroModel getTwitterAvroModelFromJson(String rawJson) {
+        try (JsonParser parser = JSON_FACTORY.createParser(rawJson)) {
+            return parseStatus(parser);
+        } catch (IOException e) {
+            throw new TwitterToKafkaServiceException("Error parsing twitter status json", e);
+        }
+    }
+
+    public TwitterAvroModel getTwitterAvroModelFromJson(byte[] rawJson, int offset, int length) {
+        try (JsonParser parser = JSON_FACTORY.createParser(rawJson, offset, length)) {
+            return parseStatus(parser);
+        } catch (IOException e) {
+            throw new TwitterToKafkaServiceException("Error parsing twitter status json", e);
+        }
+    }
+
+    private TwitterAvroModel parseStatus(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+
+        long id = 0L;
+        long userId = 0L;
+        boolean hasId = false;
+        boolean hasUserId = false;
+        String text = null;
+        Long createdAt = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+
+            if ("id".equals(fieldName) && valueToken == JsonToken.VALUE_NUMBER_INT) {
+                id = parser.getLongValue();
+                hasId = true;
+            } else if ("text".equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+                text = parser.getText();
+            } else if ("created_at".equals(fieldName) && valueToken == JsonToken.VALUE_STRING) {
+                createdAt = parseCreatedAt(parser.getText());
+            } else if ("user".equals(fieldName) && valueToken == JsonToken.START_OBJECT) {
+                Long parsedUserId = parseUserId(parser);
+                if (parsedUserId != null) {
+                    userId = parsedUserId;
+                    hasUserId = true;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (!hasId || !hasUserId) {
+            return null;
+        }
+
+        return TwitterAvroModel
+                .newBuilder()
+                .setId(id)
+                .setUserId(userId)
+                .setText(text)
+                .setCreatedAt(createdAt)
+                .build();
+    }
+
+    private Long parseUserId(JsonParser parser) throws IOException {
+        Long userId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+
+            if ("id".equals(fieldName) && valueToken == JsonToken.VALUE_NUMBER_INT) {
+                userId = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return userId;
+    }
+
+    private Long parseCreatedAt(String createdAt) {
+        CreatedAtCache cache = CREATED_AT_CACHE.get();
+        if (!createdAt.equals(cache.text)) {
+            cache.epochMillis = OffsetDateTime.parse(createdAt, TWITTER_STATUS_DATE_FORMATTER)
+                    .toInstant()
+                    .toEpochMilli();
+            cache.text = createdAt;
+        }
+        return cache.epochMillis;
+    }
+
+    private static final class CreatedAtCache {
+        private String text;
+        private long epochMillis;
+    }
+
+}
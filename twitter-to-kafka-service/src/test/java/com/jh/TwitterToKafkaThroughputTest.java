@@ -0,0 +1,253 @@
+package com.jh;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.KafkaConfigData;
+import com.jh.config.TwitterToKafkaServiceConfigData;
+import com.jh.generator.MockTweetPayloadPool;
+import com.jh.generator.MockWorkload;
+import com.jh.generator.RateLimiter;
+import com.jh.init.StreamInitializer;
+import com.jh.listener.TwitterKafkaStatusListener;
+import com.jh.pool.KafkaProducerPool;
+import com.jh.runner.StreamRunner;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.LongDeserializer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * 내장 Kafka 브로커와 mock schema registry 로 한 JVM 안에서 돌리는 end-to-end 처리량 테스트.
+ * <p>
+ * TwitterKafkaStatusListener 를 목표 rate 로 호출하고 토픽을 다시 읽어 msgs/sec, MB/sec,
+ * ack latency p50/p99/p999 를 기록한다. 기본 빌드에서는 제외되고 -Pperf 로 실행한다.
+ * 부하 크기는 -Dperf.target-rate, -Dperf.duration-seconds, -Dperf.threads,
+ * 회귀 기준은 -Dperf.min-msgs-per-sec 로 조절한다.
+ */
+@Slf4j
+@Tag("performance")
+@SpringBootTest(properties = {
+        "twitter-to-kafka-service.enable-mock-tweets=true",
+        "twitter-to-kafka-service.enable-streaming-json-transformer=true",
+        "kafka-config.schema-registry-url=mock://perf",
+        "kafka-config.num-of-partitions=3",
+        "kafka-config.replication-factor=1",
+        "ring-buffer-config.enable=false",
+        "adaptive-batching-config.enable=false"
+})
+@EmbeddedKafka(partitions = 3, topics = "twitter-topic", bootstrapServersProperty = "kafka-config.bootstrap-servers")
+class TwitterToKafkaThroughputTest {
+
+    private static final int TARGET_RATE = Integer.getInteger("perf.target-rate", 20000);
+    private static final int DURATION_SECONDS = Integer.getInteger("perf.duration-seconds", 10);
+    private static final int THREADS = Integer.getInteger("perf.threads", 2);
+    private static final int MIN_MSGS_PER_SEC = Integer.getInteger("perf.min-msgs-per-sec", 1000);
+
+    private static final long CONSUME_TIMEOUT_MS = 60000;
+    private static final int PAYLOAD_POOL_SIZE = 100000;
+
+    @MockitoBean
+    private StreamInitializer streamInitializer;
+
+    @MockitoBean
+    private StreamRunner streamRunner;
+
+    @MockitoSpyBean
+    private KafkaProducerPool<Long, TwitterAvroModel> kafkaProducerPool;
+
+    @Autowired
+    private TwitterKafkaStatusListener twitterKafkaStatusListener;
+
+    @Autowired
+    private TwitterToKafkaServiceConfigData twitterToKafkaServiceConfigData;
+
+    @Autowired
+    private KafkaConfigData kafkaConfigData;
+
+    @Autowired
+    private EmbeddedKafkaBroker embeddedKafkaBroker;
+
+    @Test
+    public void sustainedThroughput() throws Exception {
+        LatencyRecorder ackLatency = new LatencyRecorder(TARGET_RATE * DURATION_SECONDS * 2);
+        LongAdder failedCount = new LongAdder();
+        recordAckLatency(ackLatency, failedCount);
+
+        MockWorkload workload = MockWorkload.fromConfig(twitterToKafkaServiceConfigData);
+        MockTweetPayloadPool payloadPool = new MockTweetPayloadPool(PAYLOAD_POOL_SIZE,
+                workload.newGenerator(0)::nextTweet);
+
+        // schema 등록과 producer metadata 조회는 측정에서 제외
+        twitterKafkaStatusListener.onRawStatus(payloadPool.get(0));
+        kafkaProducerPool.flush();
+        ackLatency.reset();
+
+        try (KafkaConsumer<Long, byte[]> consumer = createConsumer()) {
+            // group join 을 기다리지 않도록 partition 을 직접 할당하고 warm-up 레코드 뒤부터 읽는다
+            List<TopicPartition> partitions = consumer.partitionsFor(kafkaConfigData.getTopicName()).stream()
+                    .map(partitionInfo -> new TopicPartition(partitionInfo.topic(), partitionInfo.partition()))
+                    .collect(Collectors.toList());
+            consumer.assign(partitions);
+            consumer.seekToEnd(partitions);
+            partitions.forEach(consumer::position);
+
+            long startNanos = System.nanoTime();
+            long sentCount = drive(payloadPool);
+            long driveNanos = System.nanoTime() - startNanos;
+
+            long consumedCount = 0;
+            long consumedBytes = 0;
+            long deadlineMs = System.currentTimeMillis() + CONSUME_TIMEOUT_MS;
+            while (consumedCount < sentCount && System.currentTimeMillis() < deadlineMs) {
+                ConsumerRecords<Long, byte[]> records = consumer.poll(Duration.ofMillis(200));
+                for (ConsumerRecord<Long, byte[]> record : records) {
+                    consumedCount++;
+                    consumedBytes += record.serializedValueSize() + record.serializedKeySize();
+                }
+            }
+            long totalNanos = System.nanoTime() - startNanos;
+
+            double seconds = totalNanos / (double) TimeUnit.SECONDS.toNanos(1);
+            double msgsPerSec = consumedCount / seconds;
+            double mbPerSec = consumedBytes / seconds / (1024 * 1024);
+
+            log.info("Drove {} msgs in {} ms (target {} msgs/sec, {} threads)",
+                    sentCount, TimeUnit.NANOSECONDS.toMillis(driveNanos), TARGET_RATE, THREADS);
+            log.info("Consumed {} msgs, {} bytes: {} msgs/sec, {} MB/sec",
+                    consumedCount, consumedBytes, String.format("%.1f", msgsPerSec), String.format("%.2f", mbPerSec));
+            log.info("Ack latency p50 {} us, p99 {} us, p999 {} us, max {} us ({} samples)",
+                    ackLatency.percentileMicros(0.50), ackLatency.percentileMicros(0.99),
+                    ackLatency.percentileMicros(0.999), ackLatency.percentileMicros(1.0), ackLatency.count());
+
+            assertEquals(0, failedCount.sum(), "failed sends");
+            assertEquals(sentCount, consumedCount, "consumed count");
+            assertTrue(msgsPerSec >= MIN_MSGS_PER_SEC,
+                    "Throughput " + msgsPerSec + " msgs/sec is below " + MIN_MSGS_PER_SEC);
+        }
+    }
+
+    // send 호출부터 broker ack 까지. 실제 pool 메서드를 그대로 부르고 future 완료 시점만 기록한다
+    @SuppressWarnings("unchecked")
+    private void recordAckLatency(LatencyRecorder ackLatency, LongAdder failedCount) {
+        doAnswer(invocation -> {
+            long sendNanos = System.nanoTime();
+            CompletableFuture<SendResult<Long, TwitterAvroModel>> future =
+                    (CompletableFuture<SendResult<Long, TwitterAvroModel>>) invocation.callRealMethod();
+            future.whenComplete((result, throwable) -> {
+                if (throwable != null) {
+                    failedCount.increment();
+                } else {
+                    ackLatency.record(System.nanoTime() - sendNanos);
+                }
+            });
+            return future;
+        }).when(kafkaProducerPool).send(anyString(), any(), any(), any());
+    }
+
+    private long drive(MockTweetPayloadPool payloadPool) throws InterruptedException {
+        RateLimiter rateLimiter = new RateLimiter(TARGET_RATE);
+        LongAdder sentCount = new LongAdder();
+        long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            long initialCursor = (long) i * payloadPool.size() / THREADS;
+            executor.submit(() -> {
+                long cursor = initialCursor;
+                while (System.nanoTime() < endNanos) {
+                    rateLimiter.acquire();
+                    twitterKafkaStatusListener.onRawStatus(payloadPool.get(cursor++));
+                    sentCount.increment();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(DURATION_SECONDS + 30L, TimeUnit.SECONDS), "driver threads");
+        kafkaProducerPool.flush();
+        return sentCount.sum();
+    }
+
+    private KafkaConsumer<Long, byte[]> createConsumer() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, embeddedKafkaBroker.getBrokersAsString());
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "throughput-test");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5000);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, LongDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return new KafkaConsumer<>(props);
+    }
+
+    /**
+     * 측정 중에는 배열에 쓰기만 하고 percentile 은 끝난 뒤 정렬해서 구한다.
+     */
+    private static final class LatencyRecorder {
+
+        private final long[] samples;
+
+        private final AtomicInteger index = new AtomicInteger();
+
+        private LatencyRecorder(int capacity) {
+            samples = new long[capacity];
+        }
+
+        private void record(long nanos) {
+            int i = index.getAndIncrement();
+            if (i < samples.length) {
+                samples[i] = nanos;
+            }
+        }
+
+        private void reset() {
+            index.set(0);
+        }
+
+        private int count() {
+            return Math.min(index.get(), samples.length);
+        }
+
+        private long percentileMicros(double percentile) {
+            int count = count();
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile * count) - 1;
+            return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, Math.min(rank, count - 1))]);
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.jh.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongHashSetTest {
+
+    @Test
+    void addsEachKeyOnce() {
+        LongHashSet set = new LongHashSet(8, 0);
+        assertTrue(set.add(0L, 0));
+        assertTrue(set.add(-1L, 0));
+        assertTrue(set.add(Long.MAX_VALUE, 0));
+        assertFalse(set.add(0L, 0));
+        assertFalse(set.add(Long.MAX_VALUE, 0));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    void evictsOldestWhenFull() {
+        LongHashSet set = new LongHashSet(4, 0);
+        for (long key = 1; key <= 6; key++) {
+            set.add(key, 0);
+        }
+        assertEquals(4, set.size());
+        assertFalse(set.contains(1L));
+        assertFalse(set.contains(2L));
+        for (long key = 3; key <= 6; key++) {
+            assertTrue(set.contains(key));
+        }
+    }
+
+    @Test
+    void evictsExpiredKeys() {
+        LongHashSet set = new LongHashSet(16, 1000);
+        set.add(1L, 0);
+        set.add(2L, 500);
+        set.add(3L, 1200);
+        assertFalse(set.contains(1L));
+        assertTrue(set.contains(2L));
+        assertTrue(set.add(1L, 1600));
+        assertFalse(set.contains(2L));
+    }
+
+    @Test
+    void keepsProbeChainsAfterManyEvictions() {
+        LongHashSet set = new LongHashSet(64, 0);
+        for (long key = 0; key < 10000; key++) {
+            assertTrue(set.add(key * 1024, 0));
+        }
+        assertEquals(64, set.size());
+        for (long key = 10000 - 64; key < 10000; key++) {
+            assertTrue(set.contains(key * 1024));
+        }
+        assertFalse(set.contains((10000 - 65) * 1024L));
+    }
+
+}
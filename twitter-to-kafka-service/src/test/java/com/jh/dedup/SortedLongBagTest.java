@@ -0,0 +1,54 @@
+package com.jh.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SortedLongBagTest {
+
+    @Test
+    void minFollowsOutOfOrderAddsAndRemoves() {
+        SortedLongBag bag = new SortedLongBag(2);
+        assertEquals(Long.MAX_VALUE, bag.min());
+        bag.add(5L);
+        bag.add(9L);
+        bag.add(-3L);
+        bag.add(7L);
+        assertEquals(-3L, bag.min());
+
+        assertTrue(bag.remove(-3L));
+        assertEquals(5L, bag.min());
+        assertTrue(bag.remove(7L));
+        assertFalse(bag.remove(7L));
+        assertEquals(5L, bag.min());
+        assertEquals(2, bag.size());
+    }
+
+    @Test
+    void keepsDuplicates() {
+        SortedLongBag bag = new SortedLongBag(4);
+        bag.add(1L);
+        bag.add(1L);
+        assertTrue(bag.remove(1L));
+        assertEquals(1L, bag.min());
+        assertTrue(bag.remove(1L));
+        assertEquals(0, bag.size());
+        assertEquals(Long.MAX_VALUE, bag.min());
+    }
+
+    @Test
+    void reusesSpaceWhenRemovedInOrder() {
+        SortedLongBag bag = new SortedLongBag(8);
+        for (long value = 0; value < 10000; value++) {
+            bag.add(value);
+            if (value >= 4) {
+                assertTrue(bag.remove(value - 4));
+            }
+        }
+        assertEquals(4, bag.size());
+        assertEquals(9996L, bag.min());
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.jh.dedup;
+
+import com.jh.config.TweetDedupConfigData;
+import com.jh.service.SendCallback;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TweetDeduplicatorTest {
+
+    private static final List<String> KEYWORDS = Arrays.asList("Java", "Kafka");
+
+    private static final long JAVA = 1L;
+
+    private static final long KAFKA = 1L << 1;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rejectsDuplicateIds() {
+        TweetDeduplicator deduplicator = deduplicator(null);
+        assertTrue(deduplicator.tryAccept(1L, JAVA, KEYWORDS));
+        assertFalse(deduplicator.tryAccept(1L, JAVA, KEYWORDS));
+        assertTrue(deduplicator.tryAccept(2L, JAVA, KEYWORDS));
+        assertEquals(2, deduplicator.getAcceptedCount());
+        assertEquals(1, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    void watermarkStaysBelowInFlightTweets() {
+        TweetDeduplicator deduplicator = deduplicator(null);
+        for (long id = 1; id <= 3; id++) {
+            deduplicator.tryAccept(id, JAVA, KEYWORDS);
+        }
+        ack(deduplicator, 1L, JAVA);
+        ack(deduplicator, 3L, JAVA);
+        assertEquals(1L, (long) deduplicator.getAckedWatermarks().get("Java"));
+
+        ack(deduplicator, 2L, JAVA);
+        assertEquals(3L, (long) deduplicator.getAckedWatermarks().get("Java"));
+    }
+
+    @Test
+    void failedSendHoldsWatermarkBelowIt() {
+        TweetDeduplicator deduplicator = deduplicator(null);
+        deduplicator.tryAccept(5L, JAVA, KEYWORDS);
+        deduplicator.tryAccept(6L, JAVA, KEYWORDS);
+        deduplicator.sendCallback(5L, JAVA, KEYWORDS, 1).onCompletion(new IllegalStateException("broker down"));
+        ack(deduplicator, 6L, JAVA);
+
+        assertEquals(4L, (long) deduplicator.getAckedWatermarks().get("Java"));
+        assertEquals(1, deduplicator.getFailedCount());
+    }
+
+    @Test
+    void ackedOnlyWhenEverySendSucceeds() {
+        TweetDeduplicator deduplicator = deduplicator(null);
+        deduplicator.tryAccept(7L, JAVA | KAFKA, KEYWORDS);
+        SendCallback callback = deduplicator.sendCallback(7L, JAVA | KAFKA, KEYWORDS, 2);
+
+        callback.onCompletion(null);
+        assertNull(deduplicator.getAckedWatermarks().get("Java"));
+        callback.onCompletion(null);
+        assertEquals(7L, (long) deduplicator.getAckedWatermarks().get("Java"));
+        assertEquals(7L, (long) deduplicator.getAckedWatermarks().get("Kafka"));
+    }
+
+    @Test
+    void skipsTweetsAckedBeforeRestart() {
+        String checkpointFile = directory.resolve("tweet-dedup.checkpoint").toString();
+        TweetDeduplicator deduplicator = deduplicator(checkpointFile);
+        deduplicator.tryAccept(10L, JAVA, KEYWORDS);
+        ack(deduplicator, 10L, JAVA);
+        deduplicator.tryAccept(20L, 0L, KEYWORDS);
+        ack(deduplicator, 20L, 0L);
+        // 보내던 중에 멈춘 tweet 은 재시작 후 다시 보내야 한다
+        deduplicator.tryAccept(11L, JAVA, KEYWORDS);
+        deduplicator.shutdown();
+
+        TweetDeduplicator restarted = deduplicator(checkpointFile);
+        assertFalse(restarted.tryAccept(10L, JAVA, KEYWORDS));
+        assertFalse(restarted.tryAccept(20L, 0L, KEYWORDS));
+        assertTrue(restarted.tryAccept(11L, JAVA, KEYWORDS));
+        // 다른 keyword 에도 매치되면 그 keyword 로는 아직 보내지 않은 tweet 이다
+        assertTrue(restarted.tryAccept(9L, JAVA | KAFKA, KEYWORDS));
+        assertEquals(2, restarted.getReplayedCount());
+        restarted.shutdown();
+    }
+
+    private static TweetDeduplicator deduplicator(String checkpointFile) {
+        TweetDedupConfigData tweetDedupConfigData = new TweetDedupConfigData();
+        tweetDedupConfigData.setEnable(true);
+        tweetDedupConfigData.setCapacity(1024);
+        tweetDedupConfigData.setTtlMs(600000L);
+        tweetDedupConfigData.setStripes(4);
+        tweetDedupConfigData.setCheckpointFile(checkpointFile);
+        tweetDedupConfigData.setCheckpointIntervalMs(600000L);
+        TweetDeduplicator deduplicator = new TweetDeduplicator(tweetDedupConfigData);
+        deduplicator.init();
+        return deduplicator;
+    }
+
+    private static void ack(TweetDeduplicator deduplicator, long tweetId, long keywordIds) {
+        deduplicator.sendCallback(tweetId, keywordIds, KEYWORDS, 1).onCompletion(null);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.jh.routing;
+
+import com.jh.avro.model.TwitterAvroModel;
+import com.jh.config.KafkaConfigData;
+import com.jh.config.KeywordRoutingConfigData;
+import com.jh.config.TweetDedupConfigData;
+import com.jh.config.TwitterToKafkaServiceConfigData;
+import com.jh.dedup.TweetDeduplicator;
+import com.jh.keyword.KeywordRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TweetRouterTest {
+
+    @Test
+    void failsDedupCallbackWhenSendThrows() {
+        KafkaConfigData kafkaConfigData = new KafkaConfigData();
+        kafkaConfigData.setTopicName("twitter-topic");
+        KeywordRoutingConfigData keywordRoutingConfigData = new KeywordRoutingConfigData();
+        keywordRoutingConfigData.setEnable(false);
+        KeywordRegistry keywordRegistry = new KeywordRegistry(new TwitterToKafkaServiceConfigData(), kafkaConfigData,
+                keywordRoutingConfigData);
+        keywordRegistry.update(Arrays.asList("Java", "Kafka"));
+
+        TweetDedupConfigData tweetDedupConfigData = new TweetDedupConfigData();
+        tweetDedupConfigData.setEnable(true);
+        tweetDedupConfigData.setCapacity(1024);
+        tweetDedupConfigData.setTtlMs(600000L);
+        tweetDedupConfigData.setStripes(4);
+        TweetDeduplicator tweetDeduplicator = new TweetDeduplicator(tweetDedupConfigData);
+        tweetDeduplicator.init();
+
+        TweetRouter tweetRouter = new TweetRouter(kafkaConfigData, keywordRoutingConfigData, keywordRegistry,
+                tweetDedupConfigData, tweetDeduplicator);
+        assertThrows(IllegalStateException.class, () -> tweetRouter.route(tweet(100L),
+                (topicName, key, value, headers, callback) -> {
+                    throw new IllegalStateException("buffer memory exhausted");
+                }));
+        tweetRouter.route(tweet(101L), (topicName, key, value, headers, callback) -> callback.onCompletion(null));
+
+        // 던진 tweet 은 전송 중으로 남지 않고 실패로 기록되어 watermark 가 그 아래에 머문다
+        assertEquals(1, tweetDeduplicator.getFailedCount());
+        assertEquals(Collections.singletonList(99L), new ArrayList<>(tweetDeduplicator.getAckedWatermarks().values()));
+    }
+
+    private static TwitterAvroModel tweet(long id) {
+        return TwitterAvroModel.newBuilder()
+                .setUserId(1L)
+                .setId(id)
+                .setText("Java tweet")
+                .setCreatedAt(0L)
+                .build();
+    }
+
+}